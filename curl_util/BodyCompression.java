@@ -0,0 +1,549 @@
+package curl_util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 请求体/响应体压缩工具
+ * 支持gzip、deflate，以及classpath中存在zstd-jni时的zstd；压缩和解压都以流的方式进行，不在内存中保留完整副本
+ *
+ * <ul>
+ *     <li>生成curl命令时，请求体预先压缩到按内容命名的文件，命令中使用 --data-binary @file 并添加 Content-Encoding</li>
+ *     <li>执行请求时，请求体边读边压缩发送，响应体按 Content-Encoding 边读边解压</li>
+ * </ul>
+ *
+ * @author shenmiren21
+ */
+public final class BodyCompression {
+
+    private static final Logger logger = Logger.getLogger(BodyCompression.class.getName());
+    private static final String LOG_PREFIX = "[BodyCompression]";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 预压缩文件的默认目录 */
+    public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "curl-util");
+
+    private static final Constructor<?> ZSTD_OUTPUT = zstdConstructor("com.github.luben.zstd.ZstdOutputStream",
+            OutputStream.class);
+    private static final Constructor<?> ZSTD_INPUT = zstdConstructor("com.github.luben.zstd.ZstdInputStream",
+            InputStream.class);
+
+    /**
+     * 内容编码
+     */
+    public enum Coding {
+        GZIP("gzip", ".gz"),
+        DEFLATE("deflate", ".zz"),
+        /** 需要classpath中存在 com.github.luben:zstd-jni */
+        ZSTD("zstd", ".zst");
+
+        private final String token;
+        private final String extension;
+
+        Coding(String token, String extension) {
+            this.token = token;
+            this.extension = extension;
+        }
+
+        /**
+         * Content-Encoding中的名称
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * 当前运行环境是否支持该编码
+         */
+        public boolean isAvailable() {
+            return this != ZSTD || (ZSTD_OUTPUT != null && ZSTD_INPUT != null);
+        }
+
+        /**
+         * 按Content-Encoding名称查找，不支持时返回null
+         */
+        public static Coding fromToken(String token) {
+            String normalized = token.trim().toLowerCase(Locale.ROOT);
+            if ("x-gzip".equals(normalized)) {
+                return GZIP;
+            }
+            for (Coding coding : values()) {
+                if (coding.token.equals(normalized)) {
+                    return coding;
+                }
+            }
+            return null;
+        }
+    }
+
+    private BodyCompression() {
+    }
+
+    /**
+     * 当前运行环境支持的 Accept-Encoding 值
+     *
+     * @return 如 "gzip, deflate, zstd"
+     */
+    public static String acceptEncoding() {
+        StringBuilder accept = new StringBuilder();
+        for (Coding coding : Coding.values()) {
+            if (coding.isAvailable()) {
+                if (accept.length() > 0) {
+                    accept.append(", ");
+                }
+                accept.append(coding.token);
+            }
+        }
+        return accept.toString();
+    }
+
+    /**
+     * 把文件预压缩到默认目录
+     *
+     * @param source 原始文件
+     * @param coding 编码
+     * @return 压缩结果（包含压缩前后大小）
+     */
+    public static CompressedBody compress(Path source, Coding coding) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return compress(in, coding, DEFAULT_DIRECTORY);
+        }
+    }
+
+    /**
+     * 把输入流预压缩到指定目录
+     * 文件按内容寻址：文件名为编码和原始数据的SHA-256（body-&lt;hash&gt;.gz），相同请求体重复生成命令时复用同一个文件，
+     * 不会在目录中不断堆积
+     *
+     * @param source 原始数据（不会被关闭）
+     * @param coding 编码
+     * @param directory 输出目录，不存在时自动创建
+     * @return 压缩结果（包含压缩前后大小）
+     */
+    public static CompressedBody compress(InputStream source, Coding coding, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MessageDigest digest = sha256();
+        digest.update(coding.token.getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) 0);
+        Path temp = Files.createTempFile(directory, "body-", ".tmp");
+        long originalSize = 0;
+        try {
+            try (OutputStream out = encode(Files.newOutputStream(temp), coding)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = source.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                    digest.update(buffer, 0, n);
+                    originalSize += n;
+                }
+            }
+            Path target = directory.resolve("body-" + toHex(digest.digest()) + coding.extension);
+            if (Files.exists(target)) {
+                Files.delete(temp);
+            } else {
+                // 并发生成相同内容时后移动的文件覆盖先移动的，内容相同，不影响已生成的命令
+                moveAtomically(temp, target);
+            }
+            CompressedBody compressed = new CompressedBody(target, coding, originalSize, Files.size(target));
+            logger.info(LOG_PREFIX + " " + compressed);
+            return compressed;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 包装为压缩输出流，关闭时写出压缩尾部
+     *
+     * @param out 目标输出流
+     * @param coding 编码
+     * @return 压缩输出流
+     */
+    public static OutputStream encode(OutputStream out, Coding coding) throws IOException {
+        switch (coding) {
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            case DEFLATE:
+                // HTTP的deflate编码是zlib格式（RFC 1950），不是裸deflate
+                return new DeflaterOutputStream(out);
+            default:
+                return (OutputStream) newZstd(ZSTD_OUTPUT, out);
+        }
+    }
+
+    /**
+     * 包装为边读边压缩的输入流（用于流式发送压缩后的请求体）
+     *
+     * @param source 原始数据
+     * @param coding 编码
+     * @param stats 统计（可为null），读取过程中累加压缩前后字节数
+     * @return 压缩后的数据流
+     */
+    public static InputStream encodingStream(InputStream source, Coding coding, Stats stats) throws IOException {
+        return new EncodingInputStream(source, coding, stats);
+    }
+
+    /**
+     * 按Content-Encoding包装解压输入流
+     * 支持逗号分隔的多重编码（按相反顺序解码），identity和空值原样返回
+     *
+     * @param in 响应体
+     * @param contentEncoding Content-Encoding响应头
+     * @return 解压后的数据流
+     * @throws IOException 存在不支持的编码时抛出
+     */
+    public static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.trim().isEmpty()) {
+            return in;
+        }
+        String[] codings = contentEncoding.split(",");
+        InputStream decoded = in;
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String token = codings[i].trim();
+            if (token.isEmpty() || "identity".equalsIgnoreCase(token)) {
+                continue;
+            }
+            Coding coding = Coding.fromToken(token);
+            if (coding == null || !coding.isAvailable()) {
+                throw new IOException("不支持的Content-Encoding: " + token);
+            }
+            decoded = decode(decoded, coding);
+        }
+        return decoded;
+    }
+
+    /**
+     * Content-Encoding中的编码是否都能解码（identity和空值视为支持）
+     *
+     * @param contentEncoding Content-Encoding响应头
+     * @return 是否支持
+     */
+    public static boolean isDecodable(String contentEncoding) {
+        if (contentEncoding == null) {
+            return true;
+        }
+        for (String token : contentEncoding.split(",")) {
+            token = token.trim();
+            if (token.isEmpty() || "identity".equalsIgnoreCase(token)) {
+                continue;
+            }
+            Coding coding = Coding.fromToken(token);
+            if (coding == null || !coding.isAvailable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 包装解压输入流
+     *
+     * @param in 压缩数据
+     * @param coding 编码
+     * @return 解压后的数据流
+     */
+    public static InputStream decode(InputStream in, Coding coding) throws IOException {
+        switch (coding) {
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case DEFLATE:
+                // 部分服务端发送裸deflate数据，通过zlib头判断格式
+                PushbackInputStream pushback = new PushbackInputStream(in, 2);
+                int cmf = pushback.read();
+                int flg = pushback.read();
+                if (flg >= 0) {
+                    pushback.unread(flg);
+                }
+                if (cmf >= 0) {
+                    pushback.unread(cmf);
+                }
+                boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+                return new InflaterInputStream(pushback, new Inflater(!zlib), BUFFER_SIZE);
+            default:
+                return (InputStream) newZstd(ZSTD_INPUT, in);
+        }
+    }
+
+    private static Constructor<?> zstdConstructor(String className, Class<?> parameterType) {
+        try {
+            return Class.forName(className).getConstructor(parameterType);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Object newZstd(Constructor<?> constructor, Object stream) throws IOException {
+        if (constructor == null) {
+            throw new IOException("zstd不可用，需要在classpath中加入 com.github.luben:zstd-jni");
+        }
+        try {
+            return constructor.newInstance(stream);
+        } catch (ReflectiveOperationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof IOException ? (IOException) cause : new IOException("创建zstd流失败", cause);
+        }
+    }
+
+    /**
+     * 预压缩结果
+     */
+    public static final class CompressedBody {
+
+        private final Path path;
+        private final Coding coding;
+        private final long originalSize;
+        private final long compressedSize;
+
+        CompressedBody(Path path, Coding coding, long originalSize, long compressedSize) {
+            this.path = path;
+            this.coding = coding;
+            this.originalSize = originalSize;
+            this.compressedSize = compressedSize;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public Coding getCoding() {
+            return coding;
+        }
+
+        public long getOriginalSize() {
+            return originalSize;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        /**
+         * 压缩后大小占原始大小的比例
+         */
+        public double ratio() {
+            return originalSize == 0 ? 1 : (double) compressedSize / originalSize;
+        }
+
+        /**
+         * 转换为请求体数据源
+         *
+         * @param contentType 原始数据的Content-Type
+         * @return 请求体数据源
+         */
+        public BodySource toBodySource(String contentType) {
+            return BodySource.ofPath(path, contentType);
+        }
+
+        @Override
+        public String toString() {
+            return coding.token + " " + formatSizes(originalSize, compressedSize) + " -> " + path;
+        }
+    }
+
+    /**
+     * 一次请求的压缩统计
+     * 请求体统计在请求发送完成后确定，响应体统计随着读取响应体累加
+     */
+    public static final class Stats {
+
+        private final AtomicLong requestOriginal = new AtomicLong();
+        private final AtomicLong requestEncoded = new AtomicLong();
+        private final AtomicLong responseEncoded = new AtomicLong();
+        private final AtomicLong responseDecoded = new AtomicLong();
+
+        public long getRequestOriginalBytes() {
+            return requestOriginal.get();
+        }
+
+        public long getRequestEncodedBytes() {
+            return requestEncoded.get();
+        }
+
+        public long getResponseEncodedBytes() {
+            return responseEncoded.get();
+        }
+
+        public long getResponseDecodedBytes() {
+            return responseDecoded.get();
+        }
+
+        /**
+         * 统计响应体：in为网络上收到的数据，返回的流为解码后的数据
+         */
+        InputStream countResponse(InputStream in, String contentEncoding) throws IOException {
+            InputStream wire = new CountingInputStream(in, responseEncoded);
+            return new CountingInputStream(decode(wire, contentEncoding), responseDecoded);
+        }
+
+        @Override
+        public String toString() {
+            return "请求体 " + formatSizes(requestOriginal.get(), requestEncoded.get())
+                    + "，响应体 " + formatSizes(responseDecoded.get(), responseEncoded.get());
+        }
+    }
+
+    private static String formatSizes(long original, long encoded) {
+        return String.format(Locale.ROOT, "%dB -> %dB (%.1f%%)", original, encoded,
+                original == 0 ? 100.0 : encoded * 100.0 / original);
+    }
+
+    /**
+     * 计数输入流
+     */
+    private static final class CountingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            this.in = in;
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * 边读边压缩的输入流
+     * 每次从原始数据读取一块写入压缩流，压缩输出暂存在可复用的缓冲中供读取
+     */
+    private static final class EncodingInputStream extends InputStream {
+
+        private final InputStream source;
+        private final ExposedBuffer pending = new ExposedBuffer();
+        private final OutputStream encoder;
+        private final Stats stats;
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+        private int position;
+        private boolean finished;
+
+        EncodingInputStream(InputStream source, Coding coding, Stats stats) throws IOException {
+            this.source = source;
+            this.encoder = encode(pending, coding);
+            this.stats = stats;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == pending.size()) {
+                if (finished) {
+                    return -1;
+                }
+                pending.reset();
+                position = 0;
+                int n = source.read(chunk);
+                if (n < 0) {
+                    encoder.close();
+                    finished = true;
+                } else if (n > 0) {
+                    encoder.write(chunk, 0, n);
+                    if (stats != null) {
+                        stats.requestOriginal.addAndGet(n);
+                    }
+                }
+            }
+            int n = Math.min(len, pending.size() - position);
+            System.arraycopy(pending.array(), position, b, off, n);
+            position += n;
+            if (stats != null) {
+                stats.requestEncoded.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    /**
+     * 可直接访问内部数组的字节缓冲
+     */
+    private static final class ExposedBuffer extends ByteArrayOutputStream {
+
+        ExposedBuffer() {
+            super(BUFFER_SIZE);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package curl_util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求体数据源
+ * 用于大请求体场景，避免把整个请求体读入String再拼接到curl命令中。
+ * 生成命令时渲染为 --data-binary @file（流数据渲染为 @-，由标准输入提供），
+ * 执行请求时以流的方式发送，不在堆上保留完整副本。
+ *
+ * @author shenmiren21
+ */
+public final class BodySource {
+
+    /**
+     * 数据源类型
+     */
+    public enum Kind {
+        /** 文件 */
+        FILE,
+        /** 输入流（只能读取一次） */
+        STREAM,
+        /** 内存映射区域 */
+        MAPPED
+    }
+
+    /** 内存映射发送时每个分片的大小 */
+    private static final int MAPPED_CHUNK_SIZE = 256 * 1024;
+
+    private final Kind kind;
+    private final Path path;
+    private final InputStream stream;
+    private final long offset;
+    private final long length;
+    private final String contentType;
+    private final AtomicBoolean consumed = new AtomicBoolean(false);
+
+    private BodySource(Kind kind, Path path, InputStream stream, long offset, long length, String contentType) {
+        this.kind = kind;
+        this.path = path;
+        this.stream = stream;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+    }
+
+    /**
+     * 以文件作为请求体
+     *
+     * @param path 文件路径
+     * @return 请求体数据源
+     */
+    public static BodySource ofPath(Path path) {
+        return ofPath(path, null);
+    }
+
+    /**
+     * 以文件作为请求体
+     *
+     * @param path 文件路径
+     * @param contentType Content-Type，为空时不自动添加
+     * @return 请求体数据源
+     */
+    public static BodySource ofPath(Path path, String contentType) {
+        Objects.requireNonNull(path, "path");
+        return new BodySource(Kind.FILE, path, null, 0, -1, contentType);
+    }
+
+    /**
+     * 以输入流作为请求体（渲染为 --data-binary @-，执行时只能发送一次）
+     *
+     * @param stream 输入流
+     * @param contentType Content-Type，为空时不自动添加
+     * @return 请求体数据源
+     */
+    public static BodySource ofStream(InputStream stream, String contentType) {
+        Objects.requireNonNull(stream, "stream");
+        return new BodySource(Kind.STREAM, null, stream, 0, -1, contentType);
+    }
+
+    /**
+     * 以文件的内存映射区域作为请求体
+     *
+     * @param path 文件路径
+     * @param offset 起始偏移
+     * @param length 区域长度
+     * @param contentType Content-Type，为空时不自动添加
+     * @return 请求体数据源
+     */
+    public static BodySource ofMappedRegion(Path path, long offset, long length, String contentType) {
+        Objects.requireNonNull(path, "path");
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset和length不能为负数: offset=" + offset + ", length=" + length);
+        }
+        return new BodySource(Kind.MAPPED, path, null, offset, length, contentType);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 是否可以重复发送（流只能读取一次）
+     *
+     * @return 是否可重复发送
+     */
+    public boolean isRepeatable() {
+        return kind != Kind.STREAM;
+    }
+
+    /**
+     * 请求体长度，未知时返回-1
+     *
+     * @return 字节数
+     */
+    public long contentLength() {
+        try {
+            switch (kind) {
+                case FILE:
+                    return Files.size(path);
+                case MAPPED:
+                    return length;
+                default:
+                    return -1;
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 渲染为curl的 --data-binary 参数
+     * 内存映射区域只有在覆盖整个文件时才能直接引用文件，否则需要调用方先切出区域文件
+     *
+     * @return 参数字符串（不含前导换行）
+     */
+    String toCurlOption() {
+        switch (kind) {
+            case STREAM:
+                return "--data-binary @-";
+            case MAPPED:
+                if (offset != 0 || length != contentLengthOfFile()) {
+                    throw new IllegalStateException("内存映射区域不是完整文件，无法渲染为@file: " + path
+                            + " [" + offset + ", " + (offset + length) + ")");
+                }
+                return "--data-binary \"@" + CurlUtil.escapeDoubleQuoted(path.toString()) + "\"";
+            default:
+                return "--data-binary \"@" + CurlUtil.escapeDoubleQuoted(path.toString()) + "\"";
+        }
+    }
+
+    /**
+     * 转换为HttpClient的流式请求体
+     *
+     * @return BodyPublisher
+     */
+    HttpRequest.BodyPublisher toBodyPublisher() throws IOException {
+        switch (kind) {
+            case FILE:
+                return HttpRequest.BodyPublishers.ofFile(path);
+            case MAPPED:
+                return HttpRequest.BodyPublishers.fromPublisher(new MappedRegionPublisher(map()), length);
+            default:
+                return HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return openStream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        }
+    }
+
+    /**
+     * 以输入流读取请求体（用于压缩等需要逐字节处理的场景）
+     *
+     * @return 输入流，调用方负责关闭
+     */
+    InputStream openStream() throws IOException {
+        switch (kind) {
+            case FILE:
+                return Files.newInputStream(path);
+            case MAPPED:
+                ByteBuffer region = map();
+                return new InputStream() {
+                    @Override
+                    public int read() {
+                        return region.hasRemaining() ? region.get() & 0xFF : -1;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) {
+                        if (!region.hasRemaining()) {
+                            return -1;
+                        }
+                        int n = Math.min(len, region.remaining());
+                        region.get(b, off, n);
+                        return n;
+                    }
+                };
+            default:
+                if (!consumed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("流式请求体只能发送一次");
+                }
+                return stream;
+        }
+    }
+
+    private MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 映射建立后与通道生命周期无关，关闭通道不影响读取
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+    }
+
+    private long contentLengthOfFile() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 内存映射区域发布者
+     * 按需把映射区域切片（slice不复制数据）交给HttpClient发送
+     */
+    private static final class MappedRegionPublisher implements Flow.Publisher<ByteBuffer> {
+
+        private final ByteBuffer region;
+
+        MappedRegionPublisher(ByteBuffer region) {
+            this.region = region;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            ByteBuffer source = region.duplicate();
+            AtomicLong demand = new AtomicLong();
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            AtomicInteger wip = new AtomicInteger();
+
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    if (n <= 0) {
+                        cancelled.set(true);
+                        subscriber.onError(new IllegalArgumentException("request数量必须大于0: " + n));
+                        return;
+                    }
+                    demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                    drain();
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+
+                private void drain() {
+                    // 同一时刻只允许一个线程发送，其它线程的request只记录需求量
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    int missed = 1;
+                    while (true) {
+                        while (!cancelled.get() && demand.get() > 0 && source.hasRemaining()) {
+                            int size = Math.min(MAPPED_CHUNK_SIZE, source.remaining());
+                            ByteBuffer chunk = source.slice();
+                            chunk.limit(size);
+                            source.position(source.position() + size);
+                            demand.decrementAndGet();
+                            subscriber.onNext(chunk.asReadOnlyBuffer());
+                        }
+                        if (!cancelled.get() && !source.hasRemaining()) {
+                            cancelled.set(true);
+                            subscriber.onComplete();
+                        }
+                        missed = wip.addAndGet(-missed);
+                        if (missed == 0) {
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
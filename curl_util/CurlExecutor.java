@@ -0,0 +1,443 @@
+package curl_util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * 请求执行器
+ * 直接执行CurlRequest描述的请求（与生成的curl命令等价），请求体和响应体均以流的方式传输；
+ * 可以通过 ExecutionPolicy 开启对冲请求、重试和按主机超时，配置 ResponseCache 后GET请求会使用客户端缓存和条件请求
+ *
+ * @author shenmiren21
+ */
+public class CurlExecutor {
+
+    private static final Logger logger = Logger.getLogger(CurlExecutor.class.getName());
+    private static final String LOG_PREFIX = "[CurlExecutor]";
+
+    /** HttpClient不允许手动设置的请求头 */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final ResponseCache cache;
+
+    public CurlExecutor() {
+        this(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build(), Duration.ofSeconds(60));
+    }
+
+    public CurlExecutor(HttpClient httpClient, Duration requestTimeout) {
+        this(httpClient, requestTimeout, null);
+    }
+
+    /**
+     * @param cache 响应缓存，为null时不缓存
+     */
+    public CurlExecutor(HttpClient httpClient, Duration requestTimeout, ResponseCache cache) {
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.cache = cache;
+    }
+
+    /**
+     * 执行请求
+     *
+     * @param request 请求定义
+     * @return 响应（响应体为流，使用完需关闭）
+     */
+    public CurlResponse execute(CurlRequest request) throws IOException, InterruptedException {
+        if (cache != null && cache.isCacheable(request)) {
+            return cache.execute(request, conditionalHeaders -> exchange(request, conditionalHeaders));
+        }
+        return exchange(request, Collections.emptyMap());
+    }
+
+    /**
+     * 发送请求
+     *
+     * @param extraHeaders 追加的请求头（缓存的条件请求头）
+     */
+    private CurlResponse exchange(CurlRequest request, Map<String, String> extraHeaders)
+            throws IOException, InterruptedException {
+        BodyCompression.Stats stats = new BodyCompression.Stats();
+        HttpRequest httpRequest = toHttpRequest(request, stats, requestTimeout, extraHeaders);
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        long elapsed = System.nanoTime() - start;
+        logger.fine(LOG_PREFIX + " " + request + " -> " + response.statusCode());
+        return new CurlResponse(response.statusCode(), response.headers().map(),
+                decodeBody(request, response, stats), elapsed, stats);
+    }
+
+    /**
+     * 按执行策略执行请求（对冲、重试、按主机超时）
+     * 非幂等方法或请求体只能读取一次时只发送一次；返回的耗时包含所有重试和退避等待
+     *
+     * @param request 请求定义
+     * @param policy 执行策略，为null时等同于 execute(request)
+     * @return 最终响应（响应体为流，使用完需关闭）
+     * @throws IOException 所有尝试均失败时抛出最后一次的异常
+     */
+    public CurlResponse execute(CurlRequest request, ExecutionPolicy policy) throws IOException, InterruptedException {
+        if (policy == null) {
+            return execute(request);
+        }
+        if (cache != null && cache.isCacheable(request)) {
+            return cache.execute(request, conditionalHeaders -> exchange(request, policy, conditionalHeaders));
+        }
+        return exchange(request, policy, Collections.emptyMap());
+    }
+
+    /**
+     * 按执行策略发送请求
+     *
+     * @param extraHeaders 追加的请求头（缓存的条件请求头）
+     */
+    private CurlResponse exchange(CurlRequest request, ExecutionPolicy policy, Map<String, String> extraHeaders)
+            throws IOException, InterruptedException {
+        BodyCompression.Stats stats = new BodyCompression.Stats();
+        String host = hostOf(request.getUrl());
+        HttpRequest httpRequest = toHttpRequest(request, stats, policy.timeoutFor(host, requestTimeout), extraHeaders);
+        boolean replayable = ExecutionPolicy.isReplayable(request);
+        int maxAttempts = replayable ? policy.getMaxAttempts() : 1;
+        boolean hedge = replayable && policy.isHedging();
+
+        policy.onRequest();
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<InputStream> response = null;
+            IOException failure = null;
+            try {
+                response = send(httpRequest, host, policy, hedge);
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            boolean retryable = response == null || policy.isRetryableStatus(response.statusCode());
+            if (!retryable || attempt >= maxAttempts || !policy.tryRetry()) {
+                if (failure != null) {
+                    throw failure;
+                }
+                logger.fine(LOG_PREFIX + " " + request + " -> " + response.statusCode() + "（第" + attempt + "次）");
+                return new CurlResponse(response.statusCode(), response.headers().map(),
+                        decodeBody(request, response, stats), System.nanoTime() - start, stats);
+            }
+
+            long backoff = policy.backoffMillis(attempt, response != null ? retryAfterSeconds(response) : -1);
+            logger.info(LOG_PREFIX + " 第" + attempt + "次请求失败（"
+                    + (response != null ? "HTTP " + response.statusCode() : failure.toString())
+                    + "），" + backoff + "ms后重试: " + request);
+            if (response != null) {
+                discard(response);
+            }
+            Thread.sleep(backoff);
+        }
+    }
+
+    /**
+     * 发送一次请求；开启对冲时原请求超过对冲延迟未返回则发出副本，取先返回的不需重试的响应；
+     * 两个请求都失败或返回需重试的状态码时交给重试处理，没有被采用的响应都会被丢弃
+     */
+    private HttpResponse<InputStream> send(HttpRequest httpRequest, String host, ExecutionPolicy policy,
+                                           boolean hedge) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<InputStream>> primary = sendAsync(httpRequest, host, policy);
+        if (!hedge) {
+            return await(primary);
+        }
+        try {
+            return primary.get(policy.hedgeDelay(host).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!policy.tryHedge()) {
+                return await(primary);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            primary.thenAccept(CurlExecutor::discard);
+            throw e;
+        }
+
+        logger.fine(LOG_PREFIX + " 超过对冲延迟，发出对冲请求: " + httpRequest.uri());
+        CompletableFuture<HttpResponse<InputStream>> hedged = sendAsync(httpRequest, host, policy);
+        HedgeRace race = new HedgeRace(policy);
+        primary.whenComplete((response, error) -> race.complete(response, error, false));
+        hedged.whenComplete((response, error) -> race.complete(response, error, true));
+        try {
+            return await(race.winner);
+        } finally {
+            // 被中断时结束竞争，之后完成的响应不会再被采用
+            race.winner.cancel(true);
+            HttpResponse<InputStream> kept = race.winner.isCompletedExceptionally() ? null : race.winner.join();
+            // 取消HttpClient返回的future不会中止请求，未采用的响应需要在到达后关闭
+            primary.thenAccept(response -> {
+                if (response != kept) {
+                    discard(response);
+                }
+            });
+            hedged.thenAccept(response -> {
+                if (response != kept) {
+                    discard(response);
+                }
+            });
+        }
+    }
+
+    /**
+     * 原请求和对冲请求的竞争：先到达的不需重试的响应胜出；
+     * 两个都结束仍没有胜者时，采用需重试的响应（交给重试处理），否则以最后的异常结束
+     */
+    private static final class HedgeRace {
+
+        private final CompletableFuture<HttpResponse<InputStream>> winner = new CompletableFuture<>();
+        private final ExecutionPolicy policy;
+        private final AtomicInteger pending = new AtomicInteger(2);
+        private final AtomicReference<HttpResponse<InputStream>> retryable = new AtomicReference<>();
+
+        HedgeRace(ExecutionPolicy policy) {
+            this.policy = policy;
+        }
+
+        void complete(HttpResponse<InputStream> response, Throwable error, boolean hedged) {
+            if (response != null) {
+                if (!policy.isRetryableStatus(response.statusCode())) {
+                    if (winner.complete(response) && hedged) {
+                        policy.onHedgeWin();
+                    }
+                } else {
+                    retryable.compareAndSet(null, response);
+                }
+            }
+            if (pending.decrementAndGet() == 0 && !winner.isDone()) {
+                HttpResponse<InputStream> fallback = retryable.get();
+                if (fallback != null) {
+                    winner.complete(fallback);
+                } else {
+                    winner.completeExceptionally(error != null ? error : new IOException("对冲请求均失败"));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest httpRequest, String host,
+                                                                  ExecutionPolicy policy) {
+        policy.onAttempt();
+        long sent = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> future =
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        future.thenRun(() -> policy.recordLatency(host, System.nanoTime() - sent));
+        return future;
+    }
+
+    private static HttpResponse<InputStream> await(CompletableFuture<HttpResponse<InputStream>> future)
+            throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * 丢弃不再使用的响应（关闭响应体以释放连接）
+     */
+    private static void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            logger.fine(LOG_PREFIX + " 关闭响应体失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retry-After响应头（只支持秒数格式），没有时返回-1
+     */
+    private static long retryAfterSeconds(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按Content-Encoding边读边解压响应体（与curl --compressed一致），不支持的编码原样返回
+     *
+     * @throws IOException 压缩数据格式错误，无法开始解压时抛出（响应体已被丢弃）
+     */
+    private InputStream decodeBody(CurlRequest request, HttpResponse<InputStream> response,
+                                   BodyCompression.Stats stats) throws IOException {
+        String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        // HEAD、204、304响应没有响应体，不能按压缩格式读取
+        if (contentEncoding == null || request.getMethod() == CurlUtil.HttpMethod.HEAD
+                || response.statusCode() == 204 || response.statusCode() == 304) {
+            return response.body();
+        }
+        if (!BodyCompression.isDecodable(contentEncoding)) {
+            logger.warning(LOG_PREFIX + " 不支持的Content-Encoding，返回原始数据: " + contentEncoding);
+            return response.body();
+        }
+        try {
+            return stats.countResponse(response.body(), contentEncoding);
+        } catch (IOException e) {
+            // 解码器已读取了部分原始数据，剩余的数据既不是完整的原始响应体也无法解压，只能丢弃
+            discard(response);
+            throw new IOException("响应体解压失败（Content-Encoding: " + contentEncoding + ", HTTP "
+                    + response.statusCode() + "）: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 转换为HttpClient请求
+     */
+    HttpRequest toHttpRequest(CurlRequest request) throws IOException {
+        return toHttpRequest(request, null);
+    }
+
+    /**
+     * 转换为HttpClient请求，压缩请求体时把压缩前后的字节数累加到stats
+     */
+    HttpRequest toHttpRequest(CurlRequest request, BodyCompression.Stats stats) throws IOException {
+        return toHttpRequest(request, stats, requestTimeout, Collections.emptyMap());
+    }
+
+    /**
+     * 转换为HttpClient请求，使用指定的请求超时并追加请求头
+     */
+    private HttpRequest toHttpRequest(CurlRequest request, BodyCompression.Stats stats,
+                                      Duration timeout, Map<String, String> extraHeaders) throws IOException {
+        String finalUrl = CurlUtil.buildUrlWithParams(request.getUrl(), request.getParams(), request.getMethod());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(finalUrl));
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+
+        boolean hasContentType = false;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (RESTRICTED_HEADERS.contains(name)) {
+                logger.fine(LOG_PREFIX + " 忽略受限请求头: " + header.getKey());
+                continue;
+            }
+            if ("content-encoding".equals(name) && request.getCompression() != null) {
+                continue;
+            }
+            if ("content-type".equals(name)) {
+                // multipart的boundary必须与请求体一致，不能使用自定义的Content-Type
+                if (request.isMultipart()) {
+                    continue;
+                }
+                hasContentType = true;
+            }
+            builder.header(header.getKey(), header.getValue());
+        }
+        extraHeaders.forEach(builder::header);
+
+        HttpRequest.BodyPublisher publisher;
+        String contentType = null;
+        BodySource body = request.getBody();
+        String jsonBody = request.getJsonBody();
+        if (body != null) {
+            publisher = body.toBodyPublisher();
+            contentType = body.getContentType();
+        } else if (request.isMultipart()) {
+            MultipartBody multipart = new MultipartBody(request.getParts());
+            publisher = multipart.toBodyPublisher();
+            contentType = multipart.contentType();
+        } else if (jsonBody != null && !jsonBody.trim().isEmpty()) {
+            publisher = HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8);
+            contentType = "application/json";
+        } else if (!request.getParams().isEmpty() && request.getMethod() != CurlUtil.HttpMethod.GET) {
+            publisher = HttpRequest.BodyPublishers.ofString(
+                    CurlUtil.encodeParams(request.getParams()), StandardCharsets.UTF_8);
+            contentType = "application/x-www-form-urlencoded";
+        } else {
+            publisher = HttpRequest.BodyPublishers.noBody();
+        }
+        boolean hasBody = body != null || request.isMultipart() || contentType != null;
+
+        if (!hasContentType && contentType != null) {
+            builder.header("Content-Type", contentType);
+        }
+        if (request.isCompressedResponse()
+                && request.getHeaders().keySet().stream().noneMatch("accept-encoding"::equalsIgnoreCase)) {
+            builder.header("Accept-Encoding", BodyCompression.acceptEncoding());
+        }
+        BodyCompression.Coding coding = request.getCompression();
+        if (coding != null && hasBody) {
+            if (request.isMultipart()) {
+                throw new IllegalArgumentException("multipart请求不支持压缩请求体");
+            }
+            // 边读边压缩，长度未知时以chunked方式发送
+            builder.header("Content-Encoding", coding.getToken());
+            publisher = HttpRequest.BodyPublishers.ofInputStream(() -> {
+                try {
+                    return BodyCompression.encodingStream(openBody(request), coding, stats);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return builder.method(request.getMethod().name(), publisher).build();
+    }
+
+    /**
+     * 以输入流读取未压缩的请求体
+     */
+    private static InputStream openBody(CurlRequest request) throws IOException {
+        if (request.getBody() != null) {
+            return request.getBody().openStream();
+        }
+        String text = request.getJsonBody() != null && !request.getJsonBody().trim().isEmpty()
+                ? request.getJsonBody() : CurlUtil.encodeParams(request.getParams());
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
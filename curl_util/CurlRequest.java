@@ -0,0 +1,188 @@
+package curl_util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 请求定义
+ * 描述一次HTTP请求，既可以渲染为curl命令，也可以交给CurlExecutor直接执行
+ *
+ * @author shenmiren21
+ */
+public class CurlRequest {
+
+    private final CurlUtil.HttpMethod method;
+    private final String url;
+    private final Map<String, Object> params = new LinkedHashMap<>();
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String jsonBody;
+    private BodySource body;
+    private final List<MultipartPart> parts = new ArrayList<>();
+    private CurlUtil.OutputMode outputMode = CurlUtil.OutputMode.VERBOSE;
+    private BodyCompression.Coding compression;
+    private Path compressionDirectory = BodyCompression.DEFAULT_DIRECTORY;
+    private boolean compressedResponse;
+
+    public CurlRequest(CurlUtil.HttpMethod method, String url) {
+        this.method = Objects.requireNonNull(method, "method");
+        this.url = Objects.requireNonNull(url, "url");
+    }
+
+    public static CurlRequest get(String url) {
+        return new CurlRequest(CurlUtil.HttpMethod.GET, url);
+    }
+
+    public static CurlRequest post(String url) {
+        return new CurlRequest(CurlUtil.HttpMethod.POST, url);
+    }
+
+    /**
+     * 添加请求参数（GET请求作为查询参数，其他请求作为表单数据）
+     */
+    public CurlRequest param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    public CurlRequest params(Map<String, ?> values) {
+        if (values != null) {
+            params.putAll(values);
+        }
+        return this;
+    }
+
+    public CurlRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public CurlRequest headers(Map<String, String> values) {
+        if (values != null) {
+            headers.putAll(values);
+        }
+        return this;
+    }
+
+    /**
+     * 设置JSON请求体（与body、part互斥）
+     */
+    public CurlRequest jsonBody(String jsonBody) {
+        this.jsonBody = jsonBody;
+        this.body = null;
+        this.parts.clear();
+        return this;
+    }
+
+    /**
+     * 设置流式请求体（与jsonBody、part互斥）
+     */
+    public CurlRequest body(BodySource body) {
+        this.body = body;
+        this.jsonBody = null;
+        this.parts.clear();
+        return this;
+    }
+
+    /**
+     * 添加multipart/form-data表单项（与jsonBody、body互斥）
+     */
+    public CurlRequest part(MultipartPart part) {
+        this.parts.add(part);
+        this.jsonBody = null;
+        this.body = null;
+        return this;
+    }
+
+    /**
+     * 设置生成命令的输出选项（-v / -w），默认 VERBOSE
+     */
+    public CurlRequest outputMode(CurlUtil.OutputMode outputMode) {
+        this.outputMode = Objects.requireNonNull(outputMode, "outputMode");
+        return this;
+    }
+
+    /**
+     * 压缩请求体并添加Content-Encoding（multipart请求不支持）
+     * 生成命令时请求体预先压缩到默认目录下的文件，执行时边读边压缩
+     */
+    public CurlRequest compress(BodyCompression.Coding coding) {
+        return compress(coding, BodyCompression.DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * 压缩请求体并添加Content-Encoding，生成命令时预压缩文件写入指定目录
+     */
+    public CurlRequest compress(BodyCompression.Coding coding, Path directory) {
+        if (coding != null && !coding.isAvailable()) {
+            throw new IllegalArgumentException("当前环境不支持" + coding.getToken() + "压缩");
+        }
+        this.compression = coding;
+        this.compressionDirectory = Objects.requireNonNull(directory, "directory");
+        return this;
+    }
+
+    /**
+     * 请求压缩响应（命令中添加 --compressed，执行时添加Accept-Encoding并自动解压）
+     */
+    public CurlRequest compressedResponse(boolean compressedResponse) {
+        this.compressedResponse = compressedResponse;
+        return this;
+    }
+
+    public CurlUtil.HttpMethod getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getJsonBody() {
+        return jsonBody;
+    }
+
+    public BodySource getBody() {
+        return body;
+    }
+
+    public List<MultipartPart> getParts() {
+        return parts;
+    }
+
+    public CurlUtil.OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    public BodyCompression.Coding getCompression() {
+        return compression;
+    }
+
+    public Path getCompressionDirectory() {
+        return compressionDirectory;
+    }
+
+    public boolean isCompressedResponse() {
+        return compressedResponse;
+    }
+
+    public boolean isMultipart() {
+        return !parts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
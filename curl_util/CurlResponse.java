@@ -0,0 +1,102 @@
+package curl_util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 请求执行结果
+ * 响应体以流的形式提供（已按Content-Encoding解压），调用方读取完毕后需要关闭
+ *
+ * @author shenmiren21
+ */
+public class CurlResponse implements Closeable {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+    private final long elapsedNanos;
+    private final BodyCompression.Stats compressionStats;
+
+    public CurlResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long elapsedNanos) {
+        this(statusCode, headers, body, elapsedNanos, null);
+    }
+
+    public CurlResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long elapsedNanos,
+                        BodyCompression.Stats compressionStats) {
+        this.statusCode = statusCode;
+        Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            copy.putAll(headers);
+        }
+        this.headers = Collections.unmodifiableMap(copy);
+        this.body = body != null ? body : InputStream.nullInputStream();
+        this.elapsedNanos = elapsedNanos;
+        this.compressionStats = compressionStats;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 响应头（名称不区分大小写）
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * 获取第一个同名响应头
+     *
+     * @param name 响应头名称
+     * @return 响应头值，不存在时返回null
+     */
+    public String header(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * 从发出请求到收到响应头的耗时（纳秒）
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 请求体/响应体压缩前后的字节数（响应体统计随读取累加，读完后才是最终值），可能为null
+     */
+    public BodyCompression.Stats getCompressionStats() {
+        return compressionStats;
+    }
+
+    /**
+     * 读取完整响应体为字符串（仅适用于小响应）
+     *
+     * @return 响应体字符串
+     */
+    public String bodyAsString() throws IOException {
+        try (InputStream in = body) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
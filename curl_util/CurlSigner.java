@@ -0,0 +1,335 @@
+package curl_util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 请求签名器
+ * 为 CurlUtil.generateSignedCurl 生成 timestamp / nonce / iv / signature，调用方无需自行实现签名逻辑
+ *
+ * <p>性能设计：</p>
+ * <ul>
+ *     <li>每个线程复用一个已初始化密钥的Mac实例（doFinal后自动重置）</li>
+ *     <li>nonce和iv从线程本地的随机字节批次中切取，每批只调用一次SecureRandom</li>
+ *     <li>规范化字符串使用线程本地的StringBuilder拼接</li>
+ * </ul>
+ * 实例是线程安全的，可以被多个线程共享；生成的命令用 --data-binary 原样发送被签名的请求体
+ *
+ * @author shenmiren21
+ */
+public class CurlSigner {
+
+    /**
+     * 签名规范化方案：把参与签名的字段拼接为待签名字符串
+     */
+    @FunctionalInterface
+    public interface Canonicalizer {
+
+        /**
+         * 拼接待签名字符串
+         *
+         * @param appId 应用ID
+         * @param timestamp 时间戳
+         * @param nonce 随机数
+         * @param body 请求体（可能为空字符串）
+         * @param out 输出缓冲（已清空，可直接追加）
+         */
+        void canonicalize(String appId, long timestamp, String nonce, String body, StringBuilder out);
+    }
+
+    /** 默认方案：appId、timestamp、nonce、body 以换行连接 */
+    public static final Canonicalizer NEWLINE_JOINED = (appId, timestamp, nonce, body, out) ->
+            out.append(appId).append('\n').append(timestamp).append('\n').append(nonce).append('\n').append(body);
+
+    /** 直接拼接：appId + timestamp + nonce + body */
+    public static final Canonicalizer CONCATENATED = (appId, timestamp, nonce, body, out) ->
+            out.append(appId).append(timestamp).append(nonce).append(body);
+
+    /**
+     * 签名编码方式
+     */
+    public enum Encoding {
+        HEX, BASE64
+    }
+
+    /** nonce和iv的字节数 */
+    private static final int NONCE_BYTES = 16;
+    private static final int IV_BYTES = 16;
+    /** 每批随机字节数（可生成128组nonce+iv） */
+    private static final int RANDOM_BATCH_BYTES = (NONCE_BYTES + IV_BYTES) * 128;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String appId;
+    private final byte[] secret;
+    private final String algorithm;
+    private final Canonicalizer canonicalizer;
+    private final Encoding encoding;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<SignerBuffers> buffers = ThreadLocal.withInitial(SignerBuffers::new);
+
+    /**
+     * 使用HmacSHA256和默认规范化方案
+     *
+     * @param appId 应用ID
+     * @param secret 签名密钥
+     */
+    public CurlSigner(String appId, String secret) {
+        this(appId, secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256", NEWLINE_JOINED, Encoding.HEX);
+    }
+
+    /**
+     * @param appId 应用ID
+     * @param secret 签名密钥
+     * @param algorithm Mac算法，如 HmacSHA256、HmacSHA1
+     * @param canonicalizer 规范化方案
+     * @param encoding 签名编码方式
+     */
+    public CurlSigner(String appId, byte[] secret, String algorithm, Canonicalizer canonicalizer, Encoding encoding) {
+        this.appId = Objects.requireNonNull(appId, "appId");
+        this.canonicalizer = Objects.requireNonNull(canonicalizer, "canonicalizer");
+        this.encoding = Objects.requireNonNull(encoding, "encoding");
+        this.secret = secret.clone();
+        this.algorithm = algorithm;
+        SecretKeySpec key = new SecretKeySpec(this.secret, algorithm);
+        // 构造时校验一次算法和密钥，避免在工作线程中才暴露配置错误
+        newMac(key);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    /**
+     * 使用当前时间签名
+     *
+     * @param jsonBody 请求体
+     * @return 签名字段
+     */
+    public SignedHeaders sign(String jsonBody) {
+        return sign(System.currentTimeMillis(), jsonBody);
+    }
+
+    /**
+     * 使用指定时间戳签名
+     *
+     * @param timestamp 时间戳
+     * @param jsonBody 请求体
+     * @return 签名字段
+     */
+    public SignedHeaders sign(long timestamp, String jsonBody) {
+        SignerBuffers local = buffers.get();
+        String nonce = local.nextHex(NONCE_BYTES);
+        String iv = local.nextBase64(IV_BYTES);
+
+        StringBuilder canonical = local.canonical;
+        canonical.setLength(0);
+        canonicalizer.canonicalize(appId, timestamp, nonce, jsonBody != null ? jsonBody : "", canonical);
+
+        byte[] digest = macs.get().doFinal(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        String signature = encoding == Encoding.HEX ? toHex(digest) : Base64.getEncoder().encodeToString(digest);
+        return new SignedHeaders(appId, timestamp, nonce, iv, signature);
+    }
+
+    /**
+     * 签名并生成curl命令
+     *
+     * @param url 请求URL
+     * @param jsonBody 请求体
+     * @return curl命令字符串
+     */
+    public String signedCurl(String url, String jsonBody) {
+        SignedHeaders signed = sign(jsonBody);
+        return CurlUtil.generateSignedCurl(url, signed.getAppId(), signed.getSignature(),
+                signed.getTimestamp(), signed.getNonce(), signed.getIv(), jsonBody);
+    }
+
+    /**
+     * 签名并生成可直接执行的请求定义（请求头与generateSignedCurl一致）
+     *
+     * @param url 请求URL
+     * @param jsonBody 请求体
+     * @return 请求定义
+     */
+    public CurlRequest signedRequest(String url, String jsonBody) {
+        SignedHeaders signed = sign(jsonBody);
+        CurlRequest request = CurlRequest.post(url);
+        signed.applyTo(request);
+        return request.jsonBody(jsonBody);
+    }
+
+    /**
+     * 批量签名并生成curl命令（在当前线程中依次处理）
+     *
+     * @param url 请求URL
+     * @param jsonBodies 请求体列表
+     * @return curl命令数组，顺序与请求体顺序一致
+     */
+    public String[] signedCurls(String url, List<String> jsonBodies) {
+        String[] commands = new String[jsonBodies.size()];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = signedCurl(url, jsonBodies.get(i));
+        }
+        return commands;
+    }
+
+    /**
+     * 批量签名并生成curl命令，在调用方提供的线程池中处理（不占用公共ForkJoinPool）
+     *
+     * @param url 请求URL
+     * @param jsonBodies 请求体列表
+     * @param executor 执行签名的线程池
+     * @return curl命令数组，顺序与请求体顺序一致
+     */
+    public String[] signedCurls(String url, List<String> jsonBodies, Executor executor) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(jsonBodies.size());
+        for (String jsonBody : jsonBodies) {
+            futures.add(CompletableFuture.supplyAsync(() -> signedCurl(url, jsonBody), executor));
+        }
+        String[] commands = new String[futures.size()];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = futures.get(i).join();
+        }
+        return commands;
+    }
+
+    public String getAppId() {
+        return appId;
+    }
+
+    /**
+     * 签名密钥（压测脚本导出时在脚本中重新计算签名）
+     */
+    byte[] secret() {
+        return secret.clone();
+    }
+
+    String algorithm() {
+        return algorithm;
+    }
+
+    Canonicalizer canonicalizer() {
+        return canonicalizer;
+    }
+
+    Encoding encoding() {
+        return encoding;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("初始化签名算法失败: " + key.getAlgorithm(), e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 线程本地缓冲：随机字节批次和规范化字符串缓冲
+     */
+    private static final class SignerBuffers {
+
+        private static final SecureRandom RANDOM = new SecureRandom();
+
+        private final byte[] random = new byte[RANDOM_BATCH_BYTES];
+        private int offset = RANDOM_BATCH_BYTES;
+        private final byte[] slice = new byte[Math.max(NONCE_BYTES, IV_BYTES)];
+        private final StringBuilder canonical = new StringBuilder(256);
+
+        String nextHex(int length) {
+            take(length);
+            char[] chars = new char[length * 2];
+            for (int i = 0; i < length; i++) {
+                chars[i * 2] = HEX[(slice[i] >> 4) & 0x0F];
+                chars[i * 2 + 1] = HEX[slice[i] & 0x0F];
+            }
+            return new String(chars);
+        }
+
+        String nextBase64(int length) {
+            take(length);
+            byte[] bytes = new byte[length];
+            System.arraycopy(slice, 0, bytes, 0, length);
+            return Base64.getEncoder().encodeToString(bytes);
+        }
+
+        private void take(int length) {
+            if (offset + length > random.length) {
+                RANDOM.nextBytes(random);
+                offset = 0;
+            }
+            System.arraycopy(random, offset, slice, 0, length);
+            // 用过的随机字节立即清零，同一字节不会出现在两个请求中
+            Arrays.fill(random, offset, offset + length, (byte) 0);
+            offset += length;
+        }
+    }
+
+    /**
+     * 签名结果
+     */
+    public static final class SignedHeaders {
+
+        private final String appId;
+        private final long timestamp;
+        private final String nonce;
+        private final String iv;
+        private final String signature;
+
+        SignedHeaders(String appId, long timestamp, String nonce, String iv, String signature) {
+            this.appId = appId;
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+            this.iv = iv;
+            this.signature = signature;
+        }
+
+        public String getAppId() {
+            return appId;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getNonce() {
+            return nonce;
+        }
+
+        public String getIv() {
+            return iv;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+
+        /**
+         * 把签名字段作为请求头写入请求定义
+         */
+        public void applyTo(CurlRequest request) {
+            request.header("appId", appId)
+                    .header("signature", signature)
+                    .header("timestamp", String.valueOf(timestamp))
+                    .header("nonce", nonce)
+                    .header("iv", iv);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package curl_util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * curl耗时统计
+ * 生成 -w 输出模板，并把脚本运行输出中的耗时行解析、聚合为各接口的DNS/连接/TLS/首字节/总耗时分位数
+ *
+ * <p>模板输出一行以 {@value #MARKER} 开头、制表符分隔的 key=value 记录，可以直接从脚本的标准输出中筛出</p>
+ *
+ * @author shenmiren21
+ */
+public class CurlTimingReport {
+
+    /** 耗时记录行标记 */
+    public static final String MARKER = "@@curl-timing";
+
+    /** 统计的分位数 */
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private long skippedLines;
+
+    /**
+     * 生成 -w 参数
+     *
+     * @param endpoint 接口标识（如 "GET https://api.example.com/users"），原样写入每条记录
+     * @return -w 参数字符串
+     */
+    public static String writeOutOption(String endpoint) {
+        // -w中的%需要写成%%，制表符和换行会破坏记录格式
+        String label = endpoint.replace("%", "%%").replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        return "-w \"\\n" + MARKER
+                + "\\tendpoint=" + CurlUtil.escapeDoubleQuoted(label)
+                + "\\tstatus=%{http_code}"
+                + "\\tnamelookup=%{time_namelookup}"
+                + "\\tconnect=%{time_connect}"
+                + "\\tappconnect=%{time_appconnect}"
+                + "\\tstarttransfer=%{time_starttransfer}"
+                + "\\ttotal=%{time_total}"
+                + "\\tsize=%{size_download}\\n\"";
+    }
+
+    /**
+     * 解析脚本运行输出文件
+     *
+     * @param output 输出文件（curl的标准输出）
+     * @return 统计报告
+     */
+    public static CurlTimingReport parse(Path output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * 解析脚本运行输出（非耗时记录的行会被忽略）
+     *
+     * @param output 输出内容
+     * @return 统计报告
+     */
+    public static CurlTimingReport parse(Reader output) throws IOException {
+        CurlTimingReport report = new CurlTimingReport();
+        BufferedReader reader = output instanceof BufferedReader ? (BufferedReader) output : new BufferedReader(output);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int start = line.indexOf(MARKER);
+            if (start >= 0) {
+                report.addLine(line.substring(start));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 添加一条耗时记录行
+     *
+     * @param line 以MARKER开头的记录行
+     */
+    public void addLine(String line) {
+        String endpoint = null;
+        int status = 0;
+        double namelookup = 0;
+        double connect = 0;
+        double appconnect = 0;
+        double starttransfer = 0;
+        double total = -1;
+        long size = 0;
+        try {
+            for (String field : line.split("\t")) {
+                int eq = field.indexOf('=');
+                if (eq < 0) {
+                    continue;
+                }
+                String value = field.substring(eq + 1);
+                switch (field.substring(0, eq)) {
+                    case "endpoint": endpoint = value; break;
+                    case "status": status = Integer.parseInt(value); break;
+                    case "namelookup": namelookup = Double.parseDouble(value); break;
+                    case "connect": connect = Double.parseDouble(value); break;
+                    case "appconnect": appconnect = Double.parseDouble(value); break;
+                    case "starttransfer": starttransfer = Double.parseDouble(value); break;
+                    case "total": total = Double.parseDouble(value); break;
+                    case "size": size = Long.parseLong(value); break;
+                    default: break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            skippedLines++;
+            return;
+        }
+        if (endpoint == null || total < 0) {
+            skippedLines++;
+            return;
+        }
+        endpoints.computeIfAbsent(endpoint, EndpointStats::new)
+                .add(status, namelookup, connect, appconnect, starttransfer, total, size);
+    }
+
+    /**
+     * 各接口的统计结果（按首次出现顺序）
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * 格式错误被忽略的记录行数
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * 生成文本报表（单位：毫秒）
+     *
+     * @return 报表字符串
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        for (EndpointStats stats : endpoints.values()) {
+            report.append(stats.getEndpoint())
+                    .append("  请求数=").append(stats.getCount())
+                    .append("  失败数=").append(stats.getErrors())
+                    .append("  平均大小=").append(stats.getCount() == 0 ? 0 : stats.totalBytes / stats.getCount())
+                    .append("B\n");
+            report.append(String.format("  %-8s %10s %10s %10s %10s %10s%n", "阶段", "p50", "p90", "p95", "p99", "max"));
+            for (Phase phase : Phase.values()) {
+                report.append(String.format("  %-8s", phase.label));
+                for (double p : PERCENTILES) {
+                    report.append(String.format(" %10.2f", stats.percentile(phase, p)));
+                }
+                report.append(String.format(" %10.2f%n", stats.percentile(phase, 100)));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * 请求阶段（由curl的累计时间换算为各阶段耗时）
+     */
+    public enum Phase {
+        /** DNS解析 */
+        DNS("dns"),
+        /** TCP连接 */
+        CONNECT("connect"),
+        /** TLS握手（非HTTPS为0） */
+        TLS("tls"),
+        /** 首字节等待（请求发出到收到第一个字节，主要是服务端处理时间） */
+        TTFB("ttfb"),
+        /** 总耗时 */
+        TOTAL("total");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * 单个接口的耗时统计
+     */
+    public static class EndpointStats {
+
+        private final String endpoint;
+        private final double[][] samples = new double[Phase.values().length][];
+        private final boolean[] sorted = new boolean[Phase.values().length];
+        private int count;
+        private int errors;
+        private long totalBytes;
+
+        EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new double[16];
+            }
+        }
+
+        void add(int status, double namelookup, double connect, double appconnect,
+                 double starttransfer, double total, long size) {
+            if (count == samples[0].length) {
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = Arrays.copyOf(samples[i], count * 2);
+                }
+            }
+            // curl的时间是从请求开始累计的秒数，这里换算为各阶段的毫秒耗时
+            double tlsDone = appconnect > 0 ? appconnect : connect;
+            samples[Phase.DNS.ordinal()][count] = namelookup * 1000;
+            samples[Phase.CONNECT.ordinal()][count] = Math.max(0, connect - namelookup) * 1000;
+            samples[Phase.TLS.ordinal()][count] = appconnect > 0 ? Math.max(0, appconnect - connect) * 1000 : 0;
+            samples[Phase.TTFB.ordinal()][count] = Math.max(0, starttransfer - tlsDone) * 1000;
+            samples[Phase.TOTAL.ordinal()][count] = total * 1000;
+            Arrays.fill(sorted, false);
+            count++;
+            totalBytes += size;
+            // 000表示连接失败等未收到响应的情况
+            if (status == 0 || status >= 400) {
+                errors++;
+            }
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * 指定阶段的分位数（毫秒，最近秩法）
+         *
+         * @param phase 阶段
+         * @param percentile 分位数（0-100）
+         * @return 耗时毫秒数，没有样本时返回0
+         */
+        public double percentile(Phase phase, double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = phase.ordinal();
+            if (!sorted[index]) {
+                Arrays.sort(samples[index], 0, count);
+                sorted[index] = true;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return samples[index][Math.min(count - 1, Math.max(0, rank - 1))];
+        }
+    }
+}
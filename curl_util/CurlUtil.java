@@ -1,8 +1,13 @@
 package curl_util;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -21,7 +26,26 @@ public class CurlUtil {
      * HTTP方法枚举
      */
     public enum HttpMethod {
-        GET, POST, PUT, DELETE, PATCH, HEAD, OPTIONS
+        GET, POST, PUT, DELETE, PATCH, HEAD, OPTIONS;
+
+        /**
+         * 是否幂等（RFC 9110），只有幂等请求才会被 ExecutionPolicy 重试或对冲
+         */
+        public boolean isIdempotent() {
+            return this != POST && this != PATCH;
+        }
+    }
+
+    /**
+     * 输出选项
+     */
+    public enum OutputMode {
+        /** 详细输出（-v），默认 */
+        VERBOSE,
+        /** 只输出结构化耗时统计（-w），响应体丢弃 */
+        TIMING,
+        /** 详细输出并追加耗时统计 */
+        VERBOSE_AND_TIMING
     }
 
     /**
@@ -60,6 +84,22 @@ public class CurlUtil {
         return generateCurlCommand(HttpMethod.POST, url, formData, headers, null);
     }
 
+    /**
+     * 生成POST请求的curl命令（multipart/form-data格式，支持文件上传）
+     * 
+     * @param url 请求URL
+     * @param headers 请求头
+     * @param parts 表单项（文本或文件）
+     * @return curl命令字符串
+     */
+    public static String generatePostMultipartCurl(String url, Map<String, String> headers, List<MultipartPart> parts) {
+        CurlRequest request = CurlRequest.post(url).headers(headers);
+        if (parts != null) {
+            parts.forEach(request::part);
+        }
+        return generateCurlCommand(request);
+    }
+
     /**
      * 生成curl命令字符串（您原始的方法，优化版本）
      * 
@@ -115,56 +155,218 @@ public class CurlUtil {
      */
     public static String generateCurlCommand(HttpMethod method, String url, Map<String, Object> params, 
                                            Map<String, String> headers, String jsonBody) {
+        return renderCommand(method, url, params, headers, jsonBody, null, null, OutputMode.VERBOSE, false);
+    }
+
+    /**
+     * 生成curl命令字符串（流式请求体，渲染为 --data-binary @file）
+     * 请求体不会被读入内存，适用于大文件导入等场景
+     * 
+     * @param method HTTP方法
+     * @param url 请求URL
+     * @param headers 请求头
+     * @param body 请求体数据源
+     * @return curl命令字符串
+     */
+    public static String generateCurlCommand(HttpMethod method, String url, Map<String, String> headers, BodySource body) {
+        return renderCommand(method, url, null, headers, null, body, null, OutputMode.VERBOSE, false);
+    }
+
+    /**
+     * 根据请求定义生成curl命令字符串
+     * 
+     * @param request 请求定义
+     * @return curl命令字符串
+     */
+    public static String generateCurlCommand(CurlRequest request) {
+        if (request.getCompression() != null) {
+            return renderCompressedCommand(request);
+        }
+        return renderCommand(request.getMethod(), request.getUrl(), request.getParams(), request.getHeaders(),
+                request.getJsonBody(), request.getBody(), request.getParts(), request.getOutputMode(),
+                request.isCompressedResponse());
+    }
+
+    /**
+     * 根据请求定义生成curl命令字符串，已有缓存响应时带上条件请求头（If-None-Match / If-Modified-Since），
+     * 服务端内容未变化时返回304
+     *
+     * @param request 请求定义
+     * @param cache 响应缓存
+     * @return curl命令字符串
+     */
+    public static String generateCurlCommand(CurlRequest request, ResponseCache cache) {
+        Map<String, String> conditional = cache != null ? cache.conditionalHeaders(request) : Collections.emptyMap();
+        if (conditional.isEmpty() || request.getCompression() != null) {
+            return generateCurlCommand(request);
+        }
+        Map<String, String> headers = new LinkedHashMap<>(request.getHeaders());
+        headers.putAll(conditional);
+        return renderCommand(request.getMethod(), request.getUrl(), request.getParams(), headers,
+                request.getJsonBody(), request.getBody(), request.getParts(), request.getOutputMode(),
+                request.isCompressedResponse());
+    }
+
+    /**
+     * 渲染压缩请求体的curl命令：请求体预先压缩到文件，命令中引用压缩文件并声明Content-Encoding
+     */
+    private static String renderCompressedCommand(CurlRequest request) {
+        BodyCompression.Coding coding = request.getCompression();
+        String contentType;
+        BodyCompression.CompressedBody compressed;
+        try {
+            if (request.isMultipart()) {
+                throw new IllegalArgumentException("multipart请求不支持压缩请求体");
+            }
+            InputStream source;
+            if (request.getBody() != null) {
+                if (!request.getBody().isRepeatable()) {
+                    throw new IllegalArgumentException("流式请求体无法预压缩，请先写入文件");
+                }
+                source = request.getBody().openStream();
+                contentType = request.getBody().getContentType();
+            } else if (request.getJsonBody() != null && !request.getJsonBody().trim().isEmpty()) {
+                source = new ByteArrayInputStream(request.getJsonBody().getBytes(StandardCharsets.UTF_8));
+                contentType = "application/json";
+            } else if (!request.getParams().isEmpty() && request.getMethod() != HttpMethod.GET) {
+                source = new ByteArrayInputStream(encodeParams(request.getParams()).getBytes(StandardCharsets.UTF_8));
+                contentType = "application/x-www-form-urlencoded";
+            } else {
+                // 没有请求体，无需压缩
+                return renderCommand(request.getMethod(), request.getUrl(), request.getParams(), request.getHeaders(),
+                        null, null, null, request.getOutputMode(), request.isCompressedResponse());
+            }
+            try (InputStream in = source) {
+                compressed = BodyCompression.compress(in, coding, request.getCompressionDirectory());
+            }
+        } catch (Exception e) {
+            logger.severe(LOG_PREFIX + " 压缩请求体失败: " + e.getMessage());
+            return "# curl命令生成失败: " + e.getMessage();
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>(request.getHeaders());
+        headers.keySet().removeIf("content-encoding"::equalsIgnoreCase);
+        headers.put("Content-Encoding", coding.getToken());
+        return renderCommand(request.getMethod(), request.getUrl(), request.getParams(), headers,
+                null, compressed.toBodySource(contentType), null, request.getOutputMode(),
+                request.isCompressedResponse());
+    }
+
+    /**
+     * 生成curl命令字符串，无法生成时抛出异常（批量生成时用于区分失败的请求，而不是得到一行注释）
+     *
+     * @throws IllegalArgumentException 请求头、URL或请求体无法渲染为curl参数时抛出
+     */
+    static String generateCurlCommandOrThrow(HttpMethod method, String url, Map<String, Object> params,
+                                             Map<String, String> headers, String jsonBody) {
+        return buildCommand(method, url, params, headers, jsonBody, null, null, OutputMode.VERBOSE, false);
+    }
+
+    /**
+     * 渲染curl命令（各生成方法的统一实现），失败时返回注释行
+     */
+    private static String renderCommand(HttpMethod method, String url, Map<String, Object> params,
+                                        Map<String, String> headers, String jsonBody, BodySource body,
+                                        List<MultipartPart> parts, OutputMode outputMode,
+                                        boolean compressedResponse) {
         try {
-            StringBuilder curl = new StringBuilder();
-            curl.append("curl -X ").append(method.name());
+            return buildCommand(method, url, params, headers, jsonBody, body, parts, outputMode, compressedResponse);
+        } catch (RuntimeException e) {
+            logger.severe(LOG_PREFIX + " 生成curl命令失败: " + e.getMessage());
+            // 失败信息写在注释行中，不能带换行
+            return "# curl命令生成失败: " + String.valueOf(e.getMessage()).replace('\r', ' ').replace('\n', ' ');
+        }
+    }
 
-            // 处理URL和参数
-            String finalUrl = buildUrlWithParams(url, params, method);
-            curl.append(" \"").append(finalUrl).append("\"");
+    private static String buildCommand(HttpMethod method, String url, Map<String, Object> params,
+                                       Map<String, String> headers, String jsonBody, BodySource body,
+                                       List<MultipartPart> parts, OutputMode outputMode,
+                                       boolean compressedResponse) {
+        StringBuilder curl = new StringBuilder(256 + (jsonBody != null ? jsonBody.length() + 16 : 0));
+        curl.append("curl -X ").append(method.name());
 
+        // 处理URL和参数
+        String finalUrl = buildUrlWithParams(url, params, method);
+        curl.append(' ').append(shellQuote(finalUrl));
+
+        if (parts != null && !parts.isEmpty()) {
+            // curl会自动生成multipart的Content-Type和boundary
+            addHeaders(curl, headers, false);
+            addMultipartParts(curl, parts);
+        } else if (body != null) {
+            addContentTypeHeader(curl, headers, body.getContentType());
+            addHeaders(curl, headers, false);
+            addBodySource(curl, body);
+        } else {
             // 添加请求头
             addHeaders(curl, headers, jsonBody != null);
 
             // 添加请求体
             addBody(curl, params, jsonBody, method);
+        }
 
-            // 添加详细输出选项
-            curl.append(" \\\n  -v");
+        // 请求压缩响应，curl按Content-Encoding自动解压
+        if (compressedResponse) {
+            curl.append(" \\\n  --compressed");
+        }
 
-            logger.info(LOG_PREFIX + " 生成curl命令成功");
-            return curl.toString();
+        // 添加输出选项
+        addOutputOptions(curl, outputMode, method, url);
 
-        } catch (Exception e) {
-            logger.severe(LOG_PREFIX + " 生成curl命令失败: " + e.getMessage());
-            return "# curl命令生成失败: " + e.getMessage();
+        logger.fine(LOG_PREFIX + " 生成curl命令成功");
+        return curl.toString();
+    }
+
+    /**
+     * 添加输出选项（-v 详细输出和/或 -w 耗时统计）
+     */
+    private static void addOutputOptions(StringBuilder curl, OutputMode outputMode, HttpMethod method, String url) {
+        if (outputMode == OutputMode.TIMING) {
+            // 只保留耗时统计行，响应体丢弃，便于批量运行后解析
+            curl.append(" \\\n  -sS -o /dev/null");
+        } else {
+            curl.append(" \\\n  -v");
         }
+        if (outputMode != OutputMode.VERBOSE) {
+            curl.append(" \\\n  ").append(CurlTimingReport.writeOutOption(method.name() + " " + stripQuery(url)));
+        }
+    }
+
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
     }
 
     /**
      * 构建带参数的URL
      */
-    private static String buildUrlWithParams(String url, Map<String, Object> params, HttpMethod method) {
+    static String buildUrlWithParams(String url, Map<String, Object> params, HttpMethod method) {
         if (params == null || params.isEmpty() || method != HttpMethod.GET) {
             return url;
         }
 
-        StringBuilder queryParams = new StringBuilder();
+        return url + (url.contains("?") ? "&" : "?") + encodeParams(params);
+    }
+
+    /**
+     * 将参数编码为 application/x-www-form-urlencoded 格式
+     */
+    static String encodeParams(Map<String, Object> params) {
+        StringBuilder encoded = new StringBuilder();
         for (Map.Entry<String, Object> entry : params.entrySet()) {
-            if (queryParams.length() > 0) {
-                queryParams.append("&");
+            if (encoded.length() > 0) {
+                encoded.append("&");
             }
             try {
                 String key = URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8.name());
                 String value = URLEncoder.encode(String.valueOf(entry.getValue()), StandardCharsets.UTF_8.name());
-                queryParams.append(key).append("=").append(value);
+                encoded.append(key).append("=").append(value);
             } catch (UnsupportedEncodingException e) {
                 // UTF-8 should always be supported
-                queryParams.append(entry.getKey()).append("=").append(entry.getValue());
+                encoded.append(entry.getKey()).append("=").append(entry.getValue());
             }
         }
-
-        return url + (url.contains("?") ? "&" : "?") + queryParams.toString();
+        return encoded.toString();
     }
 
     /**
@@ -173,15 +375,50 @@ public class CurlUtil {
     private static void addHeaders(StringBuilder curl, Map<String, String> headers, boolean hasJsonBody) {
         // 如果有JSON请求体，自动添加Content-Type
         if (hasJsonBody) {
-            curl.append(" \\\n  -H \"Content-Type: application/json\"");
+            addContentTypeHeader(curl, headers, "application/json");
         }
 
         // 添加自定义请求头
         if (headers != null && !headers.isEmpty()) {
             for (Map.Entry<String, String> header : headers.entrySet()) {
-                curl.append(" \\\n  -H \"").append(header.getKey()).append(": ").append(header.getValue()).append("\"");
+                curl.append(" \\\n  -H ").append(shellQuote(headerLine(header.getKey(), header.getValue())));
+            }
+        }
+    }
+
+    /**
+     * 添加数据源声明的Content-Type（自定义请求头中已包含时不重复添加）
+     */
+    private static void addContentTypeHeader(StringBuilder curl, Map<String, String> headers, String contentType) {
+        if (contentType == null) {
+            return;
+        }
+        if (headers != null) {
+            for (String name : headers.keySet()) {
+                if ("content-type".equalsIgnoreCase(name)) {
+                    return;
+                }
             }
         }
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("Content-Type", contentType)));
+    }
+
+    /**
+     * 请求头行（Name: value）；请求头名必须是HTTP token，值不能包含换行，否则无法作为单个请求头发送
+     */
+    private static String headerLine(String name, String value) {
+        if (name == null || name.isEmpty() || !name.chars().allMatch(CurlUtil::isTokenChar)) {
+            throw new IllegalArgumentException("无效的请求头名称");
+        }
+        String text = value == null ? "" : value;
+        if (text.indexOf('\r') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("请求头" + name + "的值包含换行或NUL字符");
+        }
+        return name + ": " + text;
+    }
+
+    private static boolean isTokenChar(int c) {
+        return c > 0x20 && c < 0x7f && "\"(),/:;<=>?@[\\]{}".indexOf(c) < 0;
     }
 
     /**
@@ -189,25 +426,87 @@ public class CurlUtil {
      */
     private static void addBody(StringBuilder curl, Map<String, Object> params, String jsonBody, HttpMethod method) {
         if (jsonBody != null && !jsonBody.trim().isEmpty()) {
-            // JSON请求体
-            String escapedJson = jsonBody.replace("\"", "\\\"");
-            curl.append(" \\\n  -d \"").append(escapedJson).append("\"");
+            // JSON请求体：--data-binary 原样发送（-d 会去掉换行）
+            curl.append(" \\\n  --data-binary ").append(shellQuote(jsonBody));
         } else if (params != null && !params.isEmpty() && method != HttpMethod.GET) {
             // 表单数据
-            StringBuilder formData = new StringBuilder();
-            for (Map.Entry<String, Object> entry : params.entrySet()) {
-                if (formData.length() > 0) {
-                    formData.append("&");
-                }
-                try {
-                    String key = URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8.name());
-                    String value = URLEncoder.encode(String.valueOf(entry.getValue()), StandardCharsets.UTF_8.name());
-                    formData.append(key).append("=").append(value);
-                } catch (UnsupportedEncodingException e) {
-                    formData.append(entry.getKey()).append("=").append(entry.getValue());
-                }
+            curl.append(" \\\n  --data-binary ").append(shellQuote(encodeParams(params)));
+        }
+    }
+
+    /**
+     * 添加multipart表单项（-F）
+     */
+    private static void addMultipartParts(StringBuilder curl, List<MultipartPart> parts) {
+        for (MultipartPart part : parts) {
+            curl.append(" \\\n  ").append(part.toCurlOption());
+        }
+    }
+
+    /**
+     * 把文本渲染为单个shell参数，内容原样传递给curl
+     * 使用单引号包裹（' 写成 '\''）；包含换行等控制字符时使用bash的 $'...' 转义，保证每个参数在一行内
+     *
+     * @param text 文本（不能包含NUL字符）
+     * @return 带引号的参数
+     */
+    static String shellQuote(String text) {
+        boolean control = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 0) {
+                throw new IllegalArgumentException("命令行参数不能包含NUL字符");
             }
-            curl.append(" \\\n  -d \"").append(formData.toString()).append("\"");
+            if (c < 0x20 || c == 0x7f) {
+                control = true;
+            }
+        }
+        if (!control) {
+            return "'" + text.replace("'", "'\\''") + "'";
+        }
+        StringBuilder quoted = new StringBuilder(text.length() + 16).append("$'");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\'':
+                    quoted.append("\\'");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        quoted.append(String.format("\\x%02x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('\'').toString();
+    }
+
+    /**
+     * 转义双引号内的shell特殊字符
+     */
+    static String escapeDoubleQuoted(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("$", "\\$").replace("`", "\\`");
+    }
+
+    /**
+     * 添加流式请求体（--data-binary @file）
+     */
+    private static void addBodySource(StringBuilder curl, BodySource body) {
+        if (body != null) {
+            curl.append(" \\\n  ").append(body.toCurlOption());
         }
     }
 
@@ -225,27 +524,67 @@ public class CurlUtil {
      */
     public static String generateSignedCurl(String url, String appId, String signature, 
                                           Long timestamp, String nonce, String iv, String jsonBody) {
-        StringBuilder curl = new StringBuilder();
-        curl.append("curl -X POST \"").append(url).append("\"");
-        
-        // 添加签名相关请求头
-        curl.append(" \\\n  -H \"Content-Type: application/json\"");
-        curl.append(" \\\n  -H \"appId: ").append(appId).append("\"");
-        curl.append(" \\\n  -H \"signature: ").append(signature).append("\"");
-        curl.append(" \\\n  -H \"timestamp: ").append(timestamp).append("\"");
-        curl.append(" \\\n  -H \"nonce: ").append(nonce).append("\"");
-        curl.append(" \\\n  -H \"iv: ").append(iv).append("\"");
+        StringBuilder curl = new StringBuilder(256 + (jsonBody != null ? jsonBody.length() + 16 : 0));
+        appendSignedRequestLine(curl, url, appId, signature, timestamp, nonce, iv);
         
-        // 添加请求体
-        if (jsonBody != null && !jsonBody.trim().isEmpty()) {
-            String escapedJson = jsonBody.replace("\"", "\\\"");
-            curl.append(" \\\n  -d \"").append(escapedJson).append("\"");
+        // 添加请求体：签名覆盖请求体的原始字节，必须用 --data-binary 原样发送（-d 会去掉换行）
+        if (jsonBody != null && !jsonBody.isEmpty()) {
+            curl.append(" \\\n  --data-binary ").append(shellQuote(jsonBody));
         }
         
         curl.append(" \\\n  -v");
         return curl.toString();
     }
 
+    /**
+     * 生成带签名的curl命令（由签名器生成timestamp、nonce、iv和signature）
+     * 
+     * @param url 请求URL
+     * @param signer 签名器
+     * @param jsonBody JSON请求体
+     * @return curl命令字符串
+     */
+    public static String generateSignedCurl(String url, CurlSigner signer, String jsonBody) {
+        return signer.signedCurl(url, jsonBody);
+    }
+
+    /**
+     * 生成带签名的curl命令（流式请求体，渲染为 --data-binary @file）
+     * 
+     * @param url 请求URL
+     * @param appId 应用ID
+     * @param signature 签名
+     * @param timestamp 时间戳
+     * @param nonce 随机数
+     * @param iv 初始化向量
+     * @param body 请求体数据源
+     * @return curl命令字符串
+     */
+    public static String generateSignedBinaryCurl(String url, String appId, String signature,
+                                          Long timestamp, String nonce, String iv, BodySource body) {
+        StringBuilder curl = new StringBuilder();
+        appendSignedRequestLine(curl, url, appId, signature, timestamp, nonce, iv);
+        addBodySource(curl, body);
+        curl.append(" \\\n  -v");
+        return curl.toString();
+    }
+
+    /**
+     * 添加签名请求的请求行和签名相关请求头
+     */
+    private static void appendSignedRequestLine(StringBuilder curl, String url, String appId, String signature,
+                                                Long timestamp, String nonce, String iv) {
+        curl.append("curl -X POST ").append(shellQuote(url));
+        
+        // 添加签名相关请求头
+        curl.append(" \\\n  -H 'Content-Type: application/json'");
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("appId", appId)));
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("signature", signature)));
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("timestamp", String.valueOf(timestamp))));
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("nonce", nonce)));
+        curl.append(" \\\n  -H ").append(shellQuote(headerLine("iv", iv)));
+    }
+
     /**
      * 生成简单的GET请求curl命令
      * 
@@ -324,26 +663,13 @@ public class CurlUtil {
 
     /**
      * 安全地添加请求头（避免敏感信息泄露）
+     * 键名包含 authorization / token / password / secret（不区分大小写）的请求头会被掩码，
+     * 需要同时处理查询参数、请求体或脚本文件时使用 RedactionEngine
      * 
      * @param headers 原始请求头
      * @return 安全的请求头（敏感信息被掩码）
      */
     public static Map<String, String> maskSensitiveHeaders(Map<String, String> headers) {
-        if (headers == null) {
-            return null;
-        }
-        
-        Map<String, String> safeHeaders = new java.util.HashMap<>(headers);
-        
-        // 掩码敏感信息
-        for (Map.Entry<String, String> entry : safeHeaders.entrySet()) {
-            String key = entry.getKey().toLowerCase();
-            if (key.contains("authorization") || key.contains("token") || 
-                key.contains("password") || key.contains("secret")) {
-                safeHeaders.put(entry.getKey(), "***");
-            }
-        }
-        
-        return safeHeaders;
+        return RedactionEngine.keysOnly().redactHeaders(headers);
     }
 }
@@ -198,4 +198,104 @@ public class CurlUtilExample {
         String patchCurl = CurlUtil.generateCurlCommand(CurlUtil.HttpMethod.PATCH, url + "/123", null, headers, "{\"name\":\"新名称\"}");
         CurlUtil.printFormattedCurl("PATCH请求", patchCurl);
     }
-}
\ No newline at end of file
+
+    /**
+     * 大请求体示例（--data-binary @file，请求体不读入内存）
+     */
+    public static void streamingBodyExample() {
+        System.out.println("=== 大请求体示例 ===\n");
+
+        java.nio.file.Path payload = java.nio.file.Paths.get("/data/import/users.json");
+
+        String curl = CurlUtil.generateCurlCommand(CurlUtil.HttpMethod.POST, "https://api.example.com/import",
+                null, BodySource.ofPath(payload, "application/json"));
+        CurlUtil.printFormattedCurl("文件请求体", curl);
+
+        // 直接执行时同样以流的方式发送
+        // try (CurlResponse response = new CurlExecutor().execute(
+        //         CurlRequest.post("https://api.example.com/import").body(BodySource.ofPath(payload, "application/json")))) {
+        //     System.out.println(response.getStatusCode());
+        // }
+    }
+
+    /**
+     * 文件上传示例（multipart/form-data）
+     */
+    public static void multipartExample() {
+        System.out.println("=== 文件上传示例 ===\n");
+
+        java.util.List<MultipartPart> parts = java.util.Arrays.asList(
+                MultipartPart.text("description", "头像"),
+                MultipartPart.text("meta", "{\"userId\":1001}", "application/json"),
+                MultipartPart.file("file", java.nio.file.Paths.get("/data/avatar.png"), "image/png"));
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", "Bearer your-token");
+
+        String curl = CurlUtil.generatePostMultipartCurl("https://api.example.com/upload", headers, parts);
+        CurlUtil.printFormattedCurl("文件上传", curl);
+    }
+
+    /**
+     * 压缩请求体/响应体示例
+     */
+    public static void compressionExample() {
+        System.out.println("=== 压缩请求示例 ===\n");
+
+        CurlRequest request = CurlRequest.post("https://api.example.com/batch")
+                .header("Authorization", "Bearer your-token")
+                .jsonBody("{\"items\":[{\"id\":1},{\"id\":2}]}")
+                .compress(BodyCompression.Coding.GZIP)
+                .compressedResponse(true);
+
+        CurlUtil.printFormattedCurl("gzip压缩请求", CurlUtil.generateCurlCommand(request));
+    }
+
+    /**
+     * 对冲请求与重试示例
+     */
+    public static void executionPolicyExample() {
+        System.out.println("=== 对冲请求与重试示例 ===\n");
+
+        // 多个线程共享同一个策略：重试和对冲共用重试预算，统计值为所有请求的累计
+        ExecutionPolicy policy = new ExecutionPolicy()
+                .hedge(java.time.Duration.ofMillis(200))
+                .retry(3, java.time.Duration.ofMillis(100), java.time.Duration.ofSeconds(2))
+                .retryBudget(0.1, 5)
+                .hostTimeout("slow.example.com", java.time.Duration.ofSeconds(5));
+
+        CurlRequest request = CurlRequest.get("https://api.example.com/users").param("page", 1);
+        CurlUtil.printFormattedCurl("对冲请求", CurlUtil.generateCurlCommand(request));
+
+        // try (CurlResponse response = new CurlExecutor().execute(request, policy)) {
+        //     System.out.println(response.getStatusCode());
+        // }
+        System.out.println(policy);
+    }
+
+    /**
+     * 响应缓存与条件请求示例
+     */
+    public static void responseCacheExample() throws java.io.IOException {
+        System.out.println("=== 响应缓存示例 ===\n");
+
+        // 内存层64MB，淘汰的条目写入磁盘目录（最多512MB），重启后仍可复用
+        ResponseCache cache = new ResponseCache(64L * 1024 * 1024)
+                .diskTier(java.nio.file.Paths.get(System.getProperty("java.io.tmpdir"), "curl-cache"),
+                        512L * 1024 * 1024);
+        CurlExecutor executor = new CurlExecutor(java.net.http.HttpClient.newHttpClient(),
+                java.time.Duration.ofSeconds(30), cache);
+
+        CurlRequest request = CurlRequest.get("https://api.example.com/config")
+                .header("Authorization", "Bearer your-token");
+
+        // 未过期时直接返回缓存，过期后带 If-None-Match / If-Modified-Since 发起条件请求，304时复用缓存
+        // try (CurlResponse response = executor.execute(request)) {
+        //     System.out.println(response.bodyAsString());
+        // }
+
+        // 生成的curl命令同样带上条件请求头
+        CurlUtil.printFormattedCurl("条件请求", CurlUtil.generateCurlCommand(request, cache));
+        System.out.println(cache);
+    }
+}
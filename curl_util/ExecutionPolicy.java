@@ -0,0 +1,357 @@
+package curl_util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求执行策略
+ * 配合 CurlExecutor.execute(request, policy) 使用：对冲请求（按主机最近延迟的分位数等待后发出副本，取先返回的响应）、
+ * 带抖动退避的重试、全局重试预算和按主机的超时时间，并统计实际发出的对冲和重试次数
+ *
+ * <p>只有幂等方法（见 HttpMethod.isIdempotent）且请求体可重复发送时才会对冲或重试；对冲和重试共用重试预算，
+ * 预算耗尽时直接返回当前结果，避免上游故障时重试放大流量。同一个策略实例可以在多个线程和执行器之间共享</p>
+ *
+ * @author shenmiren21
+ */
+public class ExecutionPolicy {
+
+    /** 默认重试的状态码 */
+    private static final Set<Integer> DEFAULT_RETRY_STATUS = Set.of(429, 502, 503, 504);
+
+    /** 计算延迟分位数的最少样本数，样本不足时使用初始对冲延迟 */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    /** 每台主机保留的最近延迟样本数 */
+    private static final int LATENCY_WINDOW = 128;
+
+    /** 配置可能在其他线程执行请求时修改，使用volatile保证可见性 */
+    private volatile boolean hedging;
+    private volatile double hedgePercentile = 95;
+    private volatile Duration initialHedgeDelay = Duration.ofMillis(100);
+
+    private volatile int maxAttempts = 1;
+    private volatile Duration baseBackoff = Duration.ofMillis(50);
+    private volatile Duration maxBackoff = Duration.ofSeconds(2);
+    private volatile Set<Integer> retryStatus = DEFAULT_RETRY_STATUS;
+
+    private final RetryBudget budget = new RetryBudget();
+    private final Map<String, Duration> hostTimeouts = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    /**
+     * 开启对冲请求，延迟取该主机最近响应耗时的p95
+     *
+     * @param initialDelay 样本不足时使用的对冲延迟
+     */
+    public ExecutionPolicy hedge(Duration initialDelay) {
+        return hedge(95, initialDelay);
+    }
+
+    /**
+     * 开启对冲请求
+     *
+     * @param percentile 对冲延迟使用的延迟分位数（0-100）
+     * @param initialDelay 样本不足时使用的对冲延迟
+     */
+    public ExecutionPolicy hedge(double percentile, Duration initialDelay) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("分位数必须在(0, 100]之间: " + percentile);
+        }
+        this.hedgePercentile = percentile;
+        this.initialHedgeDelay = Objects.requireNonNull(initialDelay, "initialDelay");
+        this.hedging = true;
+        return this;
+    }
+
+    /**
+     * 开启重试，第n次重试前等待 [0, min(maxBackoff, baseBackoff * 2^(n-1))) 之间的随机时长（full jitter），
+     * 响应带Retry-After时至少等待其指定的秒数（不超过maxBackoff）
+     *
+     * @param maxAttempts 最多尝试次数（含第一次）
+     * @param baseBackoff 基础退避时间
+     * @param maxBackoff 最长退避时间
+     */
+    public ExecutionPolicy retry(int maxAttempts, Duration baseBackoff, Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("尝试次数至少为1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Objects.requireNonNull(baseBackoff, "baseBackoff");
+        this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff");
+        return this;
+    }
+
+    /**
+     * 需要重试的响应状态码，默认 429、502、503、504；连接失败和超时总是可以重试
+     */
+    public ExecutionPolicy retryOnStatus(int... statusCodes) {
+        Set<Integer> codes = new HashSet<>();
+        for (int code : statusCodes) {
+            codes.add(code);
+        }
+        this.retryStatus = Set.copyOf(codes);
+        return this;
+    }
+
+    /**
+     * 设置重试预算：每个请求存入ratio个重试额度，每次重试或对冲消耗1个；
+     * 另外每秒补充minPerSecond个保底额度，保证低流量时也能重试。额度最多积累10秒的保底额度（至少10个）
+     *
+     * @param ratio 重试占请求数的比例上限，默认0.2
+     * @param minPerSecond 每秒保底重试次数，默认10
+     */
+    public ExecutionPolicy retryBudget(double ratio, int minPerSecond) {
+        if (ratio < 0 || minPerSecond < 0) {
+            throw new IllegalArgumentException("重试预算不能为负数");
+        }
+        budget.configure(ratio, minPerSecond);
+        return this;
+    }
+
+    /**
+     * 设置主机的请求超时（覆盖执行器的默认超时）
+     *
+     * @param host 主机名（不含端口）
+     * @param timeout 超时时间
+     */
+    public ExecutionPolicy hostTimeout(String host, Duration timeout) {
+        hostTimeouts.put(host.toLowerCase(Locale.ROOT), Objects.requireNonNull(timeout, "timeout"));
+        return this;
+    }
+
+    /**
+     * 主机的请求超时，未设置时返回默认值
+     */
+    Duration timeoutFor(String host, Duration defaultTimeout) {
+        if (host == null) {
+            return defaultTimeout;
+        }
+        return hostTimeouts.getOrDefault(host.toLowerCase(Locale.ROOT), defaultTimeout);
+    }
+
+    /**
+     * 请求是否可以重试或对冲：方法幂等且请求体可以重复发送
+     */
+    static boolean isReplayable(CurlRequest request) {
+        return request.getMethod().isIdempotent()
+                && (request.getBody() == null || request.getBody().isRepeatable());
+    }
+
+    boolean isHedging() {
+        return hedging;
+    }
+
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    boolean isRetryableStatus(int statusCode) {
+        return retryStatus.contains(statusCode);
+    }
+
+    /**
+     * 主机当前的对冲延迟
+     */
+    Duration hedgeDelay(String host) {
+        LatencyWindow window = host != null ? latencies.get(host.toLowerCase(Locale.ROOT)) : null;
+        long nanos = window != null ? window.percentile(hedgePercentile) : -1;
+        return nanos >= 0 ? Duration.ofNanos(nanos) : initialHedgeDelay;
+    }
+
+    /**
+     * 记录收到响应头的耗时
+     */
+    void recordLatency(String host, long nanos) {
+        if (host != null) {
+            latencies.computeIfAbsent(host.toLowerCase(Locale.ROOT), key -> new LatencyWindow()).add(nanos);
+        }
+    }
+
+    /**
+     * 重试前的退避时间
+     *
+     * @param retry 重试序号（从1开始）
+     * @param retryAfterSeconds 响应Retry-After指定的秒数，没有时为-1
+     */
+    long backoffMillis(int retry, long retryAfterSeconds) {
+        long cap = maxBackoff.toMillis();
+        long exponential = baseBackoff.toMillis() << Math.min(retry - 1, 30);
+        long bound = Math.min(cap, exponential < 0 ? cap : exponential);
+        long jittered = bound > 0 ? ThreadLocalRandom.current().nextLong(bound) : 0;
+        if (retryAfterSeconds > 0) {
+            jittered = Math.max(jittered, Math.min(cap, retryAfterSeconds * 1000));
+        }
+        return jittered;
+    }
+
+    void onRequest() {
+        requests.incrementAndGet();
+        budget.deposit();
+    }
+
+    void onAttempt() {
+        attempts.incrementAndGet();
+    }
+
+    /**
+     * 申请一次重试额度
+     */
+    boolean tryRetry() {
+        if (budget.tryWithdraw()) {
+            retries.incrementAndGet();
+            return true;
+        }
+        budgetExhausted.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 申请一次对冲额度
+     */
+    boolean tryHedge() {
+        if (budget.tryWithdraw()) {
+            hedges.incrementAndGet();
+            return true;
+        }
+        budgetExhausted.incrementAndGet();
+        return false;
+    }
+
+    void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * 执行的请求数（不含重试和对冲）
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * 实际发出的HTTP请求数（含重试和对冲）
+     */
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    /**
+     * 发出的重试次数
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * 发出的对冲请求数
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * 因重试预算耗尽而放弃重试或对冲的次数
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionPolicy{requests=" + requests + ", attempts=" + attempts + ", retries=" + retries
+                + ", hedges=" + hedges + ", hedgeWins=" + hedgeWins + ", budgetExhausted=" + budgetExhausted + "}";
+    }
+
+    /**
+     * 重试预算（令牌桶，初始为满额）
+     */
+    private static final class RetryBudget {
+
+        private double ratio = 0.2;
+        private int minPerSecond = 10;
+        private double tokens = capacity();
+        private long lastRefill = System.nanoTime();
+
+        synchronized void configure(double ratio, int minPerSecond) {
+            this.ratio = ratio;
+            this.minPerSecond = minPerSecond;
+            this.tokens = Math.min(tokens, capacity());
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(capacity(), tokens + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity(), tokens + (now - lastRefill) / 1e9 * minPerSecond);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        private double capacity() {
+            return Math.max(10, minPerSecond * 10.0);
+        }
+    }
+
+    /**
+     * 主机最近的响应耗时，分位数每新增若干样本重新计算一次
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private int count;
+        private int next;
+        private double cachedPercentile = -1;
+        private long cachedValue = -1;
+        private int sinceComputed;
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            sinceComputed++;
+        }
+
+        synchronized long percentile(double percentile) {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            if (percentile != cachedPercentile || sinceComputed >= 16) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * count) - 1;
+                cachedValue = sorted[Math.max(0, Math.min(count - 1, index))];
+                cachedPercentile = percentile;
+                sinceComputed = 0;
+            }
+            return cachedValue;
+        }
+    }
+}
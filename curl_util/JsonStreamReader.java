@@ -0,0 +1,298 @@
+package curl_util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 轻量级流式JSON读取器
+ * 按需逐个读取对象成员和数组元素，不需要的值直接跳过而不构建对象，用于读取超大的抓包文件
+ * 读取的值转换为 Map / List / String / Number / Boolean / null
+ *
+ * @author shenmiren21
+ */
+final class JsonStreamReader implements Closeable {
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private long consumed;
+
+    JsonStreamReader(Reader reader) {
+        this(reader, 64 * 1024);
+    }
+
+    JsonStreamReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * 是否已到达输入末尾（忽略空白）
+     */
+    boolean isEnd() throws IOException {
+        return peekNonWhitespace() < 0;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        skipSeparator();
+        expect('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        skipSeparator();
+        expect(']');
+    }
+
+    /**
+     * 当前对象或数组是否还有下一个成员（会跳过成员之间的逗号）
+     */
+    boolean hasNext() throws IOException {
+        int c = skipSeparator();
+        return c >= 0 && c != '}' && c != ']';
+    }
+
+    /**
+     * 读取对象成员名称（包含后面的冒号）
+     */
+    String nextName() throws IOException {
+        skipSeparator();
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * 读取一个完整的值
+     */
+    Object readValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '{':
+                beginObject();
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (hasNext()) {
+                    String name = nextName();
+                    map.put(name, readValue());
+                }
+                endObject();
+                return map;
+            case '[':
+                beginArray();
+                List<Object> list = new ArrayList<>();
+                while (hasNext()) {
+                    list.add(readValue());
+                }
+                endArray();
+                return list;
+            case '"':
+                return readString();
+            case -1:
+                throw syntaxError("意外的输入结束");
+            default:
+                return readLiteral();
+        }
+    }
+
+    /**
+     * 跳过一个完整的值，不构建任何对象
+     */
+    void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            skipString();
+            return;
+        }
+        if (c != '{' && c != '[') {
+            readLiteral();
+            return;
+        }
+        int depth = 0;
+        do {
+            c = read();
+            if (c < 0) {
+                throw syntaxError("意外的输入结束");
+            }
+            if (c == '"') {
+                position--;
+                consumed--;
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * 已读取的字符数（用于进度统计）
+     */
+    long getConsumedChars() {
+        return consumed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw syntaxError("字符串未结束");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int h = read();
+                        if (h < 0) {
+                            throw syntaxError("unicode转义未结束");
+                        }
+                        int digit = Character.digit(h, 16);
+                        if (digit < 0) {
+                            throw syntaxError("非法的unicode转义字符: " + (char) h);
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    value.append((char) code);
+                    break;
+                case -1:
+                    throw syntaxError("字符串未结束");
+                default:
+                    value.append((char) escaped);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw syntaxError("字符串未结束");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private Object readLiteral() throws IOException {
+        peekNonWhitespace();
+        StringBuilder literal = new StringBuilder();
+        while (true) {
+            int c = peek();
+            if (c < 0 || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            literal.append((char) read());
+        }
+        String text = literal.toString();
+        switch (text) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            default:
+                try {
+                    if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                        return Double.valueOf(text);
+                    }
+                    return Long.valueOf(text);
+                } catch (NumberFormatException e) {
+                    throw syntaxError("无法识别的值: " + text);
+                }
+        }
+    }
+
+    private int skipSeparator() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == ',') {
+            read();
+            c = peekNonWhitespace();
+        }
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if (c != expected) {
+            throw syntaxError("期望 '" + expected + "'，实际为 " + (c < 0 ? "输入结束" : "'" + (char) c + "'"));
+        }
+        read();
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        int c = peek();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        consumed++;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON格式错误（第" + consumed + "个字符附近）: " + message);
+    }
+}
@@ -0,0 +1,1028 @@
+package curl_util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 压测场景导出工具
+ * 把调试用的请求定义（CurlRequest，包括签名请求）渲染为 wrk Lua 脚本、k6 脚本或 JMeter 测试计划，
+ * 保证压测与调试使用完全相同的请求
+ *
+ * <p>请求头、JSON/表单请求体和文件请求体会原样带入，设置了请求体压缩的请求发送预压缩的文件并声明Content-Encoding。
+ * 通过 add(name, request, weight, signer) 添加的签名请求在每次迭代时重新生成timestamp、nonce、iv和signature
+ * （k6使用 k6/crypto 的hmac，wrk使用脚本内置的纯Lua HMAC-SHA256，JMeter使用JSR223 Groovy前置处理器），
+ * 可以通过服务端的时间窗口和nonce唯一性校验；导出的脚本中包含签名密钥，只应在压测环境中使用</p>
+ *
+ * @author shenmiren21
+ */
+public class LoadTestExporter {
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        WRK("lua"),
+        K6("js"),
+        JMETER("jmx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /** CurlSigner.SignedHeaders 写入的请求头（小写） */
+    private static final List<String> SIGNATURE_HEADERS = Arrays.asList("appid", "signature", "timestamp", "nonce", "iv");
+
+    /** 纯Lua的HMAC-SHA256（依赖LuaJIT的bit模块）及十六进制、Base64、随机字节工具函数 */
+    private static final String LUA_HMAC_SHA256 = String.join("\n",
+            "local bit = require(\"bit\")",
+            "local band, bor, bxor, bnot = bit.band, bit.bor, bit.bxor, bit.bnot",
+            "local rshift, lshift, ror, tobit = bit.rshift, bit.lshift, bit.ror, bit.tobit",
+            "local K = {",
+            "  0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,",
+            "  0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,",
+            "  0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,",
+            "  0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,",
+            "  0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,",
+            "  0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,",
+            "  0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,",
+            "  0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2,",
+            "}",
+            "",
+            "local function sha256(msg)",
+            "  local h = { 0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19 }",
+            "  local bits = #msg * 8",
+            "  local high, low = math.floor(bits / 0x100000000), bits % 0x100000000",
+            "  msg = msg .. \"\\128\" .. string.rep(\"\\0\", (55 - #msg) % 64)",
+            "    .. string.char(band(rshift(high, 24), 255), band(rshift(high, 16), 255), band(rshift(high, 8), 255), band(high, 255))",
+            "    .. string.char(band(rshift(low, 24), 255), band(rshift(low, 16), 255), band(rshift(low, 8), 255), band(low, 255))",
+            "  local w = {}",
+            "  for chunk = 1, #msg, 64 do",
+            "    for i = 0, 15 do",
+            "      local b1, b2, b3, b4 = msg:byte(chunk + i * 4, chunk + i * 4 + 3)",
+            "      w[i] = bor(lshift(b1, 24), lshift(b2, 16), lshift(b3, 8), b4)",
+            "    end",
+            "    for i = 16, 63 do",
+            "      local s0 = bxor(ror(w[i - 15], 7), ror(w[i - 15], 18), rshift(w[i - 15], 3))",
+            "      local s1 = bxor(ror(w[i - 2], 17), ror(w[i - 2], 19), rshift(w[i - 2], 10))",
+            "      w[i] = tobit(w[i - 16] + s0 + w[i - 7] + s1)",
+            "    end",
+            "    local a, b, c, d, e, f, g, hh = h[1], h[2], h[3], h[4], h[5], h[6], h[7], h[8]",
+            "    for i = 0, 63 do",
+            "      local t1 = tobit(hh + bxor(ror(e, 6), ror(e, 11), ror(e, 25)) + bxor(band(e, f), band(bnot(e), g)) + K[i + 1] + w[i])",
+            "      local t2 = tobit(bxor(ror(a, 2), ror(a, 13), ror(a, 22)) + bxor(band(a, b), band(a, c), band(b, c)))",
+            "      hh, g, f, e, d, c, b, a = g, f, e, tobit(d + t1), c, b, a, tobit(t1 + t2)",
+            "    end",
+            "    h[1], h[2], h[3], h[4] = tobit(h[1] + a), tobit(h[2] + b), tobit(h[3] + c), tobit(h[4] + d)",
+            "    h[5], h[6], h[7], h[8] = tobit(h[5] + e), tobit(h[6] + f), tobit(h[7] + g), tobit(h[8] + hh)",
+            "  end",
+            "  local out = {}",
+            "  for i = 1, 8 do",
+            "    out[i] = string.char(band(rshift(h[i], 24), 255), band(rshift(h[i], 16), 255), band(rshift(h[i], 8), 255), band(h[i], 255))",
+            "  end",
+            "  return table.concat(out)",
+            "end",
+            "",
+            "local function hmac_sha256(key, msg)",
+            "  if #key > 64 then",
+            "    key = sha256(key)",
+            "  end",
+            "  key = key .. string.rep(\"\\0\", 64 - #key)",
+            "  local ipad = key:gsub(\".\", function(c) return string.char(bxor(c:byte(), 0x36)) end)",
+            "  local opad = key:gsub(\".\", function(c) return string.char(bxor(c:byte(), 0x5c)) end)",
+            "  return sha256(opad .. sha256(ipad .. msg))",
+            "end",
+            "",
+            "local function tohex(s)",
+            "  return (s:gsub(\".\", function(c) return string.format(\"%02x\", c:byte()) end))",
+            "end",
+            "",
+            "local function fromhex(s)",
+            "  return (s:gsub(\"..\", function(h) return string.char(tonumber(h, 16)) end))",
+            "end",
+            "",
+            "local B64 = \"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/\"",
+            "local function base64(s)",
+            "  local out = {}",
+            "  for i = 1, #s, 3 do",
+            "    local b1, b2, b3 = s:byte(i, i + 2)",
+            "    local n = b1 * 65536 + (b2 or 0) * 256 + (b3 or 0)",
+            "    local c1, c2 = math.floor(n / 262144) % 64 + 1, math.floor(n / 4096) % 64 + 1",
+            "    local c3, c4 = math.floor(n / 64) % 64 + 1, n % 64 + 1",
+            "    out[#out + 1] = B64:sub(c1, c1) .. B64:sub(c2, c2) .. (b2 and B64:sub(c3, c3) or \"=\") .. (b3 and B64:sub(c4, c4) or \"=\")",
+            "  end",
+            "  return table.concat(out)",
+            "end",
+            "",
+            "-- 每个wrk线程在init中打开/dev/urandom，不依赖各线程相同种子的math.random",
+            "local function randombytes(n)",
+            "  if urandom then",
+            "    return urandom:read(n)",
+            "  end",
+            "  local bytes = {}",
+            "  for i = 1, n do",
+            "    bytes[i] = string.char(math.random(0, 255))",
+            "  end",
+            "  return table.concat(bytes)",
+            "end",
+            "",
+            "");
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private long thinkTimeMinMillis;
+    private long thinkTimeMaxMillis;
+    private int targetRate;
+    private int virtualUsers = 10;
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * 添加请求（权重1）
+     */
+    public LoadTestExporter add(CurlRequest request) {
+        return add(null, request, 1);
+    }
+
+    /**
+     * 添加请求
+     *
+     * @param name 场景名称（用于报表分组），为空时使用 "方法 路径"
+     * @param request 请求定义
+     * @param weight 权重（各请求按权重比例随机发送）
+     */
+    public LoadTestExporter add(String name, CurlRequest request, int weight) {
+        return addScenario(name, request, weight, null);
+    }
+
+    /**
+     * 添加签名请求：每次迭代重新生成timestamp、nonce、iv并计算签名，请求中已有的签名请求头会被替换
+     * 只支持JSON或表单请求体（与 CurlSigner.signedRequest 一致，对请求体文本签名），
+     * 规范化方案只支持 CurlSigner.NEWLINE_JOINED 和 CurlSigner.CONCATENATED
+     *
+     * @param name 场景名称，为空时使用 "方法 路径"
+     * @param request 请求定义
+     * @param weight 权重
+     * @param signer 签名器
+     */
+    public LoadTestExporter add(String name, CurlRequest request, int weight, CurlSigner signer) {
+        Objects.requireNonNull(signer, "signer");
+        Objects.requireNonNull(request, "request");
+        if (request.getBody() != null || request.isMultipart()) {
+            throw new IllegalArgumentException("签名请求只支持JSON或表单请求体: " + request);
+        }
+        isNewlineJoined(signer);
+        return addScenario(name, request, weight, signer);
+    }
+
+    private LoadTestExporter addScenario(String name, CurlRequest request, int weight, CurlSigner signer) {
+        Objects.requireNonNull(request, "request");
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight必须大于0: " + weight);
+        }
+        if (request.getBody() != null && !request.getBody().isRepeatable()) {
+            throw new IllegalArgumentException("流式请求体只能发送一次，无法用于压测: " + request);
+        }
+        scenarios.add(new Scenario(name, request, weight, signer));
+        return this;
+    }
+
+    /**
+     * 固定思考时间（每次请求后等待）
+     */
+    public LoadTestExporter thinkTime(Duration thinkTime) {
+        return thinkTime(thinkTime, thinkTime);
+    }
+
+    /**
+     * 随机思考时间（在[min, max]之间均匀分布）
+     */
+    public LoadTestExporter thinkTime(Duration min, Duration max) {
+        if (min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("思考时间最小值不能大于最大值: " + min + " > " + max);
+        }
+        this.thinkTimeMinMillis = min.toMillis();
+        this.thinkTimeMaxMillis = max.toMillis();
+        return this;
+    }
+
+    /**
+     * 目标吞吐量（每秒请求数），0表示不限速
+     * wrk本身不支持限速，该值只写入wrk2的运行说明中
+     */
+    public LoadTestExporter targetRate(int requestsPerSecond) {
+        if (requestsPerSecond < 0) {
+            throw new IllegalArgumentException("targetRate不能为负数: " + requestsPerSecond);
+        }
+        this.targetRate = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * 并发用户数（wrk为连接数，k6为VU数，JMeter为线程数），默认10
+     */
+    public LoadTestExporter virtualUsers(int virtualUsers) {
+        if (virtualUsers <= 0) {
+            throw new IllegalArgumentException("virtualUsers必须大于0: " + virtualUsers);
+        }
+        this.virtualUsers = virtualUsers;
+        return this;
+    }
+
+    /**
+     * 压测持续时间，默认60秒
+     */
+    public LoadTestExporter duration(Duration duration) {
+        this.duration = Objects.requireNonNull(duration, "duration");
+        return this;
+    }
+
+    /**
+     * 导出到文件
+     *
+     * @param output 输出文件
+     * @param format 导出格式
+     */
+    public void write(Path output, Format format) throws IOException {
+        String content;
+        switch (format) {
+            case WRK:
+                content = toWrkLua();
+                break;
+            case K6:
+                content = toK6Script();
+                break;
+            default:
+                content = toJMeterPlan();
+        }
+        Files.write(output, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 渲染为wrk Lua脚本
+     * wrk一次只能压测一个主机，所有请求必须指向同一主机；不支持multipart请求
+     *
+     * @return Lua脚本内容
+     */
+    public String toWrkLua() {
+        List<Resolved> resolved = resolveAll();
+        URI base = URI.create(resolved.get(0).url);
+        StringBuilder lua = new StringBuilder();
+        lua.append("-- wrk压测脚本（由CurlUtil生成）\n");
+        lua.append("-- 运行: wrk -t").append(Math.min(virtualUsers, Runtime.getRuntime().availableProcessors()))
+                .append(" -c").append(virtualUsers).append(" -d").append(duration.getSeconds()).append("s")
+                .append(" -s <本脚本> ").append(base.getScheme()).append("://").append(base.getRawAuthority()).append("\n");
+        if (targetRate > 0) {
+            lua.append("-- 限速需要wrk2: wrk -R").append(targetRate).append(" ...\n");
+        }
+        lua.append("\n");
+
+        List<CurlSigner> signers = signers(resolved);
+        if (!signers.isEmpty()) {
+            appendLuaSigning(lua, signers);
+        }
+
+        lua.append("local requests = {\n");
+        for (Resolved request : resolved) {
+            URI uri = URI.create(request.url);
+            if (!Objects.equals(uri.getRawAuthority(), base.getRawAuthority())
+                    || !Objects.equals(uri.getScheme(), base.getScheme())) {
+                throw new IllegalArgumentException("wrk只能压测同一主机: " + request.url);
+            }
+            if (request.parts != null) {
+                throw new IllegalArgumentException("wrk不支持multipart请求: " + request.name);
+            }
+            String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                    + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+            lua.append("  { method = ").append(luaString(request.method))
+                    .append(", path = ").append(luaString(path))
+                    .append(", headers = {");
+            boolean first = true;
+            for (Map.Entry<String, String> header : request.headers.entrySet()) {
+                lua.append(first ? " " : ", ").append("[").append(luaString(header.getKey())).append("] = ")
+                        .append(luaString(header.getValue()));
+                first = false;
+            }
+            lua.append(first ? "}" : " }");
+            if (request.bodyFile != null) {
+                lua.append(", bodyFile = ").append(luaString(request.bodyFile.toString()));
+            } else if (request.body != null) {
+                lua.append(", body = ").append(luaString(request.body));
+            }
+            if (request.signer != null) {
+                lua.append(", signer = ").append(signers.indexOf(request.signer) + 1)
+                        .append(", signBody = ").append(luaString(request.signBody));
+            }
+            lua.append(" },\n");
+        }
+        lua.append("}\n\n");
+
+        lua.append("local schedule = {").append(scheduleList()).append("}\n");
+        lua.append("local bodies = {}\n");
+        lua.append("local formatted = {}\n\n");
+        lua.append("init = function(args)\n");
+        if (!signers.isEmpty()) {
+            lua.append("  urandom = io.open(\"/dev/urandom\", \"rb\")\n");
+        }
+        lua.append("  for i, r in ipairs(requests) do\n");
+        lua.append("    local body = r.body\n");
+        lua.append("    if r.bodyFile then\n");
+        lua.append("      local file = assert(io.open(r.bodyFile, \"rb\"))\n");
+        lua.append("      body = file:read(\"*a\")\n");
+        lua.append("      file:close()\n");
+        lua.append("    end\n");
+        lua.append("    bodies[i] = body\n");
+        lua.append("    formatted[i] = wrk.format(r.method, r.path, r.headers, body)\n");
+        lua.append("  end\n");
+        lua.append("end\n\n");
+        lua.append("request = function()\n");
+        lua.append("  local i = schedule[math.random(#schedule)] + 1\n");
+        if (!signers.isEmpty()) {
+            lua.append("  local r = requests[i]\n");
+            lua.append("  if r.signer then\n");
+            lua.append("    return wrk.format(r.method, r.path, sign(r), bodies[i])\n");
+            lua.append("  end\n");
+        }
+        lua.append("  return formatted[i]\n");
+        lua.append("end\n");
+        if (thinkTimeMaxMillis > 0) {
+            lua.append("\ndelay = function()\n");
+            lua.append("  return math.random(").append(thinkTimeMinMillis).append(", ").append(thinkTimeMaxMillis)
+                    .append(")\n");
+            lua.append("end\n");
+        }
+        return lua.toString();
+    }
+
+    /**
+     * 渲染为k6脚本
+     * 设置了目标吞吐量时使用 constant-arrival-rate 执行器，否则使用固定VU数
+     *
+     * @return JavaScript脚本内容
+     */
+    public String toK6Script() {
+        List<Resolved> resolved = resolveAll();
+        StringBuilder js = new StringBuilder();
+        js.append("// k6压测脚本（由CurlUtil生成）\n");
+        js.append("// 运行: k6 run <本脚本>\n");
+        List<CurlSigner> signers = signers(resolved);
+        js.append("import http from 'k6/http';\n");
+        js.append("import { check, sleep } from 'k6';\n");
+        if (!signers.isEmpty()) {
+            js.append("import crypto from 'k6/crypto';\n");
+            js.append("import encoding from 'k6/encoding';\n");
+        }
+        js.append("\n");
+
+        js.append("export const options = {\n");
+        if (targetRate > 0) {
+            js.append("  scenarios: {\n");
+            js.append("    replay: {\n");
+            js.append("      executor: 'constant-arrival-rate',\n");
+            js.append("      rate: ").append(targetRate).append(",\n");
+            js.append("      timeUnit: '1s',\n");
+            js.append("      duration: '").append(duration.getSeconds()).append("s',\n");
+            js.append("      preAllocatedVUs: ").append(virtualUsers).append(",\n");
+            js.append("    },\n");
+            js.append("  },\n");
+        } else {
+            js.append("  vus: ").append(virtualUsers).append(",\n");
+            js.append("  duration: '").append(duration.getSeconds()).append("s',\n");
+        }
+        js.append("};\n\n");
+
+        // 文件只能在init阶段读取
+        Map<Path, String> files = new LinkedHashMap<>();
+        for (Resolved request : resolved) {
+            if (request.bodyFile != null) {
+                files.putIfAbsent(request.bodyFile, "file" + files.size());
+            }
+            if (request.parts != null) {
+                for (MultipartPart part : request.parts) {
+                    if (part.isFile()) {
+                        files.putIfAbsent(part.getFile(), "file" + files.size());
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Path, String> file : files.entrySet()) {
+            js.append("const ").append(file.getValue()).append(" = open(")
+                    .append(jsString(file.getKey().toString())).append(", 'b');\n");
+        }
+        if (!files.isEmpty()) {
+            js.append("\n");
+        }
+
+        js.append("const requests = [\n");
+        for (Resolved request : resolved) {
+            js.append("  {\n");
+            js.append("    method: ").append(jsString(request.method)).append(",\n");
+            js.append("    url: ").append(jsString(request.url)).append(",\n");
+            js.append("    body: ");
+            if (request.bodyFile != null) {
+                js.append(files.get(request.bodyFile));
+            } else if (request.parts != null) {
+                js.append("{");
+                boolean first = true;
+                for (MultipartPart part : request.parts) {
+                    js.append(first ? " " : ", ").append(jsString(part.getName())).append(": ");
+                    if (part.isFile()) {
+                        js.append("http.file(").append(files.get(part.getFile())).append(", ")
+                                .append(jsString(part.getFilename())).append(", ")
+                                .append(jsString(part.getContentType() != null
+                                        ? part.getContentType() : "application/octet-stream"))
+                                .append(")");
+                    } else {
+                        js.append(jsString(part.getValue()));
+                    }
+                    first = false;
+                }
+                js.append(first ? "}" : " }");
+            } else {
+                js.append(request.body != null ? jsString(request.body) : "null");
+            }
+            js.append(",\n");
+            js.append("    params: { headers: {");
+            boolean first = true;
+            for (Map.Entry<String, String> header : request.headers.entrySet()) {
+                js.append(first ? " " : ", ").append(jsString(header.getKey())).append(": ")
+                        .append(jsString(header.getValue()));
+                first = false;
+            }
+            js.append(first ? "}" : " }").append(", tags: { name: ").append(jsString(request.name)).append(" } },\n");
+            if (request.signer != null) {
+                js.append("    signer: ").append(signers.indexOf(request.signer)).append(",\n");
+                js.append("    signBody: ").append(jsString(request.signBody)).append(",\n");
+            }
+            js.append("  },\n");
+        }
+        js.append("];\n\n");
+        if (!signers.isEmpty()) {
+            appendK6Signing(js, signers);
+        }
+
+        js.append("const schedule = [").append(scheduleList()).append("];\n\n");
+        js.append("export default function () {\n");
+        js.append("  const r = requests[schedule[Math.floor(Math.random() * schedule.length)]];\n");
+        js.append("  const res = http.request(r.method, r.url, r.body, ")
+                .append(signers.isEmpty() ? "r.params" : "r.signer === undefined ? r.params : sign(r)").append(");\n");
+        js.append("  check(res, { 'status < 400': (res) => res.status > 0 && res.status < 400 });\n");
+        if (thinkTimeMaxMillis > 0) {
+            js.append("  sleep((").append(thinkTimeMinMillis).append(" + Math.random() * ")
+                    .append(thinkTimeMaxMillis - thinkTimeMinMillis).append(") / 1000);\n");
+        }
+        js.append("}\n");
+        return js.toString();
+    }
+
+    /**
+     * 渲染为JMeter测试计划（.jmx）
+     * 权重通过百分比模式的吞吐量控制器实现，目标吞吐量通过常数吞吐量定时器实现
+     *
+     * @return 测试计划XML
+     */
+    public String toJMeterPlan() {
+        List<Resolved> resolved = resolveAll();
+        int totalWeight = scenarios.stream().mapToInt(s -> s.weight).sum();
+
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<jmeterTestPlan version=\"1.2\" properties=\"5.0\">\n");
+        xml.append("  <hashTree>\n");
+        xml.append("    <TestPlan guiclass=\"TestPlanGui\" testclass=\"TestPlan\" testname=\"CurlUtil Replay\" enabled=\"true\">\n");
+        xml.append("      <elementProp name=\"TestPlan.user_defined_variables\" elementType=\"Arguments\">\n");
+        xml.append("        <collectionProp name=\"Arguments.arguments\"/>\n");
+        xml.append("      </elementProp>\n");
+        xml.append("    </TestPlan>\n");
+        xml.append("    <hashTree>\n");
+        xml.append("      <ThreadGroup guiclass=\"ThreadGroupGui\" testclass=\"ThreadGroup\" testname=\"Replay\" enabled=\"true\">\n");
+        xml.append("        <stringProp name=\"ThreadGroup.on_sample_error\">continue</stringProp>\n");
+        xml.append("        <elementProp name=\"ThreadGroup.main_controller\" elementType=\"LoopController\">\n");
+        xml.append("          <boolProp name=\"LoopController.continue_forever\">false</boolProp>\n");
+        xml.append("          <intProp name=\"LoopController.loops\">-1</intProp>\n");
+        xml.append("        </elementProp>\n");
+        xml.append("        <stringProp name=\"ThreadGroup.num_threads\">").append(virtualUsers).append("</stringProp>\n");
+        xml.append("        <stringProp name=\"ThreadGroup.ramp_time\">1</stringProp>\n");
+        xml.append("        <boolProp name=\"ThreadGroup.scheduler\">true</boolProp>\n");
+        xml.append("        <stringProp name=\"ThreadGroup.duration\">").append(duration.getSeconds()).append("</stringProp>\n");
+        xml.append("      </ThreadGroup>\n");
+        xml.append("      <hashTree>\n");
+
+        if (targetRate > 0) {
+            xml.append("        <ConstantThroughputTimer guiclass=\"TestBeanGUI\" testclass=\"ConstantThroughputTimer\" testname=\"Target Rate\" enabled=\"true\">\n");
+            xml.append("          <intProp name=\"calcMode\">1</intProp>\n");
+            xml.append("          <doubleProp>\n");
+            xml.append("            <name>throughput</name>\n");
+            xml.append("            <value>").append(targetRate * 60.0).append("</value>\n");
+            xml.append("            <savedValue>0.0</savedValue>\n");
+            xml.append("          </doubleProp>\n");
+            xml.append("        </ConstantThroughputTimer>\n");
+            xml.append("        <hashTree/>\n");
+        }
+        if (thinkTimeMaxMillis > 0) {
+            xml.append("        <UniformRandomTimer guiclass=\"UniformRandomTimerGui\" testclass=\"UniformRandomTimer\" testname=\"Think Time\" enabled=\"true\">\n");
+            xml.append("          <stringProp name=\"ConstantTimer.delay\">").append(thinkTimeMinMillis).append("</stringProp>\n");
+            xml.append("          <stringProp name=\"RandomTimer.range\">").append(thinkTimeMaxMillis - thinkTimeMinMillis).append("</stringProp>\n");
+            xml.append("        </UniformRandomTimer>\n");
+            xml.append("        <hashTree/>\n");
+        }
+
+        for (int i = 0; i < resolved.size(); i++) {
+            Resolved request = resolved.get(i);
+            double percent = scenarios.get(i).weight * 100.0 / totalWeight;
+            xml.append("        <ThroughputController guiclass=\"ThroughputControllerGui\" testclass=\"ThroughputController\" testname=\"")
+                    .append(xmlEscape(request.name)).append(" weight\" enabled=\"true\">\n");
+            xml.append("          <intProp name=\"ThroughputController.style\">1</intProp>\n");
+            xml.append("          <boolProp name=\"ThroughputController.perThread\">false</boolProp>\n");
+            xml.append("          <intProp name=\"ThroughputController.maxThroughput\">1</intProp>\n");
+            xml.append("          <FloatProperty>\n");
+            xml.append("            <name>ThroughputController.percentThroughput</name>\n");
+            xml.append("            <value>").append(String.format(Locale.ROOT, "%.4f", percent)).append("</value>\n");
+            xml.append("            <savedValue>0.0</savedValue>\n");
+            xml.append("          </FloatProperty>\n");
+            xml.append("        </ThroughputController>\n");
+            xml.append("        <hashTree>\n");
+            appendJMeterSampler(xml, request);
+            xml.append("        </hashTree>\n");
+        }
+
+        xml.append("      </hashTree>\n");
+        xml.append("    </hashTree>\n");
+        xml.append("  </hashTree>\n");
+        xml.append("</jmeterTestPlan>\n");
+        return xml.toString();
+    }
+
+    private void appendJMeterSampler(StringBuilder xml, Resolved request) {
+        URI uri = URI.create(request.url);
+        String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        String indent = "          ";
+        xml.append(indent).append("<HTTPSamplerProxy guiclass=\"HttpTestSampleGui\" testclass=\"HTTPSamplerProxy\" testname=\"")
+                .append(xmlEscape(request.name)).append("\" enabled=\"true\">\n");
+        boolean rawBody = request.body != null && request.parts == null;
+        if (rawBody) {
+            xml.append(indent).append("  <boolProp name=\"HTTPSampler.postBodyRaw\">true</boolProp>\n");
+        }
+        xml.append(indent).append("  <elementProp name=\"HTTPsampler.Arguments\" elementType=\"Arguments\">\n");
+        xml.append(indent).append("    <collectionProp name=\"Arguments.arguments\">\n");
+        if (rawBody) {
+            appendJMeterArgument(xml, indent + "      ", "", request.body);
+        } else if (request.parts != null) {
+            for (MultipartPart part : request.parts) {
+                if (!part.isFile()) {
+                    appendJMeterArgument(xml, indent + "      ", part.getName(), part.getValue());
+                }
+            }
+        }
+        xml.append(indent).append("    </collectionProp>\n");
+        xml.append(indent).append("  </elementProp>\n");
+
+        List<String[]> files = new ArrayList<>();
+        if (request.bodyFile != null) {
+            // 参数名为空的文件参数会作为原始请求体发送
+            String contentType = headerValue(request.headers, "Content-Type");
+            files.add(new String[]{request.bodyFile.toString(), "", contentType != null ? contentType : ""});
+        } else if (request.parts != null) {
+            for (MultipartPart part : request.parts) {
+                if (part.isFile()) {
+                    files.add(new String[]{part.getFile().toString(), part.getName(),
+                            part.getContentType() != null ? part.getContentType() : "application/octet-stream"});
+                }
+            }
+        }
+        if (!files.isEmpty()) {
+            xml.append(indent).append("  <elementProp name=\"HTTPsampler.Files\" elementType=\"HTTPFileArgs\">\n");
+            xml.append(indent).append("    <collectionProp name=\"HTTPFileArgs.files\">\n");
+            for (String[] file : files) {
+                xml.append(indent).append("      <elementProp name=\"").append(xmlEscape(file[0]))
+                        .append("\" elementType=\"HTTPFileArg\">\n");
+                xml.append(indent).append("        <stringProp name=\"File.path\">").append(xmlEscape(file[0])).append("</stringProp>\n");
+                xml.append(indent).append("        <stringProp name=\"File.paramname\">").append(xmlEscape(file[1])).append("</stringProp>\n");
+                xml.append(indent).append("        <stringProp name=\"File.mimetype\">").append(xmlEscape(file[2])).append("</stringProp>\n");
+                xml.append(indent).append("      </elementProp>\n");
+            }
+            xml.append(indent).append("    </collectionProp>\n");
+            xml.append(indent).append("  </elementProp>\n");
+        }
+
+        xml.append(indent).append("  <stringProp name=\"HTTPSampler.protocol\">").append(xmlEscape(uri.getScheme())).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"HTTPSampler.domain\">").append(xmlEscape(uri.getHost())).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"HTTPSampler.port\">").append(uri.getPort() > 0 ? uri.getPort() : "").append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"HTTPSampler.path\">").append(xmlEscape(path)).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"HTTPSampler.method\">").append(request.method).append("</stringProp>\n");
+        xml.append(indent).append("  <boolProp name=\"HTTPSampler.use_keepalive\">true</boolProp>\n");
+        xml.append(indent).append("  <boolProp name=\"HTTPSampler.DO_MULTIPART_POST\">").append(request.parts != null).append("</boolProp>\n");
+        xml.append(indent).append("</HTTPSamplerProxy>\n");
+        xml.append(indent).append("<hashTree>\n");
+        if (request.signer != null) {
+            appendJMeterSigning(xml, indent + "  ", request);
+        }
+        xml.append(indent).append("  <HeaderManager guiclass=\"HeaderPanel\" testclass=\"HeaderManager\" testname=\"Headers\" enabled=\"true\">\n");
+        xml.append(indent).append("    <collectionProp name=\"HeaderManager.headers\">\n");
+        for (Map.Entry<String, String> header : request.headers.entrySet()) {
+            appendJMeterHeader(xml, indent + "      ", header.getKey(), header.getValue());
+        }
+        if (request.signer != null) {
+            appendJMeterHeader(xml, indent + "      ", "appId", request.signer.getAppId());
+            for (String header : Arrays.asList("signature", "timestamp", "nonce", "iv")) {
+                appendJMeterHeader(xml, indent + "      ", header, "${sign_" + header + "}");
+            }
+        }
+        xml.append(indent).append("    </collectionProp>\n");
+        xml.append(indent).append("  </HeaderManager>\n");
+        xml.append(indent).append("  <hashTree/>\n");
+        xml.append(indent).append("</hashTree>\n");
+    }
+
+    private static void appendJMeterHeader(StringBuilder xml, String indent, String name, String value) {
+        xml.append(indent).append("<elementProp name=\"\" elementType=\"Header\">\n");
+        xml.append(indent).append("  <stringProp name=\"Header.name\">").append(xmlEscape(name)).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"Header.value\">").append(xmlEscape(value)).append("</stringProp>\n");
+        xml.append(indent).append("</elementProp>\n");
+    }
+
+    /**
+     * JSR223前置处理器：每次取样前计算签名，写入 sign_signature 等变量供请求头引用
+     */
+    private static void appendJMeterSigning(StringBuilder xml, String indent, Resolved request) {
+        CurlSigner signer = request.signer;
+        String algorithm = signer.algorithm();
+        String separator = isNewlineJoined(signer) ? " + '\\n' + " : " + ";
+        String encode = signer.encoding() == CurlSigner.Encoding.HEX ? "encodeHex()" : "encodeBase64()";
+        String script = "def random = new java.security.SecureRandom()\n"
+                + "def nonceBytes = new byte[16]\n"
+                + "def ivBytes = new byte[16]\n"
+                + "random.nextBytes(nonceBytes)\n"
+                + "random.nextBytes(ivBytes)\n"
+                + "def timestamp = String.valueOf(System.currentTimeMillis())\n"
+                + "def nonce = nonceBytes.encodeHex().toString()\n"
+                + "def canonical = " + jsString(signer.getAppId()) + separator + "timestamp" + separator + "nonce"
+                + separator + jsString(request.signBody) + "\n"
+                + "def mac = javax.crypto.Mac.getInstance(" + jsString(algorithm) + ")\n"
+                + "mac.init(new javax.crypto.spec.SecretKeySpec("
+                + jsString(Base64.getEncoder().encodeToString(signer.secret())) + ".decodeBase64(), "
+                + jsString(algorithm) + "))\n"
+                + "vars.put('sign_timestamp', timestamp)\n"
+                + "vars.put('sign_nonce', nonce)\n"
+                + "vars.put('sign_iv', ivBytes.encodeBase64().toString())\n"
+                + "vars.put('sign_signature', mac.doFinal(canonical.getBytes('UTF-8'))." + encode + ".toString())\n";
+        xml.append(indent).append("<JSR223PreProcessor guiclass=\"TestBeanGUI\" testclass=\"JSR223PreProcessor\" testname=\"Sign\" enabled=\"true\">\n");
+        xml.append(indent).append("  <stringProp name=\"scriptLanguage\">groovy</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"parameters\"></stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"filename\"></stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"cacheKey\">true</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"script\">").append(xmlEscape(script)).append("</stringProp>\n");
+        xml.append(indent).append("</JSR223PreProcessor>\n");
+        xml.append(indent).append("<hashTree/>\n");
+    }
+
+    /**
+     * k6签名函数：每次迭代生成timestamp、nonce、iv并用 k6/crypto 计算HMAC
+     */
+    private static void appendK6Signing(StringBuilder js, List<CurlSigner> signers) {
+        js.append("const signers = [\n");
+        for (CurlSigner signer : signers) {
+            js.append("  { appId: ").append(jsString(signer.getAppId()))
+                    .append(", secret: encoding.b64decode(")
+                    .append(jsString(Base64.getEncoder().encodeToString(signer.secret()))).append(")")
+                    .append(", algorithm: ").append(jsString(k6Algorithm(signer.algorithm())))
+                    .append(", encoding: ").append(signer.encoding() == CurlSigner.Encoding.HEX ? "'hex'" : "'base64'")
+                    .append(", newline: ").append(isNewlineJoined(signer)).append(" },\n");
+        }
+        js.append("];\n\n");
+        js.append("function hex(buffer) {\n");
+        js.append("  return Array.from(new Uint8Array(buffer), (b) => ('0' + b.toString(16)).slice(-2)).join('');\n");
+        js.append("}\n\n");
+        js.append("function sign(r) {\n");
+        js.append("  const s = signers[r.signer];\n");
+        js.append("  const timestamp = String(Date.now());\n");
+        js.append("  const nonce = hex(crypto.randomBytes(16));\n");
+        js.append("  const iv = encoding.b64encode(crypto.randomBytes(16));\n");
+        js.append("  const canonical = s.newline\n");
+        js.append("    ? s.appId + '\\n' + timestamp + '\\n' + nonce + '\\n' + r.signBody\n");
+        js.append("    : s.appId + timestamp + nonce + r.signBody;\n");
+        js.append("  const signature = crypto.hmac(s.algorithm, s.secret, canonical, s.encoding);\n");
+        js.append("  const headers = Object.assign({}, r.params.headers,\n");
+        js.append("    { appId: s.appId, signature: signature, timestamp: timestamp, nonce: nonce, iv: iv });\n");
+        js.append("  return Object.assign({}, r.params, { headers: headers });\n");
+        js.append("}\n\n");
+    }
+
+    /**
+     * wrk签名函数：wrk内置LuaJIT没有加密库，脚本中内置基于bit模块的HMAC-SHA256，随机数读取/dev/urandom
+     */
+    private static void appendLuaSigning(StringBuilder lua, List<CurlSigner> signers) {
+        for (CurlSigner signer : signers) {
+            if (!"hmacsha256".equals(signer.algorithm().toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("wrk脚本只支持HmacSHA256签名: " + signer.algorithm());
+            }
+        }
+        lua.append(LUA_HMAC_SHA256);
+        lua.append("local signers = {\n");
+        for (CurlSigner signer : signers) {
+            lua.append("  { appId = ").append(luaString(signer.getAppId()))
+                    .append(", secret = fromhex(").append(luaString(toHex(signer.secret()))).append(")")
+                    .append(", base64 = ").append(signer.encoding() == CurlSigner.Encoding.BASE64)
+                    .append(", newline = ").append(isNewlineJoined(signer)).append(" },\n");
+        }
+        lua.append("}\n\n");
+        lua.append("local function sign(r)\n");
+        lua.append("  local s = signers[r.signer]\n");
+        lua.append("  local timestamp = string.format(\"%.0f\", os.time() * 1000)\n");
+        lua.append("  local nonce = tohex(randombytes(16))\n");
+        lua.append("  local canonical\n");
+        lua.append("  if s.newline then\n");
+        lua.append("    canonical = s.appId .. \"\\n\" .. timestamp .. \"\\n\" .. nonce .. \"\\n\" .. r.signBody\n");
+        lua.append("  else\n");
+        lua.append("    canonical = s.appId .. timestamp .. nonce .. r.signBody\n");
+        lua.append("  end\n");
+        lua.append("  local digest = hmac_sha256(s.secret, canonical)\n");
+        lua.append("  local headers = {}\n");
+        lua.append("  for k, v in pairs(r.headers) do\n");
+        lua.append("    headers[k] = v\n");
+        lua.append("  end\n");
+        lua.append("  headers[\"appId\"] = s.appId\n");
+        lua.append("  headers[\"signature\"] = s.base64 and base64(digest) or tohex(digest)\n");
+        lua.append("  headers[\"timestamp\"] = timestamp\n");
+        lua.append("  headers[\"nonce\"] = nonce\n");
+        lua.append("  headers[\"iv\"] = base64(randombytes(16))\n");
+        lua.append("  return headers\n");
+        lua.append("end\n\n");
+    }
+
+    /**
+     * 规范化方案是否为换行连接，只支持两种内置方案（脚本中需要重新实现规范化）
+     */
+    private static boolean isNewlineJoined(CurlSigner signer) {
+        if (signer.canonicalizer() == CurlSigner.NEWLINE_JOINED) {
+            return true;
+        }
+        if (signer.canonicalizer() == CurlSigner.CONCATENATED) {
+            return false;
+        }
+        throw new IllegalArgumentException("自定义规范化方案无法导出为压测脚本，只支持NEWLINE_JOINED和CONCATENATED");
+    }
+
+    /**
+     * Mac算法名转换为 k6/crypto 的hmac算法名，如 HmacSHA256 -> sha256
+     */
+    private static String k6Algorithm(String algorithm) {
+        String normalized = algorithm.toLowerCase(Locale.ROOT);
+        String hash = normalized.startsWith("hmac") ? normalized.substring(4) : normalized;
+        if (!Arrays.asList("md5", "sha1", "sha256", "sha384", "sha512").contains(hash)) {
+            throw new IllegalArgumentException("k6不支持的签名算法: " + algorithm);
+        }
+        return hash;
+    }
+
+    /**
+     * 所有签名请求使用的签名器（去重，保持顺序）
+     */
+    private static List<CurlSigner> signers(List<Resolved> resolved) {
+        List<CurlSigner> signers = new ArrayList<>();
+        for (Resolved request : resolved) {
+            if (request.signer != null && !signers.contains(request.signer)) {
+                signers.add(request.signer);
+            }
+        }
+        return signers;
+    }
+
+    /**
+     * 按名称查找请求头（不区分大小写），不存在时返回null
+     */
+    private static String headerValue(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void appendJMeterArgument(StringBuilder xml, String indent, String name, String value) {
+        xml.append(indent).append("<elementProp name=\"").append(xmlEscape(name)).append("\" elementType=\"HTTPArgument\">\n");
+        xml.append(indent).append("  <boolProp name=\"HTTPArgument.always_encode\">false</boolProp>\n");
+        xml.append(indent).append("  <stringProp name=\"Argument.name\">").append(xmlEscape(name)).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"Argument.value\">").append(xmlEscape(value)).append("</stringProp>\n");
+        xml.append(indent).append("  <stringProp name=\"Argument.metadata\">=</stringProp>\n");
+        xml.append(indent).append("</elementProp>\n");
+    }
+
+    /**
+     * 按权重展开的请求下标列表，随机选取下标即实现按权重发送
+     */
+    private String scheduleList() {
+        int divisor = 0;
+        for (Scenario scenario : scenarios) {
+            divisor = gcd(divisor, scenario.weight);
+        }
+        StringBuilder list = new StringBuilder();
+        // 统一输出0基下标，Lua数组从1开始，由wrk脚本在取值时加1
+        for (int i = 0; i < scenarios.size(); i++) {
+            int repeat = scenarios.get(i).weight / divisor;
+            for (int r = 0; r < repeat; r++) {
+                if (list.length() > 0) {
+                    list.append(", ");
+                }
+                list.append(i);
+            }
+        }
+        return list.toString();
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private List<Resolved> resolveAll() {
+        if (scenarios.isEmpty()) {
+            throw new IllegalStateException("没有可导出的请求");
+        }
+        List<Resolved> resolved = new ArrayList<>(scenarios.size());
+        for (Scenario scenario : scenarios) {
+            resolved.add(new Resolved(scenario));
+        }
+        return resolved;
+    }
+
+    private static String luaString(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else if (c < 0x20) {
+                escaped.append('\\').append((int) c);
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    private static String jsString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 2).append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('\'').toString();
+    }
+
+    private static String xmlEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    /**
+     * 压测场景
+     */
+    private static final class Scenario {
+        final String name;
+        final CurlRequest request;
+        final int weight;
+        final CurlSigner signer;
+
+        Scenario(String name, CurlRequest request, int weight, CurlSigner signer) {
+            this.name = name;
+            this.request = request;
+            this.weight = weight;
+            this.signer = signer;
+        }
+    }
+
+    /**
+     * 解析后的请求：最终URL、补全Content-Type的请求头和请求体（设置了压缩时为预压缩文件）
+     */
+    private static final class Resolved {
+        final String name;
+        final String method;
+        final String url;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        String body;
+        Path bodyFile;
+        List<MultipartPart> parts;
+        /** 签名器和参与签名的请求体文本，非签名请求为null */
+        CurlSigner signer;
+        String signBody;
+
+        Resolved(Scenario scenario) {
+            CurlRequest request = scenario.request;
+            this.method = request.getMethod().name();
+            this.url = CurlUtil.buildUrlWithParams(request.getUrl(), request.getParams(), request.getMethod());
+            this.name = scenario.name != null ? scenario.name : method + " " + URI.create(url).getRawPath();
+
+            String contentType = null;
+            if (request.getBody() != null) {
+                bodyFile = request.getBody().getPath();
+                contentType = request.getBody().getContentType();
+                if (request.getBody().getKind() == BodySource.Kind.MAPPED) {
+                    throw new IllegalArgumentException("内存映射区域请求体无法导出为压测脚本: " + request);
+                }
+            } else if (request.isMultipart()) {
+                parts = new ArrayList<>(request.getParts());
+            } else if (request.getJsonBody() != null && !request.getJsonBody().trim().isEmpty()) {
+                body = request.getJsonBody();
+                contentType = "application/json";
+            } else if (!request.getParams().isEmpty() && request.getMethod() != CurlUtil.HttpMethod.GET) {
+                body = CurlUtil.encodeParams(request.getParams());
+                contentType = "application/x-www-form-urlencoded";
+            }
+
+            boolean hasContentType = false;
+            for (String key : request.getHeaders().keySet()) {
+                hasContentType |= "content-type".equalsIgnoreCase(key);
+            }
+            if (contentType != null && !hasContentType) {
+                headers.put("Content-Type", contentType);
+            }
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                // multipart的Content-Type需要由压测工具生成（包含boundary）
+                if (parts == null || !"content-type".equalsIgnoreCase(header.getKey())) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+
+            if (scenario.signer != null) {
+                signer = scenario.signer;
+                signBody = body != null ? body : "";
+                headers.keySet().removeIf(key -> SIGNATURE_HEADERS.contains(key.toLowerCase(Locale.ROOT)));
+            }
+            if (request.getCompression() != null) {
+                compress(request);
+            }
+        }
+
+        /**
+         * 请求体预压缩到文件（与CurlUtil生成的压缩请求命令一致），请求头声明Content-Encoding
+         */
+        private void compress(CurlRequest request) {
+            if (parts != null) {
+                throw new IllegalArgumentException("multipart请求不支持压缩请求体: " + request);
+            }
+            if (body == null && bodyFile == null) {
+                return;
+            }
+            BodyCompression.Coding coding = request.getCompression();
+            try (InputStream in = bodyFile != null
+                    ? Files.newInputStream(bodyFile)
+                    : new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))) {
+                bodyFile = BodyCompression.compress(in, coding, request.getCompressionDirectory()).getPath();
+            } catch (IOException e) {
+                throw new UncheckedIOException("压缩请求体失败: " + request, e);
+            }
+            body = null;
+            headers.keySet().removeIf("content-encoding"::equalsIgnoreCase);
+            headers.put("Content-Encoding", coding.getToken());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package curl_util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * multipart/form-data 流式请求体
+ * 按表单项顺序拼接分隔头与内容，文件在发送到对应位置时才打开，整个请求体不会缓存在堆上
+ *
+ * @author shenmiren21
+ */
+final class MultipartBody {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final char[] BOUNDARY_CHARS =
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<MultipartPart> parts;
+    private final String boundary;
+
+    MultipartBody(List<MultipartPart> parts) {
+        this(parts, generateBoundary());
+    }
+
+    MultipartBody(List<MultipartPart> parts, String boundary) {
+        this.parts = new ArrayList<>(parts);
+        this.boundary = boundary;
+    }
+
+    String getBoundary() {
+        return boundary;
+    }
+
+    String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * 请求体总长度（文件大小在此刻读取）
+     */
+    long contentLength() throws IOException {
+        long total = 0;
+        for (MultipartPart part : parts) {
+            total += partHeader(part).length;
+            total += part.isFile()
+                    ? Files.size(part.getFile())
+                    : part.getValue().getBytes(StandardCharsets.UTF_8).length;
+            total += CRLF.length;
+        }
+        return total + closingDelimiter().length;
+    }
+
+    /**
+     * 转换为HttpClient的流式请求体（带Content-Length，避免部分服务端拒绝chunked上传）
+     */
+    HttpRequest.BodyPublisher toBodyPublisher() throws IOException {
+        // 每次订阅（如重定向、重试）都会重新调用openStream，文件重新打开
+        HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(this::openStream);
+        return HttpRequest.BodyPublishers.fromPublisher(stream, contentLength());
+    }
+
+    /**
+     * 打开请求体输入流，文件项延迟到读取时才打开
+     */
+    InputStream openStream() {
+        // 每个表单项依次输出：分隔头、内容、CRLF；最后输出结束分隔符
+        int segmentCount = parts.size() * 3 + 1;
+        Enumeration<InputStream> segments = new Enumeration<InputStream>() {
+            private int index;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index < segmentCount;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int current = index++;
+                if (current == segmentCount - 1) {
+                    return new ByteArrayInputStream(closingDelimiter());
+                }
+                MultipartPart part = parts.get(current / 3);
+                switch (current % 3) {
+                    case 0:
+                        return new ByteArrayInputStream(partHeader(part));
+                    case 1:
+                        return openContent(part);
+                    default:
+                        return new ByteArrayInputStream(CRLF);
+                }
+            }
+        };
+        return new SequenceInputStream(segments);
+    }
+
+    private InputStream openContent(MultipartPart part) {
+        if (!part.isFile()) {
+            return new ByteArrayInputStream(part.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return Files.newInputStream(part.getFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开上传文件失败: " + part.getFile(), e);
+        }
+    }
+
+    private byte[] partHeader(MultipartPart part) {
+        StringBuilder header = new StringBuilder();
+        header.append("--").append(boundary).append("\r\n");
+        header.append("Content-Disposition: form-data; name=\"").append(quote(part.getName())).append("\"");
+        if (part.isFile()) {
+            header.append("; filename=\"").append(quote(part.getFilename())).append("\"");
+        }
+        header.append("\r\n");
+        String contentType = part.getContentType();
+        if (contentType == null && part.isFile()) {
+            contentType = "application/octet-stream";
+        }
+        if (contentType != null) {
+            header.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        header.append("\r\n");
+        return header.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] closingDelimiter() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String quote(String value) {
+        return value == null ? "" : value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static String generateBoundary() {
+        StringBuilder boundary = new StringBuilder("----CurlUtilBoundary");
+        for (int i = 0; i < 24; i++) {
+            boundary.append(BOUNDARY_CHARS[RANDOM.nextInt(BOUNDARY_CHARS.length)]);
+        }
+        return boundary.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package curl_util;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * multipart/form-data 表单项
+ * 文本项渲染为 -F 'name=value'（包含特殊字符时使用 --form-string），文件项渲染为 -F 'name=@"file";filename="..."'，
+ * 文件路径和文件名按curl的规则放在双引号内（\ 和 " 加反斜杠转义），不会被其中的 ; 或 , 截断
+ *
+ * <p>字段名不能包含 = 和控制字符，文件路径、文件名和Content-Type不能包含换行和NUL，这些内容无法用curl的 -F 参数表示，
+ * 创建表单项时直接拒绝。curl不会去掉 type= 值两侧的引号，Content-Type的参数（如 charset=utf-8）只能不加引号原样跟在后面，
+ * 因此Content-Type还不能包含 , 和名为 filename、type、headers、encoder 的参数（curl会把它们当作表单项属性）</p>
+ *
+ * @author shenmiren21
+ */
+public final class MultipartPart {
+
+    /** curl -F 中 ; 之后可以出现的属性 */
+    private static final String[] CURL_ATTRIBUTES = {"filename=", "type=", "headers=", "encoder="};
+
+    private final String name;
+    private final String value;
+    private final Path file;
+    private final String contentType;
+    private final String filename;
+
+    private MultipartPart(String name, String value, Path file, String contentType, String filename) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.value = value;
+        this.file = file;
+        this.contentType = contentType;
+        this.filename = filename;
+        if (name.indexOf('=') >= 0 || hasControl(name)) {
+            throw new IllegalArgumentException("表单字段名不能包含=或控制字符: " + name);
+        }
+        if (file != null && hasLineBreak(file.toString())) {
+            throw new IllegalArgumentException("文件路径不能包含换行或NUL: " + file);
+        }
+        if (filename != null && hasLineBreak(filename)) {
+            throw new IllegalArgumentException("文件名不能包含换行或NUL: " + filename);
+        }
+        if (contentType != null && (hasLineBreak(contentType) || !isPlainCurlType(contentType))) {
+            throw new IllegalArgumentException("表单项Content-Type无法用curl的type=表示: " + contentType);
+        }
+    }
+
+    /**
+     * 文本表单项
+     *
+     * @param name 字段名
+     * @param value 字段值
+     * @return 表单项
+     */
+    public static MultipartPart text(String name, String value) {
+        return text(name, value, null);
+    }
+
+    /**
+     * 文本表单项
+     *
+     * @param name 字段名
+     * @param value 字段值
+     * @param contentType 表单项Content-Type，为空时不指定
+     * @return 表单项
+     */
+    public static MultipartPart text(String name, String value, String contentType) {
+        return new MultipartPart(name, value != null ? value : "", null, contentType, null);
+    }
+
+    /**
+     * 文件表单项（文件名取文件本身的名称）
+     *
+     * @param name 字段名
+     * @param file 文件路径
+     * @param contentType 表单项Content-Type，为空时默认application/octet-stream
+     * @return 表单项
+     */
+    public static MultipartPart file(String name, Path file, String contentType) {
+        Objects.requireNonNull(file, "file");
+        return file(name, file, contentType, String.valueOf(file.getFileName()));
+    }
+
+    /**
+     * 文件表单项
+     *
+     * @param name 字段名
+     * @param file 文件路径
+     * @param contentType 表单项Content-Type，为空时默认application/octet-stream
+     * @param filename 上传的文件名
+     * @return 表单项
+     */
+    public static MultipartPart file(String name, Path file, String contentType, String filename) {
+        Objects.requireNonNull(file, "file");
+        return new MultipartPart(name, null, file, contentType, filename);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isFile() {
+        return file != null;
+    }
+
+    /**
+     * 渲染为curl的 -F / --form-string 参数
+     *
+     * @return 参数字符串（不含前导换行）
+     */
+    String toCurlOption() {
+        StringBuilder spec = new StringBuilder(name);
+        if (isFile()) {
+            spec.append("=@").append(curlQuoted(file.toString()));
+            if (contentType != null) {
+                spec.append(";type=").append(contentType);
+            }
+            if (filename != null) {
+                spec.append(";filename=").append(curlQuoted(filename));
+            }
+            return "-F " + CurlUtil.shellQuote(spec.toString());
+        }
+
+        // curl会把以@或<开头的值当作文件，把以"开头的值当作带引号的文本，把;后的内容当作属性，这类值只能用--form-string原样发送
+        boolean literal = value.startsWith("@") || value.startsWith("<") || value.startsWith("\"")
+                || value.contains(";");
+        if (literal && contentType != null) {
+            throw new IllegalStateException("包含特殊字符的文本表单项不支持指定Content-Type: " + name);
+        }
+        spec.append('=').append(value);
+        if (contentType != null) {
+            spec.append(";type=").append(contentType);
+        }
+        return (literal ? "--form-string " : "-F ") + CurlUtil.shellQuote(spec.toString());
+    }
+
+    /**
+     * curl -F 参数中的双引号字符串（curl只识别 \\ 和 \" 两种转义）
+     */
+    private static String curlQuoted(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Content-Type的参数是否不会被curl当作 -F 的属性：curl按 ; 切分 type= 之后的内容，
+     * 遇到 filename=、type=、headers=、encoder= 时作为属性处理，文件项中的 , 会被当作多个文件的分隔符
+     */
+    private static boolean isPlainCurlType(String contentType) {
+        if (contentType.indexOf(',') >= 0) {
+            return false;
+        }
+        String[] segments = contentType.split(";");
+        for (int i = 1; i < segments.length; i++) {
+            String parameter = segments[i].trim().toLowerCase(Locale.ROOT);
+            for (String attribute : CURL_ATTRIBUTES) {
+                if (parameter.startsWith(attribute)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasControl(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c == 0x7f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLineBreak(String text) {
+        return text.indexOf('\r') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\0') >= 0;
+    }
+}
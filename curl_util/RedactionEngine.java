@@ -0,0 +1,758 @@
+package curl_util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 敏感信息脱敏引擎
+ * 对请求头、查询参数、JSON请求体以及已生成的curl脚本做脱敏，实例不可变且线程安全
+ *
+ * <p>匹配方式：</p>
+ * <ul>
+ *     <li>敏感键名：预编译为不区分大小写的多模式自动机（Aho-Corasick），一次扫描判断键名是否包含任一敏感词</li>
+ *     <li>敏感值：多个正则合并为一个预编译的正则，一次扫描替换所有命中片段</li>
+ * </ul>
+ *
+ * @author shenmiren21
+ */
+public final class RedactionEngine {
+
+    /** 默认敏感键名（与 CurlUtil.maskSensitiveHeaders 一致） */
+    public static final List<String> DEFAULT_KEYS = List.of("authorization", "token", "password", "secret");
+
+    /** 默认敏感值：Bearer令牌、JWT */
+    public static final List<String> DEFAULT_VALUE_PATTERNS = List.of(
+            "(?i)bearer\\s+[A-Za-z0-9._~+/=-]+",
+            "eyJ[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*");
+
+    public static final String DEFAULT_MASK = "***";
+
+    private static final RedactionEngine DEFAULT = of(DEFAULT_KEYS, DEFAULT_VALUE_PATTERNS);
+    private static final RedactionEngine KEYS_ONLY = of(DEFAULT_KEYS, Collections.emptyList());
+
+    /** 自动机只处理ASCII，非ASCII字符一律回到初始状态 */
+    private static final int ALPHABET = 128;
+
+    /** 双引号参数内容（保留反斜杠转义） */
+    private static final String DOUBLE_QUOTED = "(?:[^\"\\\\]|\\\\.)*";
+    /** 单引号参数内容（' 写成 '\''） */
+    private static final String SINGLE_QUOTED = "(?:[^']|'\\\\'')*";
+
+    /**
+     * CurlUtil生成的各种curl参数合并为一个正则，每行只扫描一次，按命中的命名分组区分参数类型：
+     * 单引号的请求头、URL、请求体，包含控制字符时渲染为 $'...' 的请求体，以及旧版双引号写法的请求头、URL和 -d 请求体
+     */
+    private static final Pattern SCRIPT_OPTION = Pattern.compile(
+            "-H '(?<qhKey>[^:']+):\\s*(?<qhValue>" + SINGLE_QUOTED + ")'"
+                    + "|curl -X [A-Z]+ '(?<quUrl>" + SINGLE_QUOTED + ")'"
+                    + "|--data-binary (?<edBody>\\$'(?:[^'\\\\]|\\\\.)*')"
+                    + "|--data-binary '(?<qdBody>" + SINGLE_QUOTED + ")'"
+                    + "|-H \"(?<dhKey>[^:\"]+):\\s*(?<dhValue>" + DOUBLE_QUOTED + ")\""
+                    + "|curl -X [A-Z]+ \"(?<duUrl>" + DOUBLE_QUOTED + ")\""
+                    + "|-d \"(?<ddBody>" + DOUBLE_QUOTED + ")\"");
+
+    /** SCRIPT_OPTION中各参数值的分组名 */
+    private static final String[] SCRIPT_VALUE_GROUPS = {
+            "qhValue", "quUrl", "edBody", "qdBody", "dhValue", "duUrl", "ddBody"};
+
+    private final int[][] transitions;
+    private final boolean[] accepting;
+    private final Pattern valuePattern;
+    private final String mask;
+
+    private RedactionEngine(int[][] transitions, boolean[] accepting, Pattern valuePattern, String mask) {
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.valuePattern = valuePattern;
+        this.mask = mask;
+    }
+
+    /**
+     * 默认引擎：默认敏感键名 + 默认敏感值规则
+     */
+    public static RedactionEngine defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * 只按默认敏感键名脱敏（CurlUtil.maskSensitiveHeaders 的行为）
+     */
+    public static RedactionEngine keysOnly() {
+        return KEYS_ONLY;
+    }
+
+    /**
+     * 创建脱敏引擎
+     *
+     * @param keys 敏感键名片段（不区分大小写，键名包含任一片段即视为敏感）
+     * @param valuePatterns 敏感值正则
+     * @return 脱敏引擎
+     */
+    public static RedactionEngine of(Collection<String> keys, Collection<String> valuePatterns) {
+        return of(keys, valuePatterns, DEFAULT_MASK);
+    }
+
+    /**
+     * 创建脱敏引擎
+     *
+     * @param keys 敏感键名片段（不区分大小写，键名包含任一片段即视为敏感）
+     * @param valuePatterns 敏感值正则
+     * @param mask 替换文本
+     * @return 脱敏引擎
+     */
+    public static RedactionEngine of(Collection<String> keys, Collection<String> valuePatterns, String mask) {
+        Pattern combined = null;
+        if (valuePatterns != null && !valuePatterns.isEmpty()) {
+            StringBuilder regex = new StringBuilder();
+            for (String pattern : valuePatterns) {
+                if (regex.length() > 0) {
+                    regex.append('|');
+                }
+                regex.append("(?:").append(pattern).append(')');
+            }
+            combined = Pattern.compile(regex.toString());
+        }
+        return buildAutomaton(keys != null ? keys : Collections.emptyList(), combined, mask);
+    }
+
+    /**
+     * 键名是否敏感（包含任一敏感片段，不区分大小写）
+     *
+     * @param key 键名
+     * @return 是否敏感
+     */
+    public boolean isSensitiveKey(CharSequence key) {
+        if (key == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 对值中命中敏感规则的片段做替换
+     *
+     * @param value 原始值
+     * @return 脱敏后的值
+     */
+    public String redactValue(String value) {
+        if (value == null || valuePattern == null) {
+            return value;
+        }
+        Matcher matcher = valuePattern.matcher(value);
+        if (!matcher.find()) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        int last = 0;
+        do {
+            result.append(value, last, matcher.start()).append(mask);
+            last = matcher.end();
+        } while (matcher.find());
+        return result.append(value, last, value.length()).toString();
+    }
+
+    /**
+     * 请求头脱敏（保持原有顺序，返回新的Map）
+     *
+     * @param headers 原始请求头
+     * @return 脱敏后的请求头
+     */
+    public Map<String, String> redactHeaders(Map<String, String> headers) {
+        if (headers == null) {
+            return null;
+        }
+        Map<String, String> safeHeaders = new LinkedHashMap<>(Math.max(16, headers.size() * 2));
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            safeHeaders.put(entry.getKey(),
+                    isSensitiveKey(entry.getKey()) ? mask : redactValue(entry.getValue()));
+        }
+        return safeHeaders;
+    }
+
+    /**
+     * 参数脱敏（查询参数或表单参数）
+     *
+     * @param params 原始参数
+     * @return 脱敏后的参数
+     */
+    public Map<String, Object> redactParams(Map<String, Object> params) {
+        if (params == null) {
+            return null;
+        }
+        Map<String, Object> safeParams = new LinkedHashMap<>(Math.max(16, params.size() * 2));
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            Object value = entry.getValue();
+            if (isSensitiveKey(entry.getKey())) {
+                value = mask;
+            } else if (value instanceof String) {
+                value = redactValue((String) value);
+            }
+            safeParams.put(entry.getKey(), value);
+        }
+        return safeParams;
+    }
+
+    /**
+     * URL查询参数脱敏
+     *
+     * @param url 原始URL
+     * @return 脱敏后的URL
+     */
+    public String redactUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return url;
+        }
+        int fragment = url.indexOf('#', query);
+        int end = fragment >= 0 ? fragment : url.length();
+        StringBuilder result = new StringBuilder(url.length()).append(url, 0, query + 1);
+        int start = query + 1;
+        while (start <= end) {
+            int amp = url.indexOf('&', start);
+            int pairEnd = amp >= 0 && amp < end ? amp : end;
+            int eq = url.indexOf('=', start);
+            if (eq >= 0 && eq < pairEnd) {
+                result.append(url, start, eq + 1);
+                if (isSensitiveKey(url.subSequence(start, eq))) {
+                    result.append(mask);
+                } else {
+                    result.append(redactValue(url.substring(eq + 1, pairEnd)));
+                }
+            } else {
+                result.append(url, start, pairEnd);
+            }
+            if (pairEnd == end) {
+                break;
+            }
+            result.append('&');
+            start = pairEnd + 1;
+        }
+        return result.append(url, end, url.length()).toString();
+    }
+
+    /**
+     * JSON脱敏（敏感键的值整体替换为掩码，其余字符串值按敏感值规则替换）
+     * 输入不是合法JSON时只按敏感值规则替换
+     *
+     * @param json 原始JSON
+     * @return 脱敏后的JSON
+     */
+    public String redactJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return json;
+        }
+        StringWriter out = new StringWriter(json.length());
+        try {
+            redactJson(new StringReader(json), out);
+            return out.toString();
+        } catch (IOException e) {
+            return redactValue(json);
+        }
+    }
+
+    /**
+     * 流式JSON脱敏，边读边写，不构建JSON对象
+     *
+     * @param in 输入
+     * @param out 输出
+     */
+    public void redactJson(Reader in, Writer out) throws IOException {
+        new JsonRedactor(in, out).document();
+    }
+
+    /**
+     * 脚本文件脱敏（逐行流式处理）
+     *
+     * @param input 原始脚本
+     * @param output 输出脚本
+     */
+    public void redactScript(Path input, Path output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            redactScript(reader, writer);
+        }
+    }
+
+    /**
+     * 脚本脱敏（逐行流式处理）
+     * 识别CurlUtil生成的 -H 请求头、请求URL和 --data-binary / -d 请求体（单引号和旧版双引号两种写法），
+     * 其他内容按敏感值规则替换
+     *
+     * @param in 输入
+     * @param out 输出
+     */
+    public void redactScript(Reader in, Writer out) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            out.write(redactScriptLine(line));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * 单行curl脚本脱敏，行内的每个请求头、URL和请求体都会处理（整行只做一次正则扫描）
+     *
+     * @param line 脚本行
+     * @return 脱敏后的行
+     */
+    public String redactScriptLine(String line) {
+        Matcher matcher = SCRIPT_OPTION.matcher(line);
+        if (!matcher.find()) {
+            // 没有可识别的curl参数时按敏感值规则处理整行
+            return redactValue(line);
+        }
+        StringBuilder result = new StringBuilder(line.length());
+        int last = 0;
+        do {
+            String group = matchedGroup(matcher);
+            result.append(line, last, matcher.start(group)).append(redactOption(matcher, group));
+            last = matcher.end(group);
+        } while (matcher.find());
+        return result.append(line, last, line.length()).toString();
+    }
+
+    /**
+     * 命中的参数值分组名
+     */
+    private static String matchedGroup(Matcher matcher) {
+        for (String group : SCRIPT_VALUE_GROUPS) {
+            if (matcher.start(group) >= 0) {
+                return group;
+            }
+        }
+        throw new IllegalStateException("未知的curl参数: " + matcher.group());
+    }
+
+    /**
+     * 脱敏一个curl参数的值，返回的文本保持原有的引号写法
+     */
+    private String redactOption(Matcher matcher, String group) {
+        String value = matcher.group(group);
+        switch (group) {
+            case "qhValue":
+                return quote(isSensitiveKey(matcher.group("qhKey")) ? mask : redactValue(unquote(value)));
+            case "quUrl":
+                return quote(redactUrl(unquote(value)));
+            case "edBody":
+                return CurlUtil.shellQuote(redactBody(unescape(value.substring(2, value.length() - 1))));
+            case "qdBody":
+                return quote(redactBody(unquote(value)));
+            case "dhValue":
+                return isSensitiveKey(matcher.group("dhKey")) ? mask : redactValue(value);
+            case "duUrl":
+                return redactUrl(value);
+            default:
+                return redactBody(value.replace("\\\"", "\"")).replace("\"", "\\\"");
+        }
+    }
+
+    /**
+     * 请求体脱敏，按Content-Type选择处理方式：JSON按键名处理，x-www-form-urlencoded按表单参数处理，
+     * 其他类型（XML、纯文本、multipart等）只按敏感值规则替换，不改动结构；Content-Type缺失时按请求体形态判断
+     *
+     * @param body 请求体
+     * @param contentType Content-Type请求头，可以为null
+     * @return 脱敏后的请求体
+     */
+    public String redactBody(String body, String contentType) {
+        if (body == null || body.isEmpty()) {
+            return body;
+        }
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        if (type.contains("json")) {
+            return redactJson(body);
+        }
+        if (type.contains("application/x-www-form-urlencoded")) {
+            return redactForm(body);
+        }
+        return type.trim().isEmpty() ? redactBody(body) : redactValue(body);
+    }
+
+    /**
+     * 按请求体形态脱敏：以 { 或 [ 开头按JSON处理，形如 key=value&... 时按表单处理，其他只按敏感值规则替换
+     */
+    private String redactBody(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            return redactJson(body);
+        }
+        return isFormShaped(body) ? redactForm(body) : redactValue(body);
+    }
+
+    /**
+     * 是否形如 key=value&...：第一个参数带 '='，每个键名非空且不含空白和 &lt; &gt; " 等标记字符
+     */
+    private static boolean isFormShaped(String body) {
+        boolean first = true;
+        boolean inKey = true;
+        int keyStart = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '&') {
+                if (first && inKey) {
+                    return false;
+                }
+                first = false;
+                inKey = true;
+                keyStart = i + 1;
+            } else if (inKey) {
+                if (c == '=') {
+                    if (i == keyStart) {
+                        return false;
+                    }
+                    inKey = false;
+                } else if (Character.isWhitespace(c) || c == '<' || c == '>' || c == '"') {
+                    return false;
+                }
+            }
+        }
+        return !(first && inKey);
+    }
+
+    private String redactForm(String body) {
+        return redactUrl("?" + body).substring(1);
+    }
+
+    private static String unquote(String quoted) {
+        return quoted.replace("'\\''", "'");
+    }
+
+    private static String quote(String text) {
+        return text.replace("'", "'\\''");
+    }
+
+    /**
+     * 还原 $'...' 中的转义（CurlUtil.shellQuote 的逆过程）
+     */
+    private static String unescape(String escaped) {
+        StringBuilder text = new StringBuilder(escaped.length());
+        for (int i = 0; i < escaped.length(); i++) {
+            char c = escaped.charAt(i);
+            if (c != '\\' || i + 1 >= escaped.length()) {
+                text.append(c);
+                continue;
+            }
+            char next = escaped.charAt(++i);
+            switch (next) {
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'x':
+                    if (i + 2 < escaped.length()) {
+                        text.append((char) Integer.parseInt(escaped.substring(i + 1, i + 3), 16));
+                        i += 2;
+                        break;
+                    }
+                    text.append(next);
+                    break;
+                default:
+                    text.append(next);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 构建Aho-Corasick自动机，并把失败链接展开为完整的状态转移表（匹配时每个字符只查一次表）
+     */
+    private static RedactionEngine buildAutomaton(Collection<String> keys, Pattern valuePattern, String mask) {
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Boolean> output = new ArrayList<>();
+        gotoTable.add(newRow());
+        output.add(false);
+
+        for (String key : keys) {
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (char c : key.toLowerCase(Locale.ROOT).toCharArray()) {
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("敏感键名只支持ASCII字符: " + key);
+                }
+                if (gotoTable.get(state)[c] < 0) {
+                    gotoTable.get(state)[c] = gotoTable.size();
+                    gotoTable.add(newRow());
+                    output.add(false);
+                }
+                state = gotoTable.get(state)[c];
+            }
+            output.set(state, true);
+        }
+
+        int size = gotoTable.size();
+        int[][] transitions = gotoTable.toArray(new int[size][]);
+        boolean[] accepting = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            accepting[i] = output.get(i);
+        }
+
+        int[] failure = new int[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] |= accepting[failure[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+        return new RedactionEngine(transitions, accepting, valuePattern, mask);
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 流式JSON脱敏器：逐字符复制输入，遇到敏感键时跳过其值并写入掩码
+     */
+    private final class JsonRedactor {
+
+        private final Reader in;
+        private final Writer out;
+        private int peeked = -2;
+
+        JsonRedactor(Reader in, Writer out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        void document() throws IOException {
+            copyWhitespace();
+            value();
+            copyWhitespace();
+            if (peek() >= 0) {
+                throw new IOException("JSON之后存在多余内容");
+            }
+            out.flush();
+        }
+
+        private void value() throws IOException {
+            int c = peek();
+            if (c == '{') {
+                object();
+            } else if (c == '[') {
+                array();
+            } else if (c == '"') {
+                out.write('"');
+                out.write(redactValue(readRawString()));
+                out.write('"');
+            } else if (c >= 0) {
+                copyLiteral();
+            } else {
+                throw new IOException("意外的输入结束");
+            }
+        }
+
+        private void object() throws IOException {
+            out.write(next());
+            copyWhitespace();
+            if (peek() == '}') {
+                out.write(next());
+                return;
+            }
+            while (true) {
+                copyWhitespace();
+                if (peek() != '"') {
+                    throw new IOException("期望对象键名");
+                }
+                String key = readRawString();
+                out.write('"');
+                out.write(key);
+                out.write('"');
+                copyWhitespace();
+                if (peek() != ':') {
+                    throw new IOException("期望 ':'");
+                }
+                out.write(next());
+                copyWhitespace();
+                if (isSensitiveKey(key)) {
+                    skipValue();
+                    out.write('"');
+                    out.write(mask);
+                    out.write('"');
+                } else {
+                    value();
+                }
+                copyWhitespace();
+                int c = next();
+                if (c < 0) {
+                    throw new IOException("对象未结束");
+                }
+                out.write(c);
+                if (c == '}') {
+                    return;
+                }
+                if (c != ',') {
+                    throw new IOException("期望 ',' 或 '}'");
+                }
+            }
+        }
+
+        private void array() throws IOException {
+            out.write(next());
+            copyWhitespace();
+            if (peek() == ']') {
+                out.write(next());
+                return;
+            }
+            while (true) {
+                copyWhitespace();
+                value();
+                copyWhitespace();
+                int c = next();
+                if (c < 0) {
+                    throw new IOException("数组未结束");
+                }
+                out.write(c);
+                if (c == ']') {
+                    return;
+                }
+                if (c != ',') {
+                    throw new IOException("期望 ',' 或 ']'");
+                }
+            }
+        }
+
+        /**
+         * 读取字符串内容（保留转义，不含两侧引号）
+         */
+        private String readRawString() throws IOException {
+            next();
+            StringBuilder raw = new StringBuilder();
+            while (true) {
+                int c = next();
+                if (c < 0) {
+                    throw new IOException("字符串未结束");
+                }
+                if (c == '"') {
+                    return raw.toString();
+                }
+                raw.append((char) c);
+                if (c == '\\') {
+                    int escaped = next();
+                    if (escaped < 0) {
+                        throw new IOException("字符串未结束");
+                    }
+                    raw.append((char) escaped);
+                }
+            }
+        }
+
+        private void skipValue() throws IOException {
+            int c = peek();
+            if (c == '"') {
+                readRawString();
+                return;
+            }
+            if (c != '{' && c != '[') {
+                while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                    next();
+                }
+                return;
+            }
+            int depth = 0;
+            do {
+                c = peek();
+                if (c < 0) {
+                    throw new IOException("意外的输入结束");
+                }
+                if (c == '"') {
+                    readRawString();
+                    continue;
+                }
+                next();
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        private void copyLiteral() throws IOException {
+            int c;
+            while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                out.write(next());
+            }
+        }
+
+        private void copyWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) >= 0 && Character.isWhitespace(c)) {
+                out.write(next());
+            }
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            peeked = -2;
+            return c;
+        }
+    }
+}
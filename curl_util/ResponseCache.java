@@ -0,0 +1,798 @@
+package curl_util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * 响应缓存
+ * 供 CurlExecutor 使用的客户端HTTP缓存：按 方法 + 最终URL + 相关请求头 缓存GET响应，
+ * 遵循 Cache-Control 的 max-age / no-cache / no-store（以及Expires、Age、Vary），
+ * 过期后用 If-None-Match / If-Modified-Since 发起条件请求，收到304时直接复用缓存的响应体
+ *
+ * <p>内存层按字节数做LRU淘汰，配置磁盘层后被淘汰的条目写入磁盘目录（同样按字节数LRU），
+ * 再次命中时移回内存；磁盘层在重启后仍然可用。写入和删除磁盘文件在释放缓存锁之后进行，不阻塞其他线程查找缓存。缓存键和Vary请求头值只保存SHA-256摘要，
+ * Authorization等请求头不会以明文写入磁盘</p>
+ *
+ * @author shenmiren21
+ */
+public class ResponseCache {
+
+    private static final Logger logger = Logger.getLogger(ResponseCache.class.getName());
+    private static final String LOG_PREFIX = "[ResponseCache]";
+
+    /** 默认参与缓存键的请求头 */
+    public static final List<String> DEFAULT_KEY_HEADERS = List.of(
+            "Accept", "Accept-Encoding", "Accept-Language", "Authorization");
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+
+    /** 条目除响应体外的估算开销（字节） */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final long maxMemoryBytes;
+    private volatile long maxEntryBytes;
+    private volatile List<String> keyHeaders = DEFAULT_KEY_HEADERS;
+    private volatile Path directory;
+    private volatile long maxDiskBytes;
+
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    /** 已从内存层淘汰、等待写入磁盘的条目；被新条目替换或失效时移除，写入线程据此放弃过时的写入 */
+    private final Map<String, Entry> spilling = new HashMap<>();
+    /** 串行化磁盘文件的写入和删除（不持有缓存锁） */
+    private final Object diskLock = new Object();
+    private long memoryBytes;
+    private long diskBytes;
+
+    private long hits;
+    private long revalidations;
+    private long misses;
+    private long stores;
+    private long evictions;
+
+    /**
+     * @param maxMemoryBytes 内存层最大字节数
+     */
+    public ResponseCache(long maxMemoryBytes) {
+        if (maxMemoryBytes <= 0) {
+            throw new IllegalArgumentException("缓存大小必须大于0: " + maxMemoryBytes);
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxEntryBytes = Math.min(maxMemoryBytes / 4, 8L * 1024 * 1024);
+    }
+
+    /**
+     * 开启磁盘层，加载目录中已有的缓存条目
+     *
+     * @param directory 缓存目录
+     * @param maxDiskBytes 磁盘层最大字节数
+     */
+    public synchronized ResponseCache diskTier(Path directory, long maxDiskBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        loadDiskIndex();
+        return this;
+    }
+
+    /**
+     * 单个响应体的最大缓存字节数，超过时不缓存（默认为内存层的1/4，最多8MB）
+     */
+    public synchronized ResponseCache maxEntryBytes(long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+        return this;
+    }
+
+    /**
+     * 参与缓存键的请求头（默认 Accept、Accept-Encoding、Accept-Language、Authorization）
+     */
+    public synchronized ResponseCache keyHeaders(String... names) {
+        this.keyHeaders = List.of(names);
+        return this;
+    }
+
+    /**
+     * 请求是否使用缓存：只缓存GET请求，请求头带 Cache-Control: no-store 时跳过；
+     * 请求的 max-age=N 限制可直接使用的缓存年龄（max-age=0 时每次都发起条件请求）
+     */
+    boolean isCacheable(CurlRequest request) {
+        return request.getMethod() == CurlUtil.HttpMethod.GET
+                && !hasDirective(header(request.getHeaders(), "Cache-Control"), "no-store");
+    }
+
+    /**
+     * 已缓存响应的条件请求头（If-None-Match / If-Modified-Since），可以加入生成的curl命令中
+     *
+     * @param request 请求定义
+     * @return 条件请求头，没有缓存或缓存没有校验器时为空
+     */
+    public synchronized Map<String, String> conditionalHeaders(CurlRequest request) {
+        if (!isCacheable(request)) {
+            return Collections.emptyMap();
+        }
+        String key = key(request);
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = disk.get(key);
+        }
+        return entry != null && entry.varyMatches(request) ? entry.validators(request) : Collections.emptyMap();
+    }
+
+    /**
+     * 通过缓存执行请求
+     *
+     * @param request 请求定义
+     * @param exchange 实际发送请求，参数为需要追加的条件请求头
+     * @return 响应（命中缓存时响应体来自缓存）
+     */
+    CurlResponse execute(CurlRequest request, Exchange exchange) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        String key = key(request);
+        Entry entry = lookup(key, request);
+        String requestCacheControl = header(request.getHeaders(), "Cache-Control");
+        boolean forceRevalidate = hasDirective(requestCacheControl, "no-cache")
+                || hasDirective(header(request.getHeaders(), "Pragma"), "no-cache");
+        long requestMaxAge = directiveValue(requestCacheControl, "max-age");
+        long now = System.currentTimeMillis();
+
+        if (entry != null && !forceRevalidate && entry.isFresh(now)
+                && (requestMaxAge < 0 || entry.ageMillis(now) < requestMaxAge * 1000)) {
+            synchronized (this) {
+                hits++;
+            }
+            logger.fine(LOG_PREFIX + " 命中缓存: " + request);
+            return entry.toResponse(System.nanoTime() - start);
+        }
+
+        CurlResponse response = exchange.send(entry != null ? entry.validators(request) : Collections.emptyMap());
+        if (entry != null && response.getStatusCode() == 304) {
+            response.close();
+            Entry refreshed = entry.refresh(response.getHeaders(), System.currentTimeMillis());
+            DiskWork work = new DiskWork();
+            synchronized (this) {
+                revalidations++;
+                putMemory(refreshed, work);
+            }
+            flush(work);
+            logger.fine(LOG_PREFIX + " 304，复用缓存: " + request);
+            return refreshed.toResponse(response.getElapsedNanos());
+        }
+
+        synchronized (this) {
+            misses++;
+        }
+        return store(key, request, response);
+    }
+
+    /**
+     * 缓存可缓存的响应；响应体超过单条上限时不缓存，已读取的部分与剩余的流拼接后返回。
+     * 新响应不可缓存时（no-store、非200等）移除该键已有的条目，之后的请求不会再用到旧响应
+     */
+    private CurlResponse store(String key, CurlRequest request, CurlResponse response) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<String, List<String>> headers = response.getHeaders();
+        String cacheControl = join(headers.get("Cache-Control"));
+        String vary = join(headers.get("Vary"));
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        long freshMillis = freshnessMillis(headers, now);
+        if (response.getStatusCode() != 200
+                || hasDirective(cacheControl, "no-store")
+                || (vary != null && vary.trim().equals("*"))
+                || (freshMillis <= 0 && etag == null && lastModified == null)) {
+            invalidate(key);
+            return response;
+        }
+
+        InputStream body = response.getBody();
+        byte[] bytes = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxEntryBytes + 1));
+        if (bytes.length > maxEntryBytes) {
+            logger.fine(LOG_PREFIX + " 响应体超过单条缓存上限，不缓存: " + request);
+            invalidate(key);
+            return new CurlResponse(response.getStatusCode(), headers,
+                    new SequenceInputStream(new ByteArrayInputStream(bytes), body),
+                    response.getElapsedNanos(), response.getCompressionStats());
+        }
+        body.close();
+
+        Entry entry = new Entry(key, response.getStatusCode(), headers, now, freshMillis,
+                etag, lastModified, varyValues(vary, request), bytes, bytes.length);
+        DiskWork work = new DiskWork();
+        synchronized (this) {
+            stores++;
+            putMemory(entry, work);
+        }
+        flush(work);
+        return new CurlResponse(response.getStatusCode(), headers, new ByteArrayInputStream(bytes),
+                response.getElapsedNanos(), response.getCompressionStats());
+    }
+
+    /**
+     * 查找条目，磁盘层命中时移回内存层
+     * 条目不可变，返回后即使被其他线程淘汰到磁盘层，调用方持有的条目仍然带有响应体
+     */
+    private Entry lookup(String key, CurlRequest request) {
+        DiskWork work = new DiskWork();
+        Entry entry;
+        synchronized (this) {
+            entry = memory.get(key);
+            if (entry == null) {
+                Entry onDisk = disk.remove(key);
+                if (onDisk != null) {
+                    diskBytes -= onDisk.size;
+                    work.deletes.add(key);
+                    try {
+                        entry = onDisk.withBody(Files.readAllBytes(bodyFile(key)));
+                        putMemory(entry, work);
+                    } catch (IOException e) {
+                        logger.warning(LOG_PREFIX + " 读取磁盘缓存失败: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        flush(work);
+        return entry != null && entry.varyMatches(request) ? entry : null;
+    }
+
+    /**
+     * 移除键对应的内存层和磁盘层条目
+     */
+    private void invalidate(String key) {
+        DiskWork work = new DiskWork();
+        synchronized (this) {
+            Entry inMemory = memory.remove(key);
+            if (inMemory != null) {
+                memoryBytes -= inMemory.size;
+            }
+            Entry onDisk = disk.remove(key);
+            if (onDisk != null) {
+                diskBytes -= onDisk.size;
+            }
+            if (spilling.remove(key) != null || onDisk != null) {
+                work.deletes.add(key);
+            }
+        }
+        flush(work);
+    }
+
+    /**
+     * 放入内存层（调用方持有缓存锁），被淘汰的条目和需要删除的磁盘文件记录在work中，释放锁后由flush处理
+     */
+    private void putMemory(Entry entry, DiskWork work) {
+        Entry previous = memory.put(entry.key, entry);
+        if (previous != null) {
+            memoryBytes -= previous.size;
+        }
+        memoryBytes += entry.size;
+        // 内存层的条目更新，磁盘层和等待写入的旧版本作废
+        spilling.remove(entry.key);
+        Entry onDisk = disk.remove(entry.key);
+        if (onDisk != null) {
+            diskBytes -= onDisk.size;
+            work.deletes.add(entry.key);
+        }
+        Iterator<Entry> iterator = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            memoryBytes -= eldest.size;
+            evictions++;
+            if (directory != null && eldest.size <= maxDiskBytes) {
+                spilling.put(eldest.key, eldest);
+                work.spills.add(eldest);
+            }
+        }
+    }
+
+    /**
+     * 执行锁内记录的磁盘操作（不持有缓存锁）
+     */
+    private void flush(DiskWork work) {
+        if (work.deletes.isEmpty() && work.spills.isEmpty()) {
+            return;
+        }
+        synchronized (diskLock) {
+            for (String key : work.deletes) {
+                deleteUnusedFiles(key);
+            }
+            for (Entry entry : work.spills) {
+                spill(entry);
+            }
+        }
+    }
+
+    /**
+     * 把内存层淘汰的条目写入磁盘层（持有diskLock）
+     * 写入前后都检查条目是否仍在等待写入，写入期间被替换或失效时删除刚写入的文件
+     */
+    private void spill(Entry entry) {
+        synchronized (this) {
+            if (spilling.get(entry.key) != entry) {
+                return;
+            }
+        }
+        try {
+            Files.write(bodyFile(entry.key), entry.body);
+            try (Writer writer = Files.newBufferedWriter(metaFile(entry.key), StandardCharsets.UTF_8)) {
+                entry.toProperties().store(writer, null);
+            }
+        } catch (IOException e) {
+            logger.warning(LOG_PREFIX + " 写入磁盘缓存失败: " + e.getMessage());
+            synchronized (this) {
+                spilling.remove(entry.key, entry);
+            }
+            deleteFiles(entry.key);
+            return;
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (!spilling.remove(entry.key, entry)) {
+                evicted.add(entry.key);
+            } else {
+                disk.put(entry.key, entry.withBody(null));
+                diskBytes += entry.size;
+                Iterator<Entry> iterator = disk.values().iterator();
+                while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                    Entry eldest = iterator.next();
+                    iterator.remove();
+                    diskBytes -= eldest.size;
+                    evicted.add(eldest.key);
+                }
+            }
+        }
+        for (String key : evicted) {
+            deleteUnusedFiles(key);
+        }
+    }
+
+    /**
+     * 删除不再被磁盘层引用的缓存文件（持有diskLock）
+     */
+    private void deleteUnusedFiles(String key) {
+        synchronized (this) {
+            if (disk.containsKey(key) || spilling.containsKey(key)) {
+                return;
+            }
+        }
+        deleteFiles(key);
+    }
+
+    private void loadDiskIndex() throws IOException {
+        List<Path> metas = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+            stream.forEach(metas::add);
+        }
+        // 按修改时间从旧到新加入，保持LRU顺序
+        metas.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path meta : metas) {
+            try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                Properties properties = new Properties();
+                properties.load(reader);
+                Entry entry = Entry.fromProperties(properties);
+                if (!Files.isRegularFile(bodyFile(entry.key))) {
+                    Files.deleteIfExists(meta);
+                    continue;
+                }
+                disk.put(entry.key, entry);
+                diskBytes += entry.size;
+            } catch (IOException | RuntimeException e) {
+                logger.warning(LOG_PREFIX + " 忽略损坏的缓存条目: " + meta + ", " + e.getMessage());
+            }
+        }
+        logger.info(LOG_PREFIX + " 已加载磁盘缓存: " + disk.size() + "条, " + diskBytes + "字节");
+    }
+
+    private Path bodyFile(String key) {
+        return directory.resolve(key + BODY_SUFFIX);
+    }
+
+    private Path metaFile(String key) {
+        return directory.resolve(key + META_SUFFIX);
+    }
+
+    private void deleteFiles(String key) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(bodyFile(key));
+            Files.deleteIfExists(metaFile(key));
+        } catch (IOException e) {
+            logger.fine(LOG_PREFIX + " 删除缓存文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 清空缓存（包括磁盘层）
+     */
+    public void clear() {
+        DiskWork work = new DiskWork();
+        synchronized (this) {
+            work.deletes.addAll(disk.keySet());
+            work.deletes.addAll(spilling.keySet());
+            memory.clear();
+            disk.clear();
+            spilling.clear();
+            memoryBytes = 0;
+            diskBytes = 0;
+        }
+        flush(work);
+    }
+
+    /**
+     * 缓存键：方法 + 最终URL + 相关请求头的SHA-256
+     */
+    private String key(CurlRequest request) {
+        StringBuilder raw = new StringBuilder(request.getMethod().name()).append(' ')
+                .append(CurlUtil.buildUrlWithParams(request.getUrl(), request.getParams(), request.getMethod()));
+        for (String name : keyHeaders) {
+            String value = header(request.getHeaders(), name);
+            if (value != null) {
+                raw.append('\n').append(name.toLowerCase(Locale.ROOT)).append(':').append(value);
+            }
+        }
+        return sha256(raw.toString());
+    }
+
+    /**
+     * 响应的新鲜时长：max-age（减去Age），其次 Expires - Date；no-cache 时为0（每次都需要校验）
+     */
+    private static long freshnessMillis(Map<String, List<String>> headers, long now) {
+        String cacheControl = join(headers.get("Cache-Control"));
+        if (hasDirective(cacheControl, "no-cache")) {
+            return 0;
+        }
+        long age = parseLong(first(headers.get("Age")));
+        long maxAge = directiveValue(cacheControl, "max-age");
+        if (maxAge >= 0) {
+            return (maxAge - Math.max(0, age)) * 1000;
+        }
+        long expires = parseDate(first(headers.get("Expires")));
+        if (expires >= 0) {
+            long date = parseDate(first(headers.get("Date")));
+            return expires - (date >= 0 ? date : now);
+        }
+        return 0;
+    }
+
+    private static Map<String, String> varyValues(String vary, CurlRequest request) {
+        if (vary == null || vary.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : vary.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                String value = header(request.getHeaders(), trimmed);
+                values.put(trimmed, value == null ? "" : sha256(value));
+            }
+        }
+        return values;
+    }
+
+    static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String part : cacheControl.split(",")) {
+            String name = part.trim();
+            int eq = name.indexOf('=');
+            if ((eq >= 0 ? name.substring(0, eq).trim() : name).equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long directiveValue(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (String part : cacheControl.split(",")) {
+            String[] pair = part.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase(directive)) {
+                return parseLong(pair[1].trim().replace("\"", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long parseDate(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // 无效的Expires（如"0"）视为已过期
+            return 0;
+        }
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String first(List<String> values) {
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static String join(List<String> values) {
+        return values == null || values.isEmpty() ? null : String.join(", ", values);
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 命中且未过期、直接使用缓存的次数
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * 条件请求返回304、复用缓存响应体的次数
+     */
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * 未命中或缓存已失效、使用新响应的次数
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getStores() {
+        return stores;
+    }
+
+    /**
+     * 内存层淘汰的条目数（配置磁盘层时被写入磁盘）
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResponseCache{memory=" + memory.size() + "/" + memoryBytes + "B, disk=" + disk.size() + "/" + diskBytes
+                + "B, hits=" + hits + ", revalidations=" + revalidations + ", misses=" + misses
+                + ", stores=" + stores + ", evictions=" + evictions + "}";
+    }
+
+    /**
+     * 实际发送请求
+     */
+    @FunctionalInterface
+    interface Exchange {
+
+        /**
+         * @param conditionalHeaders 需要追加的条件请求头
+         */
+        CurlResponse send(Map<String, String> conditionalHeaders) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 锁内产生、释放锁后执行的磁盘操作
+     */
+    private static final class DiskWork {
+
+        private final List<String> deletes = new ArrayList<>();
+        private final List<Entry> spills = new ArrayList<>();
+    }
+
+    /**
+     * 缓存条目（不可变；内存层持有响应体，磁盘层只保留元数据，响应体在文件中）
+     */
+    private static final class Entry {
+
+        private final String key;
+        private final int statusCode;
+        private final Map<String, List<String>> headers;
+        private final long storedAt;
+        private final long freshMillis;
+        private final String etag;
+        private final String lastModified;
+        private final Map<String, String> varyValues;
+        private final byte[] body;
+        private final long bodyLength;
+        private final long size;
+
+        Entry(String key, int statusCode, Map<String, List<String>> headers, long storedAt, long freshMillis,
+              String etag, String lastModified, Map<String, String> varyValues, byte[] body, long bodyLength) {
+            this.key = key;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.storedAt = storedAt;
+            this.freshMillis = freshMillis;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.varyValues = varyValues;
+            this.body = body;
+            this.bodyLength = bodyLength;
+            long headerBytes = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    headerBytes += header.getKey().length() + value.length();
+                }
+            }
+            this.size = bodyLength + headerBytes + ENTRY_OVERHEAD;
+        }
+
+        /**
+         * 元数据相同、响应体不同的条目（body为null时为磁盘层条目）
+         */
+        Entry withBody(byte[] body) {
+            return new Entry(key, statusCode, headers, storedAt, freshMillis, etag, lastModified, varyValues,
+                    body, bodyLength);
+        }
+
+        boolean isFresh(long now) {
+            return freshMillis > 0 && now - storedAt < freshMillis;
+        }
+
+        /**
+         * 当前年龄：存入时响应的Age加上在缓存中的时长
+         */
+        long ageMillis(long now) {
+            return Math.max(0, parseLong(first(headers.get("Age")))) * 1000 + now - storedAt;
+        }
+
+        boolean varyMatches(CurlRequest request) {
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                String value = header(request.getHeaders(), vary.getKey());
+                if (!vary.getValue().equals(value == null ? "" : sha256(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 条件请求头（请求中已手动设置的不覆盖）
+         */
+        Map<String, String> validators(CurlRequest request) {
+            Map<String, String> validators = new LinkedHashMap<>();
+            if (etag != null && header(request.getHeaders(), "If-None-Match") == null) {
+                validators.put("If-None-Match", etag);
+            }
+            if (lastModified != null && header(request.getHeaders(), "If-Modified-Since") == null) {
+                validators.put("If-Modified-Since", lastModified);
+            }
+            return validators;
+        }
+
+        /**
+         * 304响应更新后的条目：304中的响应头覆盖缓存的同名响应头，重新计算新鲜时长
+         */
+        Entry refresh(Map<String, List<String>> notModifiedHeaders, long now) {
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(headers);
+            for (Map.Entry<String, List<String>> header : notModifiedHeaders.entrySet()) {
+                String name = header.getKey();
+                if (!"Content-Length".equalsIgnoreCase(name) && !"Content-Encoding".equalsIgnoreCase(name)
+                        && !"Transfer-Encoding".equalsIgnoreCase(name)) {
+                    merged.put(name, header.getValue());
+                }
+            }
+            return new Entry(key, statusCode, Collections.unmodifiableMap(merged), now,
+                    freshnessMillis(merged, now), first(merged.get("ETag")), first(merged.get("Last-Modified")),
+                    varyValues, body, bodyLength);
+        }
+
+        CurlResponse toResponse(long elapsedNanos) {
+            return new CurlResponse(statusCode, headers, new ByteArrayInputStream(body), elapsedNanos);
+        }
+
+        Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("key", key);
+            properties.setProperty("status", String.valueOf(statusCode));
+            properties.setProperty("storedAt", String.valueOf(storedAt));
+            properties.setProperty("freshMillis", String.valueOf(freshMillis));
+            properties.setProperty("bodyLength", String.valueOf(bodyLength));
+            if (etag != null) {
+                properties.setProperty("etag", etag);
+            }
+            if (lastModified != null) {
+                properties.setProperty("lastModified", lastModified);
+            }
+            int index = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    properties.setProperty("header." + index++, header.getKey() + ":" + value);
+                }
+            }
+            index = 0;
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                properties.setProperty("vary." + index++, vary.getKey() + ":" + vary.getValue());
+            }
+            return properties;
+        }
+
+        static Entry fromProperties(Properties properties) {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; properties.containsKey("header." + i); i++) {
+                String[] pair = properties.getProperty("header." + i).split(":", 2);
+                headers.computeIfAbsent(pair[0], name -> new ArrayList<>()).add(pair[1]);
+            }
+            Map<String, String> vary = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; properties.containsKey("vary." + i); i++) {
+                String[] pair = properties.getProperty("vary." + i).split(":", 2);
+                vary.put(pair[0], pair[1]);
+            }
+            return new Entry(properties.getProperty("key"),
+                    Integer.parseInt(properties.getProperty("status")),
+                    Collections.unmodifiableMap(headers),
+                    Long.parseLong(properties.getProperty("storedAt")),
+                    Long.parseLong(properties.getProperty("freshMillis")),
+                    properties.getProperty("etag"),
+                    properties.getProperty("lastModified"),
+                    vary,
+                    null,
+                    Long.parseLong(properties.getProperty("bodyLength")));
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package curl_util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 抓包流量导入工具
+ * 从HAR或JSONL访问日志中流式读取请求，并行转换为curl命令，按原始顺序写入分片的回放脚本
+ *
+ * <p>JSONL每行一个对象，支持的字段：method、url（或 host + path/uri）、headers（对象）、body（字符串）</p>
+ *
+ * @author shenmiren21
+ */
+public class TrafficLogImporter {
+
+    private static final Logger logger = Logger.getLogger(TrafficLogImporter.class.getName());
+    private static final String LOG_PREFIX = "[TrafficLogImporter]";
+
+    /**
+     * 抓包文件格式
+     */
+    public enum Format {
+        /** HTTP Archive（浏览器/代理导出） */
+        HAR,
+        /** 每行一个JSON对象的访问日志 */
+        JSONL;
+
+        /**
+         * 根据文件扩展名判断格式，无法识别时按JSONL处理
+         */
+        public static Format detect(Path file) {
+            String name = String.valueOf(file.getFileName()).toLowerCase(Locale.ROOT);
+            return name.endsWith(".har") ? HAR : JSONL;
+        }
+    }
+
+    /** 由curl自动计算或属于HTTP/2伪首部的请求头，回放时不保留 */
+    private static final List<String> SKIPPED_HEADERS = List.of("content-length", "host", "connection");
+
+    private final Path outputDir;
+    private String filePrefix = "replay";
+    private int shardSize = 1000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean maskSensitive = true;
+    private RedactionEngine redaction = RedactionEngine.defaults();
+
+    public TrafficLogImporter(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * 输出脚本文件名前缀，默认 replay（生成 replay-00001.sh ...）
+     */
+    public TrafficLogImporter filePrefix(String filePrefix) {
+        this.filePrefix = filePrefix;
+        return this;
+    }
+
+    /**
+     * 每个脚本文件包含的请求数，默认1000
+     */
+    public TrafficLogImporter shardSize(int shardSize) {
+        if (shardSize <= 0) {
+            throw new IllegalArgumentException("shardSize必须大于0: " + shardSize);
+        }
+        this.shardSize = shardSize;
+        return this;
+    }
+
+    /**
+     * 转换线程数，默认为CPU核数
+     */
+    public TrafficLogImporter parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism必须大于0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 是否对请求头、查询参数和请求体做脱敏（默认开启）
+     */
+    public TrafficLogImporter maskSensitive(boolean maskSensitive) {
+        this.maskSensitive = maskSensitive;
+        return this;
+    }
+
+    /**
+     * 脱敏规则，默认 RedactionEngine.defaults()
+     */
+    public TrafficLogImporter redaction(RedactionEngine redaction) {
+        this.redaction = redaction;
+        return this;
+    }
+
+    /**
+     * 导入抓包文件（根据扩展名判断格式）
+     *
+     * @param input 抓包文件
+     * @return 导入结果
+     */
+    public ImportResult importFile(Path input) throws IOException {
+        return importFile(input, Format.detect(input));
+    }
+
+    /**
+     * 导入抓包文件
+     * 读取在当前线程按顺序进行，转换在线程池中并行进行，通过有界的有序窗口保证输出顺序并限制内存占用
+     *
+     * @param input 抓包文件
+     * @param format 文件格式
+     * @return 导入结果
+     */
+    public ImportResult importFile(Path input, Format format) throws IOException {
+        Files.createDirectories(outputDir);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ImporterThreadFactory());
+        int windowSize = parallelism * 64;
+        ArrayDeque<Future<String>> window = new ArrayDeque<>(windowSize);
+        ImportResult result = new ImportResult();
+
+        try (EntrySource source = openSource(input, format);
+             ShardWriter writer = new ShardWriter(result)) {
+            CapturedEntry entry;
+            while ((entry = source.next()) != null) {
+                result.entries++;
+                CapturedEntry captured = entry;
+                window.addLast(executor.submit(() -> render(captured)));
+                if (window.size() >= windowSize) {
+                    writer.write(await(window.removeFirst()));
+                }
+            }
+            while (!window.isEmpty()) {
+                writer.write(await(window.removeFirst()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info(LOG_PREFIX + " 导入完成: " + input + ", 请求数=" + result.entries
+                + ", 跳过=" + result.skipped + ", 脚本数=" + result.shards.size());
+        return result;
+    }
+
+    /**
+     * 将单个抓包请求渲染为curl命令，无法转换时返回null
+     */
+    private String render(CapturedEntry entry) {
+        if (entry.method == null || entry.url == null) {
+            return null;
+        }
+        CurlUtil.HttpMethod method;
+        try {
+            method = CurlUtil.HttpMethod.valueOf(entry.method.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String body = entry.body != null && !entry.body.isEmpty() ? entry.body : null;
+        try {
+            if (!maskSensitive) {
+                return CurlUtil.generateCurlCommandOrThrow(method, entry.url, null, entry.headers, body);
+            }
+            return CurlUtil.generateCurlCommandOrThrow(method, redaction.redactUrl(entry.url), null,
+                    redaction.redactHeaders(entry.headers),
+                    body != null ? redaction.redactBody(body, contentType(entry.headers)) : null);
+        } catch (IllegalArgumentException e) {
+            logger.warning(LOG_PREFIX + " 跳过无法转换的请求: " + entry.method + " " + entry.url + ", 原因: "
+                    + String.valueOf(e.getMessage()).replace('\r', ' ').replace('\n', ' '));
+            return null;
+        }
+    }
+
+    /**
+     * 抓包请求头中的Content-Type（请求头名不区分大小写）
+     */
+    private static String contentType(Map<String, String> headers) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if ("Content-Type".equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String await(Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("转换curl命令失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private EntrySource openSource(Path input, Format format) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+        return format == Format.HAR ? new HarSource(reader) : new JsonlSource(reader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    private static String asString(Object value) {
+        return value != null ? String.valueOf(value) : null;
+    }
+
+    private static boolean isSkippedHeader(String name) {
+        return name == null || name.startsWith(":") || SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 抓包中的单个请求
+     */
+    private static final class CapturedEntry {
+        String method;
+        String url;
+        Map<String, String> headers = new LinkedHashMap<>();
+        String body;
+    }
+
+    /**
+     * 抓包请求来源
+     */
+    private interface EntrySource extends Closeable {
+        /**
+         * 读取下一个请求，没有更多请求时返回null
+         */
+        CapturedEntry next() throws IOException;
+    }
+
+    /**
+     * HAR来源：定位到 log.entries 数组后逐个读取，只构建request部分，response等内容直接跳过
+     */
+    private static final class HarSource implements EntrySource {
+
+        private final JsonStreamReader json;
+        private boolean inEntries;
+        private boolean finished;
+
+        HarSource(BufferedReader reader) {
+            this.json = new JsonStreamReader(reader);
+        }
+
+        @Override
+        public CapturedEntry next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            if (!inEntries && !seekEntries()) {
+                finished = true;
+                return null;
+            }
+            if (!json.hasNext()) {
+                finished = true;
+                return null;
+            }
+            CapturedEntry entry = new CapturedEntry();
+            json.beginObject();
+            while (json.hasNext()) {
+                if ("request".equals(json.nextName())) {
+                    readRequest(asMap(json.readValue()), entry);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            return entry;
+        }
+
+        private boolean seekEntries() throws IOException {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!"log".equals(json.nextName())) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginObject();
+                while (json.hasNext()) {
+                    if ("entries".equals(json.nextName())) {
+                        json.beginArray();
+                        inEntries = true;
+                        return true;
+                    }
+                    json.skipValue();
+                }
+                return false;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void readRequest(Map<String, Object> request, CapturedEntry entry) {
+            entry.method = asString(request.get("method"));
+            entry.url = asString(request.get("url"));
+            Object headers = request.get("headers");
+            if (headers instanceof List) {
+                for (Object header : (List<Object>) headers) {
+                    Map<String, Object> pair = asMap(header);
+                    String name = asString(pair.get("name"));
+                    if (!isSkippedHeader(name)) {
+                        entry.headers.put(name, asString(pair.get("value")));
+                    }
+                }
+            }
+            entry.body = asString(asMap(request.get("postData")).get("text"));
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    /**
+     * JSONL来源：逐行读取，每行单独解析
+     */
+    private static final class JsonlSource implements EntrySource {
+
+        private final BufferedReader reader;
+
+        JsonlSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public CapturedEntry next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                CapturedEntry entry = new CapturedEntry();
+                Map<String, Object> record;
+                try {
+                    record = asMap(new JsonStreamReader(new StringReader(line), line.length()).readValue());
+                } catch (IOException e) {
+                    // 单行格式错误只跳过该行，方法为空的请求会被计入skipped
+                    logger.fine(LOG_PREFIX + " 跳过无法解析的行: " + e.getMessage());
+                    return entry;
+                }
+                entry.method = asString(record.getOrDefault("method", "GET"));
+                entry.url = asString(record.get("url"));
+                if (entry.url == null && record.get("host") != null) {
+                    Object path = record.containsKey("path") ? record.get("path") : record.get("uri");
+                    String host = asString(record.get("host"));
+                    entry.url = (host.contains("://") ? host : "http://" + host) + (path != null ? path : "");
+                }
+                for (Map.Entry<String, Object> header : asMap(record.get("headers")).entrySet()) {
+                    if (!isSkippedHeader(header.getKey())) {
+                        entry.headers.put(header.getKey(), asString(header.getValue()));
+                    }
+                }
+                entry.body = asString(record.get("body"));
+                return entry;
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * 分片脚本写入器，每个分片达到shardSize后切换到新文件
+     */
+    private final class ShardWriter implements Closeable {
+
+        private final ImportResult result;
+        private Writer current;
+        private int countInShard;
+
+        ShardWriter(ImportResult result) {
+            this.result = result;
+        }
+
+        void write(String curl) throws IOException {
+            if (curl == null) {
+                result.skipped++;
+                return;
+            }
+            if (current == null || countInShard >= shardSize) {
+                rotate();
+            }
+            current.write(curl);
+            current.write("\n\n");
+            countInShard++;
+            result.written++;
+        }
+
+        private void rotate() throws IOException {
+            close();
+            Path shard = outputDir.resolve(String.format("%s-%05d.sh", filePrefix, result.shards.size() + 1));
+            current = new BufferedWriter(Files.newBufferedWriter(shard, StandardCharsets.UTF_8), 256 * 1024);
+            current.write("#!/bin/bash\n");
+            current.write("# 流量回放脚本\n");
+            current.write("# 生成时间: " + new Date() + "\n\n");
+            countInShard = 0;
+            result.shards.add(shard);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 转换线程工厂（守护线程，避免导入异常时阻止JVM退出）
+     */
+    private static final class ImporterThreadFactory implements java.util.concurrent.ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "traffic-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * 导入结果
+     */
+    public static class ImportResult {
+
+        private long entries;
+        private long written;
+        private long skipped;
+        private final List<Path> shards = new ArrayList<>();
+
+        /** 读取到的请求数 */
+        public long getEntries() {
+            return entries;
+        }
+
+        /** 成功写入脚本的请求数 */
+        public long getWritten() {
+            return written;
+        }
+
+        /** 因缺少方法/URL或方法不支持而跳过的请求数 */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /** 生成的脚本文件 */
+        public List<Path> getShards() {
+            return shards;
+        }
+    }
+}
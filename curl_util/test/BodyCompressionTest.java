@@ -0,0 +1,66 @@
+package curl_util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * BodyCompression 测试
+ *
+ * @author shenmiren21
+ */
+public class BodyCompressionTest {
+
+    private static final byte[] BODY = "{\"items\":[1,2,3,4,5,6,7,8,9]}".getBytes(StandardCharsets.UTF_8);
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("body-compression-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void sameBodyReusesCompressedFile() throws Exception {
+        BodyCompression.CompressedBody first = compress(BODY, BodyCompression.Coding.GZIP);
+        BodyCompression.CompressedBody second = compress(BODY, BodyCompression.Coding.GZIP);
+        BodyCompression.CompressedBody deflate = compress(BODY, BodyCompression.Coding.DEFLATE);
+        BodyCompression.CompressedBody other = compress("{}".getBytes(StandardCharsets.UTF_8),
+                BodyCompression.Coding.GZIP);
+
+        assertEquals(first.getPath(), second.getPath());
+        assertNotEquals(first.getPath(), deflate.getPath());
+        assertNotEquals(first.getPath(), other.getPath());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+        try (InputStream in = BodyCompression.decode(Files.newInputStream(first.getPath()),
+                BodyCompression.Coding.GZIP)) {
+            assertArrayEquals(BODY, in.readAllBytes());
+        }
+    }
+
+    private BodyCompression.CompressedBody compress(byte[] body, BodyCompression.Coding coding) throws IOException {
+        return BodyCompression.compress(new ByteArrayInputStream(body), coding, directory);
+    }
+}
@@ -0,0 +1,91 @@
+package curl_util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * CurlExecutor 测试
+ *
+ * @author shenmiren21
+ */
+public class CurlExecutorTest {
+
+    private HttpServer server;
+    private final AtomicInteger received = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        // 先到达的请求较快返回503，另一个较慢返回200
+        server.createContext("/hedge", exchange -> {
+            if (received.incrementAndGet() == 1) {
+                respond(exchange, 300, 503, "busy");
+            } else {
+                respond(exchange, 600, 200, "ok");
+            }
+        });
+        server.createContext("/bad-gzip", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            respond(exchange, 0, 200, "not gzip at all");
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void hedgeRaceWaitsForNonRetryableResponse() throws Exception {
+        ExecutionPolicy policy = new ExecutionPolicy().hedge(Duration.ofMillis(50));
+        CurlRequest request = CurlRequest.get("http://127.0.0.1:" + server.getAddress().getPort() + "/hedge");
+
+        try (CurlResponse response = new CurlExecutor().execute(request, policy)) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("ok", response.bodyAsString());
+        }
+        assertEquals(1, policy.getHedges());
+    }
+
+    @Test
+    public void undecodableBodyFailsInsteadOfReturningRawBytes() throws Exception {
+        CurlRequest request = CurlRequest.get("http://127.0.0.1:" + server.getAddress().getPort() + "/bad-gzip");
+        try {
+            new CurlExecutor().execute(request).close();
+            fail("解压失败时不应返回响应");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("gzip"));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, long delayMillis, int status, String body) throws IOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
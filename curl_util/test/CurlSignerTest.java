@@ -0,0 +1,117 @@
+package curl_util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * CurlSigner 测试：按curl实际发送的请求体重新计算签名，必须与命令中的signature一致
+ *
+ * @author shenmiren21
+ */
+public class CurlSignerTest {
+
+    private static final String APP_ID = "app-1";
+    private static final String SECRET = "s3cr3t";
+
+    private static final List<String> BODIES = Arrays.asList(
+            "{\"a\":1}",
+            "{\n  \"pretty\": true,\n  \"list\": [1, 2]\n}\n",
+            "{\"home\":\"$HOME\",\"cmd\":\"`touch PWNED`\",\"sub\":\"$(touch PWNED)\"}",
+            "{\"escaped\":\"a\\\"b\\\\c\",\"single\":\"it's\"}",
+            "{\"crlf\":\"x\"}\r\n",
+            "  ");
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("curl-signer-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void signatureMatchesBytesCurlSends() throws Exception {
+        Assume.assumeTrue("需要bash执行curl命令", FakeCurl.isAvailable());
+        CurlSigner signer = new CurlSigner(APP_ID, SECRET);
+        FakeCurl curl = new FakeCurl(directory);
+
+        for (int i = 0; i < BODIES.size(); i++) {
+            curl.runCommand(signer.signedCurl("http://signed.test/api?x=$(touch PWNED)", BODIES.get(i)));
+            List<String> args = curl.args(i);
+
+            String sent = FakeCurl.option(args, "--data-binary");
+            assertEquals(BODIES.get(i), sent);
+            String timestamp = header(args, "timestamp");
+            String nonce = header(args, "nonce");
+            String expected = hmacHex(APP_ID + "\n" + timestamp + "\n" + nonce + "\n" + sent);
+            assertEquals(expected, header(args, "signature"));
+        }
+        assertFalse(curl.exists("PWNED"));
+    }
+
+    @Test
+    public void signedCurlsKeepsOrderWithExecutor() {
+        CurlSigner signer = new CurlSigner(APP_ID, SECRET);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            String[] commands = signer.signedCurls("http://signed.test/api", BODIES, executor);
+            String[] sequential = signer.signedCurls("http://signed.test/api", BODIES);
+            assertEquals(BODIES.size(), commands.length);
+            for (int i = 0; i < commands.length; i++) {
+                assertEquals(body(sequential[i]), body(commands[i]));
+            }
+            assertArrayEquals(new String[0], signer.signedCurls("http://signed.test/api", Arrays.asList(), executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String body(String command) {
+        int index = command.indexOf("--data-binary ");
+        return index >= 0 ? command.substring(index, command.indexOf(" \\\n", index)) : "";
+    }
+
+    private static String header(List<String> args, String name) {
+        for (String header : FakeCurl.headers(args)) {
+            if (header.startsWith(name + ": ")) {
+                return header.substring(name.length() + 2);
+            }
+        }
+        throw new AssertionError("缺少请求头: " + name);
+    }
+
+    private static String hmacHex(String canonical) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : mac.doFinal(canonical.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
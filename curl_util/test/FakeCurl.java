@@ -0,0 +1,106 @@
+package curl_util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用bash执行生成的curl命令/脚本，PATH中的curl替换为只记录参数的脚本，用于检查shell传给curl的实际参数
+ *
+ * @author shenmiren21
+ */
+final class FakeCurl {
+
+    private final Path bin;
+    private final Path work;
+
+    /**
+     * @param directory 临时目录（创建 bin 和 work 子目录）
+     */
+    FakeCurl(Path directory) throws IOException {
+        this.bin = Files.createDirectories(directory.resolve("bin"));
+        this.work = Files.createDirectories(directory.resolve("work"));
+        Path curl = bin.resolve("curl");
+        // 每次调用的参数以NUL分隔写入 args-<n>
+        Files.write(curl, ("#!/bin/bash\n"
+                + "n=$(ls args-* 2>/dev/null | wc -l)\n"
+                + "printf '%s\\0' \"$@\" > args-$n\n").getBytes(StandardCharsets.UTF_8));
+        if (!curl.toFile().setExecutable(true)) {
+            throw new IOException("无法设置执行权限: " + curl);
+        }
+    }
+
+    static boolean isAvailable() {
+        return new File("/bin/bash").canExecute();
+    }
+
+    /**
+     * 执行脚本文件
+     */
+    void runScript(Path script) throws IOException, InterruptedException {
+        run(new ProcessBuilder("/bin/bash", script.toString()));
+    }
+
+    /**
+     * 执行单条命令
+     */
+    void runCommand(String command) throws IOException, InterruptedException {
+        run(new ProcessBuilder("/bin/bash", "-c", command));
+    }
+
+    private void run(ProcessBuilder builder) throws IOException, InterruptedException {
+        builder.directory(work.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("PATH", bin + File.pathSeparator + System.getenv("PATH"));
+        Process process = builder.start();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("执行超时");
+        }
+    }
+
+    /**
+     * 第n次调用curl时的参数
+     */
+    List<String> args(int invocation) throws IOException {
+        String raw = new String(Files.readAllBytes(work.resolve("args-" + invocation)), StandardCharsets.UTF_8);
+        // 每个参数以NUL结尾，最后一段为空
+        String[] parts = raw.split("\0", -1);
+        return new ArrayList<>(Arrays.asList(parts).subList(0, parts.length - 1));
+    }
+
+    /**
+     * 参数option之后的值
+     */
+    static String option(List<String> args, String option) {
+        int index = args.indexOf(option);
+        return index >= 0 && index + 1 < args.size() ? args.get(index + 1) : null;
+    }
+
+    /**
+     * 所有 -H 参数
+     */
+    static List<String> headers(List<String> args) {
+        List<String> headers = new ArrayList<>();
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if ("-H".equals(args.get(i))) {
+                headers.add(args.get(i + 1));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 工作目录中是否存在文件（检查命令注入）
+     */
+    boolean exists(String name) {
+        return Files.exists(work.resolve(name));
+    }
+}
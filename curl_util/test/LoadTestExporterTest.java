@@ -0,0 +1,183 @@
+package curl_util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LoadTestExporter 测试
+ *
+ * @author shenmiren21
+ */
+public class LoadTestExporterTest {
+
+    private static final String BODY = "{\"id\":1,\"name\":\"压测\"}";
+
+    /** 用node模拟k6模块：k6/crypto、k6/encoding 用node的crypto和Buffer实现，每次请求输出一行JSON */
+    private static final String K6_SHIM = String.join("\n",
+            "const nodeCrypto = require('crypto');",
+            "const http = { request: (method, url, body, params) => console.log(JSON.stringify(params.headers)) };",
+            "const check = () => true;",
+            "const sleep = () => {};",
+            "const crypto = {",
+            "  randomBytes: (n) => new Uint8Array(nodeCrypto.randomBytes(n)).buffer,",
+            "  hmac: (alg, secret, data, enc) =>",
+            "    nodeCrypto.createHmac(alg, Buffer.from(secret)).update(data, 'utf8').digest(enc),",
+            "};",
+            "const encoding = {",
+            "  b64decode: (s) => new Uint8Array(Buffer.from(s, 'base64')).buffer,",
+            "  b64encode: (b) => Buffer.from(b).toString('base64'),",
+            "};",
+            "");
+
+    private static final Pattern HEADER = Pattern.compile("\"(timestamp|nonce|signature|appId)\":\"([^\"]*)\"");
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("load-test-export");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void k6SignsEveryIteration() throws Exception {
+        Assume.assumeTrue("需要node执行k6脚本", new File("/usr/bin/node").canExecute());
+        CurlSigner signer = new CurlSigner("app-1", "secret-key");
+        CurlRequest request = signer.signedRequest("http://load.test/api", BODY);
+        String script = new LoadTestExporter().add("signed", request, 1, signer).toK6Script();
+        assertFalse(script.contains(request.getHeaders().get("nonce")));
+
+        String runnable = K6_SHIM + script.replaceAll("(?m)^import .*$", "")
+                .replace("export const options", "const options")
+                .replace("export default function ()", "function iteration()")
+                + "\nfor (let i = 0; i < 3; i++) { iteration(); }\n";
+        Path js = Files.write(directory.resolve("k6.cjs"), runnable.getBytes(StandardCharsets.UTF_8));
+        List<String> lines = run("/usr/bin/node", js.toString());
+
+        assertEquals(3, lines.size());
+        Set<String> nonces = new HashSet<>();
+        for (String line : lines) {
+            Matcher matcher = HEADER.matcher(line);
+            String timestamp = null;
+            String nonce = null;
+            String signature = null;
+            while (matcher.find()) {
+                switch (matcher.group(1)) {
+                    case "timestamp":
+                        timestamp = matcher.group(2);
+                        break;
+                    case "nonce":
+                        nonce = matcher.group(2);
+                        break;
+                    case "signature":
+                        signature = matcher.group(2);
+                        break;
+                    default:
+                        assertEquals("app-1", matcher.group(2));
+                }
+            }
+            nonces.add(nonce);
+            assertEquals(hmacHex("secret-key", "app-1\n" + timestamp + "\n" + nonce + "\n" + BODY), signature);
+        }
+        assertEquals(3, nonces.size());
+    }
+
+    @Test
+    public void signedRequestsAreSignedPerIterationInWrkAndJMeter() {
+        CurlSigner signer = new CurlSigner("app-1", "secret-key");
+        CurlRequest request = signer.signedRequest("http://load.test/api", BODY);
+        LoadTestExporter exporter = new LoadTestExporter().add("signed", request, 1, signer);
+
+        String lua = exporter.toWrkLua();
+        assertTrue(lua.contains("local function hmac_sha256(key, msg)"));
+        assertTrue(lua.contains("return wrk.format(r.method, r.path, sign(r), bodies[i])"));
+        assertFalse(lua.contains(request.getHeaders().get("signature")));
+
+        String jmx = exporter.toJMeterPlan();
+        assertTrue(jmx.contains("JSR223PreProcessor"));
+        assertTrue(jmx.contains("${sign_signature}"));
+        assertFalse(jmx.contains(request.getHeaders().get("signature")));
+    }
+
+    @Test
+    public void compressedRequestSendsCompressedBody() throws Exception {
+        CurlRequest request = CurlRequest.post("http://load.test/api").jsonBody(BODY)
+                .compress(BodyCompression.Coding.GZIP, directory);
+        String script = new LoadTestExporter().add(request).toK6Script();
+
+        assertTrue(script.contains("'Content-Encoding': 'gzip'"));
+        Matcher open = Pattern.compile("open\\('([^']+)', 'b'\\)").matcher(script);
+        assertTrue(script, open.find());
+        try (InputStream in = BodyCompression.decode(Files.newInputStream(Paths.get(open.group(1))),
+                BodyCompression.Coding.GZIP)) {
+            assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void fileContentTypeIsFoundCaseInsensitively() throws Exception {
+        Path body = Files.write(directory.resolve("body.xml"), "<a/>".getBytes(StandardCharsets.UTF_8));
+        CurlRequest request = CurlRequest.post("http://load.test/api")
+                .body(BodySource.ofPath(body, null))
+                .header("content-type", "application/xml");
+        String jmx = new LoadTestExporter().add(request).toJMeterPlan();
+        assertTrue(jmx, jmx.contains("<stringProp name=\"File.mimetype\">application/xml</stringProp>"));
+    }
+
+    private static List<String> run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = process.getInputStream()) {
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(String.join("\n", lines), 0, process.exitValue());
+        return lines;
+    }
+
+    private static String hmacHex(String secret, String canonical) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : mac.doFinal(canonical.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package curl_util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MultipartPart 测试：用真实的curl执行生成的命令，检查服务端收到的表单内容
+ *
+ * @author shenmiren21
+ */
+public class MultipartPartTest {
+
+    private Path directory;
+    private HttpServer server;
+    private final AtomicReference<String> received = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("multipart-test");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/upload", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                received.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void pathsAndFilenamesWithSeparatorsAreUploadedIntact() throws Exception {
+        Assume.assumeTrue("需要bash和curl", new File("/bin/bash").canExecute() && new File("/usr/bin/curl").canExecute());
+        Path folder = Files.createDirectory(directory.resolve("a;b,c \"d\" 'e' $(touch PWNED)"));
+        Path file = Files.write(folder.resolve("report;type=x.txt"), "file-content".getBytes(StandardCharsets.UTF_8));
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+
+        String command = CurlUtil.generatePostMultipartCurl(url, Collections.emptyMap(), Arrays.asList(
+                MultipartPart.file("doc", file, "text/plain", "q\"uote;semi,comma\\back.txt"),
+                MultipartPart.text("note", "\"quoted\" value")));
+        Process process = new ProcessBuilder("/bin/bash", "-c", command)
+                .directory(directory.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(output, 0, process.exitValue());
+
+        String body = received.get();
+        assertFalse(Files.exists(directory.resolve("PWNED")));
+        // curl按HTML5规则把文件名中的"编码为%22
+        assertTrue(body, body.contains("name=\"doc\"; filename=\"q%22uote;semi,comma\\back.txt\""));
+        assertTrue(body, body.contains("Content-Type: text/plain"));
+        assertTrue(body, body.contains("\r\n\r\nfile-content\r\n"));
+        assertTrue(body, body.contains("name=\"note\"\r\n\r\n\"quoted\" value\r\n"));
+    }
+
+    @Test
+    public void contentTypeWithParametersIsSentWhole() throws Exception {
+        Assume.assumeTrue("需要bash和curl", new File("/bin/bash").canExecute() && new File("/usr/bin/curl").canExecute());
+        Path file = Files.write(directory.resolve("note.txt"), "file-content".getBytes(StandardCharsets.UTF_8));
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+
+        String command = CurlUtil.generatePostMultipartCurl(url, Collections.emptyMap(), Arrays.asList(
+                MultipartPart.file("doc", file, "text/plain; charset=utf-8"),
+                MultipartPart.text("meta", "{}", "application/json; charset=utf-8")));
+        Process process = new ProcessBuilder("/bin/bash", "-c", command)
+                .directory(directory.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(output, 0, process.exitValue());
+
+        String body = received.get();
+        assertTrue(body, body.contains("filename=\"note.txt\"\r\nContent-Type: text/plain; charset=utf-8\r\n"));
+        assertTrue(body, body.contains("name=\"meta\"\r\nContent-Type: application/json; charset=utf-8\r\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contentTypeWithLineBreakIsRejected() {
+        MultipartPart.text("meta", "{}", "text/plain\r\nX-Injected: 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contentTypeWithCurlAttributeIsRejected() {
+        MultipartPart.file("doc", directory.resolve("x.txt"), "text/plain; headers=X-Injected: 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nameWithEqualsIsRejected() {
+        MultipartPart.text("a=b", "value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filenameWithLineBreakIsRejected() {
+        MultipartPart.file("doc", directory.resolve("x.txt"), null, "x\r\nX-Injected: 1");
+    }
+}
@@ -0,0 +1,92 @@
+package curl_util;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * RedactionEngine 测试
+ *
+ * @author shenmiren21
+ */
+public class RedactionEngineTest {
+
+    private static final String MASK = RedactionEngine.DEFAULT_MASK;
+
+    @Test
+    public void everyOptionOnScriptLineIsRedacted() {
+        RedactionEngine engine = RedactionEngine.defaults();
+        String line = "curl -X POST 'http://api.test/x?token=t1&q=1' -H 'Authorization: Bearer abc'"
+                + " -H 'X-Auth-Token: k2' -H 'Accept: */*' --data-binary 'password=p3&user=u'";
+
+        String redacted = engine.redactScriptLine(line);
+
+        assertFalse(redacted, redacted.contains("t1"));
+        assertFalse(redacted, redacted.contains("abc"));
+        assertFalse(redacted, redacted.contains("k2"));
+        assertFalse(redacted, redacted.contains("p3"));
+        assertTrue(redacted, redacted.contains("q=1"));
+        assertTrue(redacted, redacted.contains("-H 'Accept: */*'"));
+        assertTrue(redacted, redacted.contains("user=u"));
+    }
+
+    @Test
+    public void bodyIsRedactedByContentType() {
+        RedactionEngine engine = RedactionEngine.defaults();
+        assertEquals("user=u&password=" + MASK,
+                engine.redactBody("user=u&password=p", "application/x-www-form-urlencoded; charset=UTF-8"));
+        assertEquals("{\"password\":\"" + MASK + "\"}", engine.redactBody("{\"password\":\"p\"}", "APPLICATION/JSON"));
+        assertEquals("secret=" + MASK, engine.redactBody("secret=s", null));
+    }
+
+    @Test
+    public void unknownContentTypeKeepsBodyStructure() {
+        RedactionEngine engine = RedactionEngine.defaults();
+        String xml = "<login><user>u</user><password>p&amp;q=1</password></login>";
+        assertEquals(xml, engine.redactBody(xml, "application/xml"));
+        String text = "note: token=abc & more";
+        assertEquals(text, engine.redactBody(text, "text/plain"));
+        String multipart = "--b\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nsecret=1&x\r\n--b--";
+        assertEquals(multipart, engine.redactBody(multipart, "multipart/form-data; boundary=b"));
+        assertEquals("auth " + MASK, engine.redactBody("auth Bearer abc.def", "text/plain"));
+        // 没有Content-Type且不是表单形态时同样不改动结构
+        assertEquals(text, engine.redactBody(text, null));
+    }
+
+    @Test
+    public void legacyAndEscapedOptionsAreRedactedInOnePass() {
+        RedactionEngine engine = RedactionEngine.defaults();
+        String legacy = "curl -X POST \"http://api.test/?password=p1\" -H \"Token: t2\" -d \"{\\\"secret\\\":\\\"s3\\\"}\"";
+        String redacted = engine.redactScriptLine(legacy);
+        assertEquals("curl -X POST \"http://api.test/?password=" + MASK + "\" -H \"Token: " + MASK
+                + "\" -d \"{\\\"secret\\\":\\\"" + MASK + "\\\"}\"", redacted);
+
+        String escaped = "curl -X POST 'http://api.test/' --data-binary $'password=p4\\nx' -H 'Accept: a'";
+        redacted = engine.redactScriptLine(escaped);
+        assertFalse(redacted, redacted.contains("p4"));
+        assertTrue(redacted, redacted.endsWith("-H 'Accept: a'"));
+
+        // 请求体中类似参数的文本不会被当作参数处理
+        String nested = "curl -X POST 'http://api.test/' --data-binary 'see -H \"Token: keep\" here'";
+        assertEquals(nested, engine.redactScriptLine(nested));
+    }
+
+    @Test
+    public void keysAreLowercasedIndependentOfDefaultLocale() {
+        Locale original = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            RedactionEngine engine = RedactionEngine.of(List.of("SESSION_ID"), Collections.emptyList());
+            assertTrue(engine.isSensitiveKey("session_id"));
+            assertTrue(engine.isSensitiveKey("X-SESSION_ID"));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+}
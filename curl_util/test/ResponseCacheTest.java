@@ -0,0 +1,215 @@
+package curl_util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ResponseCache 测试
+ *
+ * @author shenmiren21
+ */
+public class ResponseCacheTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("response-cache-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutExchange() throws Exception {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        AtomicInteger sent = new AtomicInteger();
+        CurlRequest request = CurlRequest.get("http://cache.test/fresh");
+        for (int i = 0; i < 3; i++) {
+            try (CurlResponse response = cache.execute(request, conditional -> {
+                sent.incrementAndGet();
+                return response(200, "max-age=60", "fresh");
+            })) {
+                assertEquals("fresh", response.bodyAsString());
+            }
+        }
+        assertEquals(1, sent.get());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void staleEntryIsRevalidatedWithEtag() throws Exception {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        CurlRequest request = CurlRequest.get("http://cache.test/reval");
+        cache.execute(request, conditional -> response(200, "no-cache", "v1")).close();
+
+        assertEquals("\"etag\"", cache.conditionalHeaders(request).get("If-None-Match"));
+        try (CurlResponse response = cache.execute(request, conditional -> {
+            assertEquals("\"etag\"", conditional.get("If-None-Match"));
+            return response(304, "no-cache", "");
+        })) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("v1", response.bodyAsString());
+        }
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    public void noStoreIsNotCached() throws Exception {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        CurlRequest request = CurlRequest.get("http://cache.test/no-store");
+        cache.execute(request, conditional -> response(200, "no-store", "secret")).close();
+        assertTrue(cache.conditionalHeaders(request).isEmpty());
+        assertEquals(0, cache.getStores());
+    }
+
+    @Test
+    public void requestMaxAgeZeroForcesRevalidation() throws Exception {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        CurlRequest request = CurlRequest.get("http://cache.test/max-age");
+        cache.execute(request, conditional -> response(200, "max-age=60", "v1")).close();
+
+        AtomicInteger sent = new AtomicInteger();
+        try (CurlResponse response = cache.execute(CurlRequest.get("http://cache.test/max-age")
+                .header("Cache-Control", "max-age=0"), conditional -> {
+            sent.incrementAndGet();
+            assertEquals("\"etag\"", conditional.get("If-None-Match"));
+            return response(304, "max-age=60", "");
+        })) {
+            assertEquals("v1", response.bodyAsString());
+        }
+        assertEquals(1, sent.get());
+        assertEquals(1, cache.getRevalidations());
+
+        // 请求的max-age大于条目年龄时直接使用缓存
+        cache.execute(CurlRequest.get("http://cache.test/max-age").header("Cache-Control", "max-age=30"),
+                conditional -> {
+                    throw new AssertionError("不应发送请求");
+                }).close();
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void noStoreResponseRemovesExistingEntry() throws Exception {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        CurlRequest request = CurlRequest.get("http://cache.test/replaced");
+        cache.execute(request, conditional -> response(200, "no-cache", "v1")).close();
+
+        cache.execute(request, conditional -> response(200, "no-store", "v2")).close();
+        assertTrue(cache.conditionalHeaders(request).isEmpty());
+        assertEquals(0, cache.getMemoryBytes());
+
+        try (CurlResponse response = cache.execute(request, conditional -> {
+            assertTrue(conditional.isEmpty());
+            return response(200, "no-store", "v3");
+        })) {
+            assertEquals("v3", response.bodyAsString());
+        }
+    }
+
+    @Test
+    public void errorAfterRevalidationRemovesEntryFromBothTiers() throws Exception {
+        // 内存层只能容纳一个条目
+        ResponseCache cache = new ResponseCache(3000).maxEntryBytes(2500).diskTier(directory, 1 << 20);
+        CurlRequest first = CurlRequest.get("http://cache.test/item/1");
+        CurlRequest second = CurlRequest.get("http://cache.test/item/2");
+        cache.execute(first, conditional -> response(200, "no-cache", body(1))).close();
+        cache.execute(second, conditional -> response(200, "no-cache", body(2))).close();
+        assertEquals(1, bodyFiles());
+
+        // first从磁盘层移回内存层（second被淘汰到磁盘），校验时服务端返回500
+        try (CurlResponse response = cache.execute(first, conditional -> response(500, "no-cache", "error"))) {
+            assertEquals(500, response.getStatusCode());
+        }
+        assertTrue(cache.conditionalHeaders(first).isEmpty());
+        assertEquals(0, cache.getMemoryBytes());
+        assertEquals(1, bodyFiles());
+        assertEquals("\"etag\"", cache.conditionalHeaders(second).get("If-None-Match"));
+    }
+
+    /**
+     * 命中、304和淘汰到磁盘层并发进行时，返回的响应体必须完整且属于对应的URL
+     */
+    @Test
+    public void concurrentHitsAndEvictionsServeCompleteBodies() throws Exception {
+        // 内存层只能容纳约两个条目，几乎每次写入都会把其他线程刚命中的条目淘汰到磁盘
+        ResponseCache cache = new ResponseCache(6000).maxEntryBytes(4000).diskTier(directory, 1 << 20);
+        int urls = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        int id = ThreadLocalRandom.current().nextInt(urls);
+                        boolean revalidate = id % 2 == 0;
+                        String expected = body(id);
+                        CurlRequest request = CurlRequest.get("http://cache.test/item/" + id);
+                        try (CurlResponse response = cache.execute(request, conditional ->
+                                conditional.containsKey("If-None-Match")
+                                        ? response(304, "no-cache", "")
+                                        : response(200, revalidate ? "no-cache" : "max-age=60", expected))) {
+                            assertEquals(expected, response.bodyAsString());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getHits() + cache.getRevalidations() > 0);
+        assertTrue(cache.getMemoryBytes() <= 6000);
+    }
+
+    private long bodyFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".body")).count();
+        }
+    }
+
+    private static String body(int id) {
+        StringBuilder body = new StringBuilder("item-").append(id).append('-');
+        while (body.length() < 2000) {
+            body.append(id);
+        }
+        return body.toString();
+    }
+
+    private static CurlResponse response(int status, String cacheControl, String body) {
+        Map<String, List<String>> headers = Map.of(
+                "Cache-Control", List.of(cacheControl),
+                "ETag", List.of("\"etag\""));
+        return new CurlResponse(status, headers,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 0);
+    }
+}
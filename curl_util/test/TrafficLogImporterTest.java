@@ -0,0 +1,151 @@
+package curl_util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TrafficLogImporter 测试：抓包内容不可信，生成的回放脚本执行时必须把URL、请求头和请求体原样交给curl
+ *
+ * @author shenmiren21
+ */
+public class TrafficLogImporterTest {
+
+    private static final List<String> HOSTILE_BODIES = Arrays.asList(
+            "{\"cmd\":\"$(touch PWNED)\"}",
+            "{\"cmd\":\"`touch PWNED`\"}",
+            "{\"quote\":\"a\\\"b\",\"single\":\"it's\"}",
+            "{\n  \"multi\": \"line\",\r\n  \"tab\": \"\t\"\n}",
+            "'; touch PWNED; echo '",
+            "\\\"$HOME\\\" ${PATH} !! \\n");
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("traffic-import-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void hostileBodiesAreReplayedByteForByte() throws Exception {
+        Assume.assumeTrue("需要bash执行回放脚本", FakeCurl.isAvailable());
+
+        StringBuilder jsonl = new StringBuilder();
+        for (int i = 0; i < HOSTILE_BODIES.size(); i++) {
+            jsonl.append("{\"method\":\"POST\",\"url\":\"http://replay.test/item/").append(i)
+                    .append("?q=$(touch PWNED)\",\"headers\":{\"X-Trace\":\"`touch PWNED`'\"},\"body\":\"")
+                    .append(jsonEscape(HOSTILE_BODIES.get(i))).append("\"}\n");
+        }
+        Path input = directory.resolve("capture.jsonl");
+        Files.write(input, jsonl.toString().getBytes(StandardCharsets.UTF_8));
+
+        Path output = Files.createDirectory(directory.resolve("out"));
+        TrafficLogImporter.ImportResult result = new TrafficLogImporter(output)
+                .maskSensitive(false)
+                .importFile(input);
+        assertEquals(HOSTILE_BODIES.size(), result.getWritten());
+
+        FakeCurl curl = new FakeCurl(directory);
+        for (Path shard : result.getShards()) {
+            curl.runScript(shard);
+        }
+
+        assertFalse("抓包内容被当作命令执行", curl.exists("PWNED"));
+        for (int i = 0; i < HOSTILE_BODIES.size(); i++) {
+            List<String> args = curl.args(i);
+            assertEquals("http://replay.test/item/" + i + "?q=$(touch PWNED)", args.get(2));
+            assertTrue(FakeCurl.headers(args).contains("X-Trace: `touch PWNED`'"));
+            assertEquals(HOSTILE_BODIES.get(i), FakeCurl.option(args, "--data-binary"));
+        }
+    }
+
+    @Test
+    public void headerWithLineBreakIsNotRendered() throws Exception {
+        Path input = directory.resolve("capture.jsonl");
+        Files.write(input, ("{\"method\":\"GET\",\"url\":\"http://replay.test/\","
+                + "\"headers\":{\"X-Evil\":\"a\\ntouch PWNED\"}}\n"
+                + "{\"method\":\"GET\",\"url\":\"http://replay.test/ok\"}\n").getBytes(StandardCharsets.UTF_8));
+        Path output = Files.createDirectory(directory.resolve("out"));
+        TrafficLogImporter.ImportResult result = new TrafficLogImporter(output).maskSensitive(false).importFile(input);
+
+        assertEquals(1, result.getWritten());
+        assertEquals(1, result.getSkipped());
+        String script = new String(Files.readAllBytes(result.getShards().get(0)), StandardCharsets.UTF_8);
+        assertFalse(script.contains("touch PWNED"));
+        assertFalse(script.contains("curl命令生成失败"));
+    }
+
+    @Test
+    public void malformedUnicodeEscapeSkipsOnlyThatLine() throws Exception {
+        Path input = directory.resolve("capture.jsonl");
+        Files.write(input, ("{\"method\":\"GET\",\"url\":\"http://replay.test/\\uZZZZ\"}\n"
+                + "{\"method\":\"GET\",\"url\":\"http://replay.test/ok\"}\n").getBytes(StandardCharsets.UTF_8));
+        Path output = Files.createDirectory(directory.resolve("out"));
+        TrafficLogImporter.ImportResult result = new TrafficLogImporter(output).importFile(input);
+
+        assertEquals(1, result.getWritten());
+        assertEquals(1, result.getSkipped());
+    }
+
+    @Test
+    public void formBodyIsRedactedByContentType() throws Exception {
+        Path input = directory.resolve("capture.jsonl");
+        Files.write(input, ("{\"method\":\"POST\",\"url\":\"http://replay.test/login\","
+                + "\"headers\":{\"content-type\":\"application/x-www-form-urlencoded\"},"
+                + "\"body\":\"user=alice&password=hunter2&token=abc123\"}\n").getBytes(StandardCharsets.UTF_8));
+        Path output = Files.createDirectory(directory.resolve("out"));
+        TrafficLogImporter.ImportResult result = new TrafficLogImporter(output).importFile(input);
+
+        String script = new String(Files.readAllBytes(result.getShards().get(0)), StandardCharsets.UTF_8);
+        assertTrue(script.contains("user=alice"));
+        assertFalse(script.contains("hunter2"));
+        assertFalse(script.contains("abc123"));
+    }
+
+    private static String jsonEscape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
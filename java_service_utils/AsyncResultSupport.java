@@ -0,0 +1,157 @@
+package com.chestnut.api.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步返回值适配
+ * 识别 CompletableFuture / CompletionStage / ListenableFuture / Future 以及Reactor的 Mono / Flux，
+ * 统一适配为 CompletableFuture，使结果转换可以组合在异步结果之上，而不是把包装对象本身序列化
+ *
+ * <p>Reactor为可选依赖，只有classpath中存在时才会加载 ReactorAdapter</p>
+ *
+ * <p>普通 Future 是唯一无法不阻塞地适配的类型：它没有完成回调，只能阻塞在get()上或轮询isDone()。
+ * 这里由单个调度线程按退避间隔轮询（最长间隔 {@value FuturePoller#MAX_DELAY_MILLIS}ms），
+ * 不为每个Future占用一个等待线程，代价是完成后最多延迟一个轮询间隔才能观察到结果</p>
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+final class AsyncResultSupport {
+
+    private static final String LOG_PREFIX = "[AsyncResultSupport]";
+
+    /** classpath中是否存在Reactor */
+    static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono",
+            AsyncResultSupport.class.getClassLoader());
+
+    private AsyncResultSupport() {
+    }
+
+    /**
+     * 是否为异步返回值
+     */
+    static boolean isAsync(Object result) {
+        return result instanceof CompletionStage
+                || result instanceof Future
+                || (REACTOR_PRESENT && ReactorAdapter.isReactive(result));
+    }
+
+    /**
+     * 适配为CompletableFuture（不阻塞调用线程）
+     * Flux会收集为List；普通Future没有完成回调，由轮询线程在isDone()后获取结果
+     *
+     * @param result 异步返回值
+     * @return 异步结果
+     */
+    @SuppressWarnings("unchecked")
+    static CompletableFuture<Object> toFuture(Object result) {
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<Object>) result).toCompletableFuture();
+        }
+        if (result instanceof ListenableFuture) {
+            return ((ListenableFuture<Object>) result).completable();
+        }
+        if (REACTOR_PRESENT && ReactorAdapter.isReactive(result)) {
+            return ReactorAdapter.toFuture(result);
+        }
+        if (result instanceof Future) {
+            Future<Object> future = (Future<Object>) result;
+            if (future.isDone()) {
+                CompletableFuture<Object> done = new CompletableFuture<>();
+                complete(done, future);
+                return done;
+            }
+            log.debug(LOG_PREFIX + " 普通Future没有完成回调，轮询获取结果: {}", future.getClass().getName());
+            CompletableFuture<Object> adapted = new CompletableFuture<>();
+            FuturePoller.watch(adapted, future);
+            return adapted;
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * 同步等待异步返回值（用于同步调用入口）
+     *
+     * @param result 异步返回值
+     * @return 实际结果
+     */
+    static Object await(Object result) {
+        try {
+            return toFuture(result).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static void complete(CompletableFuture<Object> target, Future<Object> future) {
+        try {
+            target.complete(future.get());
+        } catch (ExecutionException e) {
+            target.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            target.completeExceptionally(e);
+        } catch (Exception e) {
+            target.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 普通Future的轮询线程：所有未完成的Future共用一个调度线程，每个Future的轮询间隔从1ms起倍增到上限
+     */
+    private static final class FuturePoller {
+
+        private static final long MIN_DELAY_MILLIS = 1;
+        static final long MAX_DELAY_MILLIS = 50;
+
+        private static final ScheduledExecutorService SCHEDULER =
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "service-caller-future-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        private FuturePoller() {
+        }
+
+        static void watch(CompletableFuture<Object> target, Future<Object> future) {
+            schedule(target, future, MIN_DELAY_MILLIS);
+        }
+
+        private static void schedule(CompletableFuture<Object> target, Future<Object> future, long delayMillis) {
+            SCHEDULER.schedule(() -> poll(target, future, delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private static void poll(CompletableFuture<Object> target, Future<Object> future, long delayMillis) {
+            if (target.isDone()) {
+                // 调用方取消了适配结果，同时取消原Future
+                if (target.isCancelled()) {
+                    future.cancel(true);
+                }
+                return;
+            }
+            try {
+                if (future.isDone()) {
+                    // 已完成的Future调用get()不会阻塞轮询线程
+                    complete(target, future);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                target.completeExceptionally(e);
+                return;
+            }
+            schedule(target, future, Math.min(delayMillis * 2, MAX_DELAY_MILLIS));
+        }
+    }
+}
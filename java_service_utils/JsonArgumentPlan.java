@@ -0,0 +1,345 @@
+package com.chestnut.api.utils;
+
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ClassUtil;
+import cn.hutool.core.util.TypeUtil;
+import cn.hutool.json.JSON;
+import cn.hutool.json.JSONNull;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON参数绑定计划
+ * 按 (Service类, 方法名, 参数形态) 选择重载方法并缓存：参数形态为每个参数的JSON类型（null/布尔/数字/字符串/对象/数组），
+ * 按名称传参时还包括参数名。绑定时把解析好的JSON节点直接转换为声明的参数类型（含泛型），不再经过中间DTO
+ *
+ * @author shenmiren21
+ */
+final class JsonArgumentPlan {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /** 参数形态：JSON null */
+    private static final Class<?> KIND_NULL = Void.class;
+    /** 参数形态：JSON 对象 */
+    private static final Class<?> KIND_OBJECT = Map.class;
+    /** 参数形态：JSON 数组 */
+    private static final Class<?> KIND_ARRAY = List.class;
+
+    private final ServiceInvocation invocation;
+    private final Type[] types;
+    private final Class<?>[] rawTypes;
+    /** 按名称传参时每个参数位置对应的名称，按位置传参时为null */
+    private final String[] names;
+
+    private JsonArgumentPlan(ServiceInvocation invocation, Type[] types, Class<?>[] rawTypes, String[] names) {
+        this.invocation = invocation;
+        this.types = types;
+        this.rawTypes = rawTypes;
+        this.names = names;
+    }
+
+    ServiceInvocation getInvocation() {
+        return invocation;
+    }
+
+    /**
+     * 把参数绑定为方法参数数组
+     *
+     * @param args 按位置传参的List（如JSONArray）或按名称传参的Map（如JSONObject）
+     * @return 方法参数
+     */
+    Object[] bind(Object args) {
+        Object[] bound = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Object value = names != null ? ((Map<?, ?>) args).get(names[i]) : ((List<?>) args).get(i);
+            try {
+                bound[i] = bindValue(value, types[i], rawTypes[i]);
+            } catch (RuntimeException e) {
+                String param = names != null ? names[i] : String.valueOf(i);
+                throw new IllegalArgumentException("参数[" + param + "]无法转换为 " + types[i].getTypeName()
+                        + ": " + e.getMessage(), e);
+            }
+        }
+        return bound;
+    }
+
+    private static Object bindValue(Object value, Type type, Class<?> rawType) {
+        if (value == null || value instanceof JSONNull) {
+            return rawType.isPrimitive() ? ClassUtil.getDefaultValue(rawType) : null;
+        }
+        if (type instanceof Class && rawType.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof JSON && !CharSequence.class.isAssignableFrom(rawType)) {
+            return ((JSON) value).toBean(type);
+        }
+        return Convert.convert(type, value);
+    }
+
+    /**
+     * 参数形态缓存键
+     *
+     * @param clazz Service实际类型
+     * @param methodName 方法名
+     * @param args 按位置传参的List或按名称传参的Map
+     * @return 缓存键
+     */
+    static Key key(Class<?> clazz, String methodName, Object args) {
+        if (args instanceof Map) {
+            Map<?, ?> named = (Map<?, ?>) args;
+            String[] argNames = new String[named.size()];
+            Class<?>[] kinds = new Class<?>[named.size()];
+            int i = 0;
+            for (Map.Entry<?, ?> entry : named.entrySet()) {
+                argNames[i] = String.valueOf(entry.getKey());
+                kinds[i++] = kindOf(entry.getValue());
+            }
+            return new Key(clazz, methodName, argNames, kinds);
+        }
+        List<?> positional = (List<?>) args;
+        Class<?>[] kinds = new Class<?>[positional.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindOf(positional.get(i));
+        }
+        return new Key(clazz, methodName, null, kinds);
+    }
+
+    /**
+     * 选择与参数形态最匹配的重载方法
+     * 按位置传参要求参数个数一致；按名称传参要求每个名称都是方法参数（需要 -parameters 或调试信息），
+     * 优先选择缺少参数最少的方法，缺少的参数绑定为null或基本类型默认值
+     *
+     * @param clazz Service实际类型
+     * @param key 参数形态
+     * @return 选中的方法，没有匹配方法时为null
+     */
+    static Method select(Class<?> clazz, Key key) {
+        Class<?> userClass = ClassUtils.getUserClass(clazz);
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().equals(key.methodName) && !method.isBridge()
+                    && !Modifier.isStatic(method.getModifiers())) {
+                candidates.add(method);
+            }
+        }
+        candidates.sort(Comparator.comparing(Method::toGenericString));
+
+        Method best = null;
+        int bestMissing = Integer.MAX_VALUE;
+        int bestScore = -1;
+        for (Method method : candidates) {
+            Type[] types = resolveTypes(method, userClass);
+            int missing = 0;
+            int score = 0;
+            if (key.names == null) {
+                if (types.length != key.kinds.length) {
+                    continue;
+                }
+                for (int i = 0; i < types.length && score >= 0; i++) {
+                    score = accumulate(score, key.kinds[i], rawType(types[i]));
+                }
+            } else {
+                String[] paramNames = parameterNames(method, userClass);
+                if (paramNames == null || paramNames.length < key.names.length) {
+                    continue;
+                }
+                List<String> nameList = Arrays.asList(key.names);
+                for (int i = 0; i < paramNames.length && score >= 0; i++) {
+                    int index = nameList.indexOf(paramNames[i]);
+                    if (index < 0) {
+                        missing++;
+                    }
+                    score = accumulate(score, index < 0 ? KIND_NULL : key.kinds[index], rawType(types[i]));
+                }
+                if (paramNames.length - missing != key.names.length) {
+                    // 存在不属于该方法的参数名
+                    continue;
+                }
+            }
+            if (score < 0) {
+                continue;
+            }
+            if (missing < bestMissing || (missing == bestMissing && score > bestScore)) {
+                best = method;
+                bestMissing = missing;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 为选中的方法编译绑定计划
+     */
+    static JsonArgumentPlan compile(Class<?> clazz, Method method, Key key, ServiceInvocation invocation) {
+        Class<?> userClass = ClassUtils.getUserClass(clazz);
+        Type[] types = resolveTypes(method, userClass);
+        Class<?>[] rawTypes = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            rawTypes[i] = rawType(types[i]);
+        }
+        String[] names = key.names == null ? null : parameterNames(method, userClass);
+        return new JsonArgumentPlan(invocation, types, rawTypes, names);
+    }
+
+    private static int accumulate(int score, Class<?> kind, Class<?> rawType) {
+        int match = match(kind, rawType);
+        return match == 0 ? -1 : score + match;
+    }
+
+    /**
+     * 参数形态与参数类型的匹配度：0不匹配，1可转换，2类型一致，3已是该类型的实例
+     */
+    private static int match(Class<?> kind, Class<?> rawType) {
+        Class<?> wrapped = BasicType.wrap(rawType);
+        boolean simple = ClassUtil.isSimpleValueType(wrapped);
+        if (kind == KIND_NULL) {
+            return rawType.isPrimitive() ? 1 : 2;
+        }
+        if (kind == Boolean.class) {
+            return wrapped == Boolean.class ? 2 : (simple || rawType == Object.class ? 1 : 0);
+        }
+        if (kind == Number.class) {
+            return Number.class.isAssignableFrom(wrapped) ? 2 : (simple || rawType == Object.class ? 1 : 0);
+        }
+        if (kind == String.class) {
+            return CharSequence.class.isAssignableFrom(rawType) ? 2 : (simple || rawType == Object.class ? 1 : 0);
+        }
+        if (kind == KIND_OBJECT) {
+            if (Map.class.isAssignableFrom(rawType) || isBeanType(rawType)) {
+                return 2;
+            }
+            return rawType == Object.class || CharSequence.class.isAssignableFrom(rawType) ? 1 : 0;
+        }
+        if (kind == KIND_ARRAY) {
+            if (Collection.class.isAssignableFrom(rawType) || rawType.isArray()) {
+                return 2;
+            }
+            return rawType == Object.class || CharSequence.class.isAssignableFrom(rawType) ? 1 : 0;
+        }
+        if (wrapped.isAssignableFrom(kind)) {
+            return 3;
+        }
+        return rawType == Object.class ? 1 : 0;
+    }
+
+    private static boolean isBeanType(Class<?> rawType) {
+        return !rawType.isPrimitive() && !rawType.isArray() && !rawType.isInterface()
+                && !ClassUtil.isSimpleValueType(rawType) && !Iterable.class.isAssignableFrom(rawType);
+    }
+
+    /**
+     * JSON值的参数形态（已是Java对象的值使用其实际类型）
+     */
+    private static Class<?> kindOf(Object value) {
+        if (value == null || value instanceof JSONNull) {
+            return KIND_NULL;
+        }
+        if (value instanceof Boolean) {
+            return Boolean.class;
+        }
+        if (value instanceof Number) {
+            return Number.class;
+        }
+        if (value instanceof String) {
+            return String.class;
+        }
+        if (value instanceof Map) {
+            return KIND_OBJECT;
+        }
+        if (value instanceof Collection || value.getClass().isArray()) {
+            return KIND_ARRAY;
+        }
+        return value.getClass();
+    }
+
+    /**
+     * 参数的泛型类型，类型变量按Service实际类型解析（如 BaseService&lt;User&gt; 中的 T）
+     */
+    private static Type[] resolveTypes(Method method, Class<?> userClass) {
+        Type[] generic = method.getGenericParameterTypes();
+        Type[] resolved = new Type[generic.length];
+        for (int i = 0; i < generic.length; i++) {
+            resolved[i] = GenericTypeResolver.resolveType(generic[i], userClass);
+        }
+        return resolved;
+    }
+
+    private static Class<?> rawType(Type type) {
+        Class<?> raw = TypeUtil.getClass(type);
+        return raw != null ? raw : Object.class;
+    }
+
+    /**
+     * 参数名（CGLIB代理类上的方法没有参数名，从用户类中的对应方法读取）
+     */
+    private static String[] parameterNames(Method method, Class<?> userClass) {
+        return PARAMETER_NAME_DISCOVERER.getParameterNames(ClassUtils.getMostSpecificMethod(method, userClass));
+    }
+
+    /**
+     * 绑定计划缓存键
+     */
+    static final class Key {
+
+        private final Class<?> clazz;
+        private final String methodName;
+        private final String[] names;
+        private final Class<?>[] kinds;
+        private final int hash;
+
+        Key(Class<?> clazz, String methodName, String[] names, Class<?>[] kinds) {
+            this.clazz = clazz;
+            this.methodName = methodName;
+            this.names = names;
+            this.kinds = kinds;
+            this.hash = ((clazz.hashCode() * 31 + methodName.hashCode()) * 31
+                    + Arrays.hashCode(names)) * 31 + Arrays.hashCode(kinds);
+        }
+
+        /**
+         * 传入的参数个数
+         */
+        int size() {
+            return kinds.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return clazz == other.clazz && methodName.equals(other.methodName)
+                    && Arrays.equals(names, other.names) && Arrays.equals(kinds, other.kinds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return clazz.getSimpleName() + "." + methodName
+                    + (names != null ? Arrays.toString(names) : "") + Arrays.toString(kinds);
+        }
+    }
+}
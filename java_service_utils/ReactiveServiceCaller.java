@@ -0,0 +1,67 @@
+package com.chestnut.api.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 响应式Service调用工具类
+ * 与 SpringServiceCaller 相同的调用方式，以 Mono / Flux 返回结果；需要classpath中存在 reactor-core
+ *
+ * <p>调用在订阅时才发生。Service返回Flux时元素逐个转换并原样传递下游的背压请求，不会收集为List</p>
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+public final class ReactiveServiceCaller {
+
+    private static final String LOG_PREFIX = "[ReactiveServiceCaller]";
+
+    private ReactiveServiceCaller() {
+    }
+
+    /**
+     * 调用方法并以Flux返回元素
+     * Service返回Flux时保留背压；返回Mono、CompletableFuture等异步结果时展开为元素；返回集合时逐个发出
+     * @param <T> 元素类型
+     * @param <R> Service类型
+     * @param elementType 元素类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 元素流，调用失败或返回null时为空流，无法转换的元素会被跳过
+     */
+    public static <T, R> Flux<T> invokeServiceFlux(Class<T> elementType, Class<R> serviceClass,
+                                                   String methodName, Object... args) {
+        return Flux.defer(() -> {
+            Object result = SpringServiceCaller.invokeServiceRaw(serviceClass, methodName, args);
+            if (result == null) {
+                return Flux.empty();
+            }
+            return ReactorAdapter.toFlux(result).handle((element, sink) -> {
+                T converted = SpringServiceCaller.convertValue(element, elementType);
+                if (converted != null) {
+                    sink.next(converted);
+                } else {
+                    log.warn(LOG_PREFIX + " 元素转换结果为空，已跳过: {}.{}", serviceClass.getSimpleName(), methodName);
+                }
+            });
+        });
+    }
+
+    /**
+     * 调用方法并以Mono返回结果（结果转换方式与 invokeService 一致）
+     * @param <T> 返回值类型
+     * @param <R> Service类型
+     * @param returnType 返回值类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 结果，调用失败或返回null时为空Mono
+     */
+    public static <T, R> Mono<T> invokeServiceMono(Class<T> returnType, Class<R> serviceClass,
+                                                   String methodName, Object... args) {
+        return Mono.defer(() -> Mono.fromFuture(
+                SpringServiceCaller.invokeServiceAsync(returnType, serviceClass, methodName, args)));
+    }
+}
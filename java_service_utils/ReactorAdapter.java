@@ -0,0 +1,53 @@
+package com.chestnut.api.utils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reactor返回值适配
+ * 只在classpath中存在Reactor时由 AsyncResultSupport 调用，其它类不直接引用Reactor类型
+ *
+ * @author shenmiren21
+ */
+final class ReactorAdapter {
+
+    private ReactorAdapter() {
+    }
+
+    static boolean isReactive(Object result) {
+        return result instanceof Mono || result instanceof Flux;
+    }
+
+    /**
+     * Mono取单个值，Flux收集为List
+     */
+    @SuppressWarnings("unchecked")
+    static CompletableFuture<Object> toFuture(Object result) {
+        if (result instanceof Mono) {
+            return ((Mono<Object>) result).toFuture();
+        }
+        return ((Flux<Object>) result).collectList().map(list -> (Object) list).toFuture();
+    }
+
+    /**
+     * 把任意返回值适配为Flux：Flux原样返回（保留背压），Mono和其它异步结果转为单元素流，集合展开为元素
+     */
+    @SuppressWarnings("unchecked")
+    static Flux<Object> toFlux(Object result) {
+        if (result instanceof Flux) {
+            return (Flux<Object>) result;
+        }
+        if (result instanceof Mono) {
+            return ((Mono<Object>) result).flux();
+        }
+        if (result instanceof Iterable) {
+            return Flux.fromIterable((Iterable<Object>) result);
+        }
+        if (AsyncResultSupport.isAsync(result)) {
+            return Mono.fromFuture(AsyncResultSupport.toFuture(result)).flatMapMany(ReactorAdapter::toFlux);
+        }
+        return Flux.just(result);
+    }
+}
@@ -0,0 +1,160 @@
+package com.chestnut.api.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * SpringServiceCaller 的JFR事件
+ * 事件名以 com.chestnut.ServiceCaller 开头，在JMC中归类于 Chestnut / Service Caller，
+ * 阈值和是否采集调用栈通过 service-caller.jfc 配置。只有运行时支持JFR时才会加载本类（见 ServiceCallTrace）
+ *
+ * @author shenmiren21
+ */
+final class ServiceCallEvents {
+
+    private static final EventType RESOLVE_TYPE = EventType.getEventType(ResolveEvent.class);
+    private static final EventType INVOKE_TYPE = EventType.getEventType(InvokeEvent.class);
+    private static final EventType SERIALIZE_TYPE = EventType.getEventType(SerializeEvent.class);
+    private static final EventType CONVERT_TYPE = EventType.getEventType(ConvertEvent.class);
+
+    private ServiceCallEvents() {
+    }
+
+    static ServiceCallTrace resolve(Class<?> serviceClass, String methodName, int argumentCount) {
+        if (!RESOLVE_TYPE.isEnabled()) {
+            return ServiceCallTrace.NOOP;
+        }
+        ResolveEvent event = new ResolveEvent();
+        event.argumentCount = argumentCount;
+        return new EventTrace(event, serviceClass, methodName);
+    }
+
+    static ServiceCallTrace invoke(Class<?> serviceClass, String methodName, int argumentCount) {
+        if (!INVOKE_TYPE.isEnabled()) {
+            return ServiceCallTrace.NOOP;
+        }
+        InvokeEvent event = new InvokeEvent();
+        event.argumentCount = argumentCount;
+        return new EventTrace(event, serviceClass, methodName);
+    }
+
+    static ServiceCallTrace serialize(Class<?> serviceClass, String methodName) {
+        if (!SERIALIZE_TYPE.isEnabled()) {
+            return ServiceCallTrace.NOOP;
+        }
+        return new EventTrace(new SerializeEvent(), serviceClass, methodName);
+    }
+
+    static ServiceCallTrace convert(Class<?> serviceClass, String methodName, Class<?> targetType) {
+        if (!CONVERT_TYPE.isEnabled()) {
+            return ServiceCallTrace.NOOP;
+        }
+        ConvertEvent event = new ConvertEvent();
+        event.targetType = targetType;
+        return new EventTrace(event, serviceClass, methodName);
+    }
+
+    /**
+     * 包装一个已开始计时的事件
+     */
+    private static final class EventTrace extends ServiceCallTrace {
+
+        private final ServiceCallerEvent event;
+
+        EventTrace(ServiceCallerEvent event, Class<?> serviceClass, String methodName) {
+            this.event = event;
+            event.serviceClass = serviceClass;
+            event.method = methodName;
+            event.begin();
+        }
+
+        @Override
+        ServiceCallTrace cacheHit(boolean hit) {
+            if (event instanceof ResolveEvent) {
+                ((ResolveEvent) event).cacheHit = hit;
+            }
+            return this;
+        }
+
+        @Override
+        ServiceCallTrace payloadSize(long size) {
+            if (event instanceof SerializeEvent) {
+                ((SerializeEvent) event).payloadSize = size;
+            } else if (event instanceof ConvertEvent) {
+                ((ConvertEvent) event).payloadSize = size;
+            }
+            return this;
+        }
+
+        @Override
+        void end(String outcome) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    @Category({"Chestnut", "Service Caller"})
+    abstract static class ServiceCallerEvent extends Event {
+
+        @Label("Service")
+        Class<?> serviceClass;
+
+        @Label("Method")
+        String method;
+
+        @Label("Outcome")
+        @Description("SUCCESS / NULL / NOT_FOUND / ERROR")
+        String outcome;
+    }
+
+    @Name("com.chestnut.ServiceCaller.Resolve")
+    @Label("Service Method Resolve")
+    @Description("按方法名和参数解析Service方法及拦截器链")
+    static final class ResolveEvent extends ServiceCallerEvent {
+
+        @Label("Argument Count")
+        int argumentCount;
+
+        @Label("Cache Hit")
+        boolean cacheHit;
+    }
+
+    @Name("com.chestnut.ServiceCaller.Invoke")
+    @Label("Service Method Invoke")
+    @Description("反射调用Service方法（包括拦截器链）")
+    static final class InvokeEvent extends ServiceCallerEvent {
+
+        @Label("Argument Count")
+        int argumentCount;
+    }
+
+    @Name("com.chestnut.ServiceCaller.Serialize")
+    @Label("Service Result Serialize")
+    @Description("把方法返回值序列化为JSON")
+    static final class SerializeEvent extends ServiceCallerEvent {
+
+        @Label("Payload Size")
+        @Description("JSON长度（字符串为字符数，溢出结果为字节数）")
+        long payloadSize;
+    }
+
+    @Name("com.chestnut.ServiceCaller.Convert")
+    @Label("Service Value Convert")
+    @Description("convertJsonToType / convertValue 类型转换")
+    static final class ConvertEvent extends ServiceCallerEvent {
+
+        @Label("Target Type")
+        Class<?> targetType;
+
+        @Label("Payload Size")
+        @Description("源JSON字符数，非JSON字符串的值为0")
+        long payloadSize;
+    }
+}
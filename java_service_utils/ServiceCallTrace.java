@@ -0,0 +1,79 @@
+package com.chestnut.api.utils;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Service调用追踪
+ * 在方法解析、调用、结果序列化和类型转换处记录JFR事件（见 ServiceCallEvents 和 service-caller.jfc）。
+ * JDK不支持JFR或事件未启用时返回共享的空实现，调用处只有一次布尔判断
+ *
+ * <p>用法：trace = ServiceCallTrace.invoke(...); ...; trace.end(outcome)，未启用时各方法均为空操作</p>
+ *
+ * @author shenmiren21
+ */
+abstract class ServiceCallTrace {
+
+    static final String OUTCOME_SUCCESS = "SUCCESS";
+    static final String OUTCOME_NULL = "NULL";
+    static final String OUTCOME_NOT_FOUND = "NOT_FOUND";
+    static final String OUTCOME_ERROR = "ERROR";
+
+    /** 运行时是否支持JFR（JDK 8u262及以上、JDK 11及以上） */
+    static final boolean JFR_PRESENT = ClassUtils.isPresent("jdk.jfr.Event",
+            ServiceCallTrace.class.getClassLoader());
+
+    static final ServiceCallTrace NOOP = new ServiceCallTrace() {
+        @Override
+        void end(String outcome) {
+        }
+    };
+
+    /**
+     * 方法解析
+     */
+    static ServiceCallTrace resolve(Class<?> serviceClass, String methodName, int argumentCount) {
+        return JFR_PRESENT ? ServiceCallEvents.resolve(serviceClass, methodName, argumentCount) : NOOP;
+    }
+
+    /**
+     * 方法调用（包括拦截器链）
+     */
+    static ServiceCallTrace invoke(Class<?> serviceClass, String methodName, int argumentCount) {
+        return JFR_PRESENT ? ServiceCallEvents.invoke(serviceClass, methodName, argumentCount) : NOOP;
+    }
+
+    /**
+     * 结果序列化为JSON
+     */
+    static ServiceCallTrace serialize(Class<?> serviceClass, String methodName) {
+        return JFR_PRESENT ? ServiceCallEvents.serialize(serviceClass, methodName) : NOOP;
+    }
+
+    /**
+     * 类型转换（serviceClass和methodName不属于某次调用时为null）
+     */
+    static ServiceCallTrace convert(Class<?> serviceClass, String methodName, Class<?> targetType) {
+        return JFR_PRESENT ? ServiceCallEvents.convert(serviceClass, methodName, targetType) : NOOP;
+    }
+
+    /**
+     * 方法解析是否命中缓存
+     */
+    ServiceCallTrace cacheHit(boolean hit) {
+        return this;
+    }
+
+    /**
+     * JSON长度（字符串为字符数，溢出结果为字节数）
+     */
+    ServiceCallTrace payloadSize(long size) {
+        return this;
+    }
+
+    /**
+     * 结束并在满足阈值时提交事件
+     *
+     * @param outcome 结果，见 OUTCOME_* 常量
+     */
+    abstract void end(String outcome);
+}
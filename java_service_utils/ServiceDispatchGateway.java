@@ -0,0 +1,578 @@
+package com.chestnut.api.utils;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSON;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.chestnut.common.utils.SpringUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地Service调用网关
+ * 内嵌的HTTP端点（默认只监听127.0.0.1），接收 (service, method, args) 调用请求并通过 SpringServiceCaller 分发，
+ * 供运维工具和测试脚本直接调用Bean，不再为每个方法手写Controller
+ *
+ * <p>POST /invoke 支持三种格式（按Content-Type区分），响应使用相同格式并随每个调用完成逐条写出：</p>
+ * <ul>
+ *     <li>application/json：单个调用对象，或调用对象数组（批量）</li>
+ *     <li>application/x-ndjson：每行一个调用，边读边执行（流水线）</li>
+ *     <li>application/octet-stream：二进制分帧，每帧为4字节大端长度 + UTF-8 JSON</li>
+ * </ul>
+ * 调用对象格式：{"id": 1, "service": "userService", "method": "getUserById", "args": [1]}，
+ * args 为数组时按位置传参，为对象时按参数名传参（见 SpringServiceCaller.invokeServiceWithJsonArgs），
+ * 结果格式：{"id": 1, "ok": true, "result": ...} 或 {"id": 1, "ok": false, "error": "..."}
+ *
+ * <p>只有白名单中的 Bean 和方法可以调用，未配置白名单时拒绝启动。只监听回环地址并不能防止本机浏览器中的网页
+ * 访问网关，因此：Content-Type 必须严格为以上三种之一（text/plain 等可以不经预检跨域发送的类型一律拒绝），
+ * 带 Origin 请求头或 Host 不是回环地址（防DNS重绑定）的请求一律拒绝；配置了共享密钥时请求必须带
+ * X-Gateway-Token 请求头，监听非回环地址时必须配置共享密钥</p>
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+public class ServiceDispatchGateway {
+
+    private static final String LOG_PREFIX = "[ServiceDispatchGateway]";
+
+    /** 调用路径 */
+    public static final String INVOKE_PATH = "/invoke";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+    private static final String CONTENT_TYPE_BINARY = "application/octet-stream";
+
+    /** 共享密钥请求头 */
+    public static final String TOKEN_HEADER = "X-Gateway-Token";
+    private static final String TOKEN_REJECTED = "缺少或错误的" + TOKEN_HEADER;
+
+    private final InetSocketAddress address;
+    private final Map<String, Set<String>> allowList;
+    private final int threads;
+    private final int maxFrameBytes;
+    private final byte[] secret;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private ServiceDispatchGateway(Builder builder) {
+        this.address = builder.address;
+        Map<String, Set<String>> copy = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : builder.allowList.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableSet(new LinkedHashSet<>(entry.getValue())));
+        }
+        this.allowList = Collections.unmodifiableMap(copy);
+        this.threads = builder.threads;
+        this.maxFrameBytes = builder.maxFrameBytes;
+        this.secret = builder.secret != null ? builder.secret.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 启动网关
+     */
+    public synchronized ServiceDispatchGateway start() throws IOException {
+        if (server != null) {
+            return this;
+        }
+        if (allowList.isEmpty()) {
+            throw new IllegalStateException(LOG_PREFIX + " 未配置白名单，拒绝启动");
+        }
+        if (secret == null && !address.getAddress().isLoopbackAddress()) {
+            throw new IllegalStateException(LOG_PREFIX + " 监听非回环地址时必须配置共享密钥: " + address);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "service-gateway-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.createContext(INVOKE_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info(LOG_PREFIX + " 网关已启动: http://{}:{}{}, 白名单: {}",
+                server.getAddress().getHostString(), server.getAddress().getPort(), INVOKE_PATH, allowList);
+        return this;
+    }
+
+    /**
+     * 停止网关（等待最多1秒让进行中的请求完成）
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+        log.info(LOG_PREFIX + " 网关已停止");
+    }
+
+    /**
+     * 实际监听端口（配置端口为0时由系统分配）
+     */
+    public int getPort() {
+        HttpServer current = server;
+        return current != null ? current.getAddress().getPort() : address.getPort();
+    }
+
+    /**
+     * 调用地址，如 http://127.0.0.1:8765/invoke
+     */
+    public String getInvokeUrl() {
+        return "http://" + address.getAddress().getHostAddress() + ":" + getPort() + INVOKE_PATH;
+    }
+
+    public Map<String, Set<String>> getAllowList() {
+        return allowList;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "只支持POST");
+                return;
+            }
+            String rejection = checkCaller(exchange);
+            if (rejection != null) {
+                log.warn(LOG_PREFIX + " 拒绝请求: {}, 来源: {}", rejection, exchange.getRemoteAddress());
+                sendError(exchange, TOKEN_REJECTED.equals(rejection) ? 401 : 403, rejection);
+                return;
+            }
+            String contentType = mediaType(exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (CONTENT_TYPE_JSON.equals(contentType)) {
+                handleJson(exchange);
+            } else if (CONTENT_TYPE_NDJSON.equals(contentType)) {
+                handleNdjson(exchange);
+            } else if (CONTENT_TYPE_BINARY.equals(contentType)) {
+                handleBinary(exchange);
+            } else {
+                sendError(exchange, 415, "Content-Type必须为 " + CONTENT_TYPE_JSON + "、" + CONTENT_TYPE_NDJSON
+                        + " 或 " + CONTENT_TYPE_BINARY);
+            }
+        } catch (Exception e) {
+            log.error(LOG_PREFIX + " 处理请求失败: {}", e.getMessage(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 检查调用方，不允许时返回原因
+     * 浏览器发出的请求总是带Origin（跨域的简单请求也会带），拒绝后网页无法借用户的浏览器调用网关；
+     * Host必须是回环地址或监听的IP，DNS重绑定时Host是攻击者的域名
+     */
+    private String checkCaller(HttpExchange exchange) {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            return "不接受浏览器跨域请求";
+        }
+        if (!isAllowedHost(exchange.getRequestHeaders().getFirst("Host"))) {
+            return "Host不是本机地址";
+        }
+        if (secret != null) {
+            String token = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+            if (token == null || !MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8))) {
+                return TOKEN_REJECTED;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAllowedHost(String hostHeader) {
+        if (StrUtil.isBlank(hostHeader)) {
+            return false;
+        }
+        String host = hostHeader.trim().toLowerCase(Locale.ROOT);
+        if (host.startsWith("[")) {
+            int end = host.indexOf(']');
+            host = end > 0 ? host.substring(1, end) : host;
+        } else if (host.indexOf(':') >= 0) {
+            host = host.substring(0, host.indexOf(':'));
+        }
+        if ("localhost".equals(host) || "::1".equals(host) || "0:0:0:0:0:0:0:1".equals(host)
+                || host.matches("127(\\.\\d{1,3}){3}")) {
+            return true;
+        }
+        // 监听非回环地址时允许直接使用该IP访问（IP字面量不受DNS重绑定影响）
+        return host.equals(address.getAddress().getHostAddress().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Content-Type的媒体类型部分（去掉charset等参数）
+     */
+    private static String mediaType(String contentType) {
+        String type = StrUtil.nullToEmpty(contentType);
+        int semicolon = type.indexOf(';');
+        return (semicolon >= 0 ? type.substring(0, semicolon) : type).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * JSON：单个调用返回单个结果，数组批量调用返回结果数组（逐条写出）
+     */
+    private void handleJson(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendError(exchange, 413, "请求体超过大小限制: " + maxFrameBytes);
+            return;
+        }
+        JSON request;
+        try {
+            request = JSONUtil.parse(body);
+        } catch (Exception e) {
+            sendError(exchange, 400, "请求体不是合法的JSON: " + e.getMessage());
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON + ";charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = newWriter(exchange.getResponseBody())) {
+            if (request instanceof JSONArray) {
+                out.write('[');
+                boolean first = true;
+                for (Object call : (JSONArray) request) {
+                    if (!first) {
+                        out.write(',');
+                    }
+                    first = false;
+                    writeResult(out, call);
+                    out.flush();
+                }
+                out.write(']');
+            } else {
+                writeResult(out, request);
+            }
+        }
+    }
+
+    /**
+     * NDJSON：逐行读取、执行并写出结果，客户端可以持续发送调用
+     */
+    private void handleNdjson(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_NDJSON + ";charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        InputStream in = new BufferedInputStream(exchange.getRequestBody(), 8192);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+        try (Writer out = newWriter(exchange.getResponseBody())) {
+            long length;
+            while ((length = readLine(in, line)) >= 0) {
+                String text = length > maxFrameBytes ? null : new String(line.toByteArray(), StandardCharsets.UTF_8);
+                if (text != null && StrUtil.isBlank(text)) {
+                    continue;
+                }
+                if (text == null) {
+                    writeError(out, null, "调用超过大小限制: " + length);
+                } else {
+                    writeResult(out, parseCall(text));
+                }
+                out.write('\n');
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * 读取一行到line（不含换行符），超过maxFrameBytes的部分直接丢弃，避免超长行占用内存
+     *
+     * @return 行的实际字节数，没有更多数据时返回-1
+     */
+    private long readLine(InputStream in, ByteArrayOutputStream line) throws IOException {
+        line.reset();
+        long length = 0;
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (length++ < maxFrameBytes) {
+                line.write(b);
+            }
+        }
+        return b < 0 && length == 0 ? -1 : length;
+    }
+
+    /**
+     * 二进制分帧：4字节大端长度 + UTF-8 JSON，响应使用相同分帧
+     */
+    private void handleBinary(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_BINARY);
+        exchange.sendResponseHeaders(200, 0);
+        DataInputStream in = new DataInputStream(exchange.getRequestBody());
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(exchange.getResponseBody())) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                frame.reset();
+                Writer frameWriter = new OutputStreamWriter(frame, StandardCharsets.UTF_8);
+                if (length < 0 || length > maxFrameBytes) {
+                    // 长度非法时无法定位下一帧，写出错误后结束
+                    writeError(frameWriter, null, "帧长度非法: " + length);
+                    frameWriter.flush();
+                    writeFrame(out, frame);
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                writeResult(frameWriter, parseCall(new String(payload, StandardCharsets.UTF_8)));
+                frameWriter.flush();
+                writeFrame(out, frame);
+            }
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, ByteArrayOutputStream frame) throws IOException {
+        out.writeInt(frame.size());
+        frame.writeTo(out);
+        out.flush();
+    }
+
+    private static Object parseCall(String text) {
+        try {
+            return JSONUtil.parse(text);
+        } catch (Exception e) {
+            return new InvalidCall("调用不是合法的JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一个调用并写出结果
+     */
+    private void writeResult(Writer out, Object call) throws IOException {
+        if (call instanceof InvalidCall) {
+            writeError(out, null, ((InvalidCall) call).message);
+            return;
+        }
+        if (!(call instanceof JSONObject)) {
+            writeError(out, null, "调用必须是JSON对象");
+            return;
+        }
+        JSONObject request = (JSONObject) call;
+        Object id = request.get("id");
+        String serviceName = request.getStr("service");
+        String methodName = request.getStr("method");
+        if (StrUtil.isEmpty(serviceName) || StrUtil.isEmpty(methodName)) {
+            writeError(out, id, "service和method不能为空");
+            return;
+        }
+        Set<String> allowedMethods = allowList.get(serviceName);
+        if (allowedMethods == null || !allowedMethods.contains(methodName)) {
+            log.warn(LOG_PREFIX + " 拒绝未授权的调用: {}.{}", serviceName, methodName);
+            writeError(out, id, "不允许调用: " + serviceName + "." + methodName);
+            return;
+        }
+
+        Object result;
+        try {
+            Object service = SpringUtils.getBean(serviceName);
+            if (service == null) {
+                writeError(out, id, "Bean不存在: " + serviceName);
+                return;
+            }
+            result = SpringServiceCaller.invokeWithBoundArgs(service, methodName, request.get("args"));
+            if (AsyncResultSupport.isAsync(result)) {
+                result = AsyncResultSupport.await(result);
+            }
+        } catch (Exception e) {
+            log.error(LOG_PREFIX + " 调用失败: {}.{}, 错误: {}", serviceName, methodName, e.getMessage(), e);
+            writeError(out, id, e.getClass().getSimpleName() + ": " + e.getMessage());
+            return;
+        }
+
+        // 先把结果转换为JSON树，转换失败时还没有写出任何内容，可以改为写出该调用的错误
+        Object tree;
+        try {
+            tree = toJsonTree(result);
+        } catch (Exception e) {
+            log.error(LOG_PREFIX + " 结果无法序列化: {}.{}, 错误: {}", serviceName, methodName, e.getMessage(), e);
+            writeError(out, id, "结果无法序列化为JSON: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+            return;
+        }
+        out.write("{\"id\":");
+        writeValue(out, id);
+        out.write(",\"ok\":true,\"result\":");
+        writeValue(out, tree);
+        out.write('}');
+    }
+
+    /**
+     * 对象和集合转换为JSON树，字符串、数字等简单值原样返回
+     */
+    private static Object toJsonTree(Object value) {
+        if (value == null || value instanceof JSON || value instanceof CharSequence || value instanceof Character
+                || value instanceof Enum || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        return JSONUtil.parse(value);
+    }
+
+    private static void writeError(Writer out, Object id, String message) throws IOException {
+        out.write("{\"id\":");
+        writeValue(out, id);
+        out.write(",\"ok\":false,\"error\":");
+        JSONUtil.quote(message, out);
+        out.write('}');
+    }
+
+    /**
+     * 把值以JSON写出（JSON树直接写到输出流，不生成中间字符串）
+     */
+    private static void writeValue(Writer out, Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof CharSequence || value instanceof Character || value instanceof Enum) {
+            JSONUtil.quote(value instanceof Enum ? ((Enum<?>) value).name() : value.toString(), out);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof JSON) {
+            ((JSON) value).write(out);
+        } else {
+            JSONUtil.parse(value).write(out);
+        }
+    }
+
+    private static Writer newWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+    }
+
+    /**
+     * 读取整个请求体
+     *
+     * @return 请求体文本，超过maxFrameBytes时返回null
+     */
+    private String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            body.write(buffer, 0, n);
+            if (body.size() > maxFrameBytes) {
+                return null;
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ("{\"ok\":false,\"error\":" + JSONUtil.quote(message) + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * 无法解析的调用
+     */
+    private static final class InvalidCall {
+
+        private final String message;
+
+        InvalidCall(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * 网关配置
+     */
+    public static final class Builder {
+
+        private InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        private final Map<String, Set<String>> allowList = new HashMap<>();
+        private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private int maxFrameBytes = 16 * 1024 * 1024;
+        private String secret;
+
+        private Builder() {
+        }
+
+        /**
+         * 监听端口（只监听回环地址），0表示由系统分配
+         */
+        public Builder port(int port) {
+            this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            return this;
+        }
+
+        /**
+         * 监听地址（默认127.0.0.1，监听其它地址时必须配置共享密钥）
+         */
+        public Builder address(InetSocketAddress address) {
+            this.address = address;
+            return this;
+        }
+
+        /**
+         * 允许调用的Bean和方法
+         *
+         * @param beanName Bean名称
+         * @param methodNames 方法名
+         */
+        public Builder allow(String beanName, String... methodNames) {
+            Set<String> methods = allowList.computeIfAbsent(beanName, key -> new LinkedHashSet<>());
+            Collections.addAll(methods, methodNames);
+            return this;
+        }
+
+        /**
+         * 处理请求的线程数，默认为CPU核数（至少2）
+         */
+        public Builder threads(int threads) {
+            this.threads = Math.max(1, threads);
+            return this;
+        }
+
+        /**
+         * 单个调用（JSON请求体、NDJSON行、二进制帧）的最大字节数，默认16MB
+         */
+        public Builder maxFrameBytes(int maxFrameBytes) {
+            this.maxFrameBytes = maxFrameBytes;
+            return this;
+        }
+
+        /**
+         * 共享密钥，配置后每个请求都必须带 X-Gateway-Token 请求头
+         */
+        public Builder secret(String secret) {
+            if (StrUtil.isEmpty(secret)) {
+                throw new IllegalArgumentException("共享密钥不能为空");
+            }
+            this.secret = secret;
+            return this;
+        }
+
+        public ServiceDispatchGateway build() {
+            return new ServiceDispatchGateway(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.chestnut.api.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * 编译后的Service调用链
+ * 每个 (Service类, 方法) 解析时生成一次并缓存，链上每个节点持有一个拦截器和下一个节点，最后一个节点反射调用目标方法。
+ * 节点不可变且不保存调用状态，调用时不分配任何对象，可被多个线程并发使用
+ *
+ * @author shenmiren21
+ */
+public final class ServiceInvocation {
+
+    private final Class<?> serviceClass;
+    private final Method method;
+    private final ServiceInvocationInterceptor interceptor;
+    private final ServiceInvocation next;
+    private final int interceptorCount;
+
+    private ServiceInvocation(Class<?> serviceClass, Method method,
+                              ServiceInvocationInterceptor interceptor, ServiceInvocation next) {
+        this.serviceClass = serviceClass;
+        this.method = method;
+        this.interceptor = interceptor;
+        this.next = next;
+        this.interceptorCount = next == null ? 0 : next.interceptorCount + 1;
+    }
+
+    /**
+     * 编译调用链：只保留 supports() 返回true的拦截器，顺序与传入顺序一致
+     *
+     * @param serviceClass Service实际类型
+     * @param method 目标方法
+     * @param interceptors 已排序的拦截器
+     * @return 调用链头节点，没有适用拦截器时为直接调用节点
+     */
+    static ServiceInvocation compile(Class<?> serviceClass, Method method, List<ServiceInvocationInterceptor> interceptors) {
+        ServiceInvocation chain = new ServiceInvocation(serviceClass, method, null, null);
+        for (int i = interceptors.size() - 1; i >= 0; i--) {
+            ServiceInvocationInterceptor candidate = interceptors.get(i);
+            if (candidate.supports(serviceClass, method)) {
+                chain = new ServiceInvocation(serviceClass, method, candidate, chain);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * 执行当前节点及后续调用
+     *
+     * @param service Service实例
+     * @param args 方法参数
+     * @return 方法返回值
+     * @throws Exception 目标方法抛出的原始异常或拦截器抛出的异常
+     */
+    public Object proceed(Object service, Object[] args) throws Exception {
+        if (interceptor != null) {
+            return interceptor.intercept(next, service, args);
+        }
+        try {
+            return method.invoke(service, args);
+        } catch (InvocationTargetException e) {
+            Throwable target = e.getTargetException();
+            if (target instanceof Exception) {
+                throw (Exception) target;
+            }
+            if (target instanceof Error) {
+                throw (Error) target;
+            }
+            throw e;
+        }
+    }
+
+    public Class<?> getServiceClass() {
+        return serviceClass;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 当前节点之后（含当前节点）的拦截器数量，0表示直接调用目标方法
+     */
+    public int getInterceptorCount() {
+        return interceptorCount;
+    }
+
+    @Override
+    public String toString() {
+        return serviceClass.getSimpleName() + "." + method.getName() + "[拦截器=" + interceptorCount + "]";
+    }
+}
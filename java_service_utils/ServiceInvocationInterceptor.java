@@ -0,0 +1,38 @@
+package com.chestnut.api.utils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Service动态调用拦截器
+ * 注册为Spring Bean后由 ServiceInvocationInterceptorRegistrar 收集，按 Ordered / @Order 排序组成拦截器链，
+ * 可用于权限校验、租户上下文、耗时统计、结果缓存等横切逻辑
+ *
+ * <p>拦截器链在方法解析时按 (Service类, 方法) 编译并缓存：supports() 只在解析时调用一次，
+ * 没有适用拦截器的方法直接反射调用，不经过任何拦截逻辑</p>
+ *
+ * @author shenmiren21
+ */
+public interface ServiceInvocationInterceptor {
+
+    /**
+     * 是否拦截该方法（方法解析时调用一次，结果随拦截器链缓存）
+     *
+     * @param serviceClass Service实际类型
+     * @param method 解析到的方法
+     * @return 是否拦截
+     */
+    default boolean supports(Class<?> serviceClass, Method method) {
+        return true;
+    }
+
+    /**
+     * 拦截调用，调用 invocation.proceed(service, args) 执行后续拦截器和目标方法
+     *
+     * @param invocation 后续调用链（同时提供Service类型和方法信息）
+     * @param service Service实例
+     * @param args 方法参数（可替换后传给proceed）
+     * @return 方法返回值（可替换）
+     * @throws Exception 目标方法或拦截器抛出的异常
+     */
+    Object intercept(ServiceInvocation invocation, Object service, Object[] args) throws Exception;
+}
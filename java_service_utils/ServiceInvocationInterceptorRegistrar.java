@@ -0,0 +1,36 @@
+package com.chestnut.api.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 拦截器注册器
+ * 在所有单例初始化完成后收集容器中的 ServiceInvocationInterceptor（按 Ordered / @Order 排序），
+ * 注册到 SpringServiceCaller；未被组件扫描到时可以通过 @Bean 手动声明
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+@Component
+public class ServiceInvocationInterceptorRegistrar implements SmartInitializingSingleton {
+
+    private static final String LOG_PREFIX = "[ServiceInvocationInterceptorRegistrar]";
+
+    private final ObjectProvider<ServiceInvocationInterceptor> interceptors;
+
+    public ServiceInvocationInterceptorRegistrar(ObjectProvider<ServiceInvocationInterceptor> interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<ServiceInvocationInterceptor> ordered = interceptors.orderedStream().collect(Collectors.toList());
+        SpringServiceCaller.setInterceptors(ordered);
+        log.info(LOG_PREFIX + " 已注册{}个Service调用拦截器", ordered.size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.chestnut.api.utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 大结果溢出策略
+ * 序列化后的结果超过阈值时，不再以String保存在堆上，而是写入堆外内存或内存映射的临时文件
+ *
+ * @author shenmiren21
+ */
+public final class SpillPolicy {
+
+    /** 默认溢出阈值：1MB */
+    public static final long DEFAULT_THRESHOLD_BYTES = 1024L * 1024;
+
+    /** 默认堆外内存总预算：256MB（所有未关闭结果共享） */
+    public static final long DEFAULT_MAX_OFF_HEAP_BYTES = 256L * 1024 * 1024;
+
+    /** 默认堆外分块大小：1MB */
+    public static final int DEFAULT_CHUNK_BYTES = 1024 * 1024;
+
+    private final long thresholdBytes;
+    private final SpilledResult.Storage storage;
+    private final long maxOffHeapBytes;
+    private final int chunkBytes;
+    private final Path directory;
+
+    private SpillPolicy(long thresholdBytes, SpilledResult.Storage storage, long maxOffHeapBytes,
+                        int chunkBytes, Path directory) {
+        if (thresholdBytes < 0 || maxOffHeapBytes < 0 || chunkBytes <= 0) {
+            throw new IllegalArgumentException("溢出策略参数不合法: threshold=" + thresholdBytes
+                    + ", maxOffHeap=" + maxOffHeapBytes + ", chunk=" + chunkBytes);
+        }
+        this.thresholdBytes = thresholdBytes;
+        this.storage = storage;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+        this.chunkBytes = chunkBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * 默认策略：超过1MB写入堆外内存，堆外预算用尽时改用内存映射文件
+     */
+    public static SpillPolicy defaults() {
+        return offHeap(DEFAULT_THRESHOLD_BYTES);
+    }
+
+    /**
+     * 不溢出，结果始终保存在堆上（与原有行为一致）
+     */
+    public static SpillPolicy disabled() {
+        return new SpillPolicy(Long.MAX_VALUE, SpilledResult.Storage.HEAP, 0, DEFAULT_CHUNK_BYTES, defaultDirectory());
+    }
+
+    /**
+     * 超过阈值写入堆外内存
+     *
+     * @param thresholdBytes 溢出阈值（字节）
+     */
+    public static SpillPolicy offHeap(long thresholdBytes) {
+        return new SpillPolicy(thresholdBytes, SpilledResult.Storage.OFF_HEAP, DEFAULT_MAX_OFF_HEAP_BYTES,
+                DEFAULT_CHUNK_BYTES, defaultDirectory());
+    }
+
+    /**
+     * 超过阈值写入内存映射的临时文件
+     *
+     * @param thresholdBytes 溢出阈值（字节）
+     * @param directory 临时文件目录
+     */
+    public static SpillPolicy mappedFile(long thresholdBytes, Path directory) {
+        return new SpillPolicy(thresholdBytes, SpilledResult.Storage.MAPPED_FILE, 0, DEFAULT_CHUNK_BYTES, directory);
+    }
+
+    /**
+     * 调整堆外内存总预算和分块大小
+     */
+    public SpillPolicy withOffHeapBudget(long maxOffHeapBytes, int chunkBytes) {
+        return new SpillPolicy(thresholdBytes, storage, maxOffHeapBytes, chunkBytes, directory);
+    }
+
+    /**
+     * 调整临时文件目录（堆外预算用尽时的降级文件也写在这里）
+     */
+    public SpillPolicy withDirectory(Path directory) {
+        return new SpillPolicy(thresholdBytes, storage, maxOffHeapBytes, chunkBytes, directory);
+    }
+
+    public long getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    public SpilledResult.Storage getStorage() {
+        return storage;
+    }
+
+    public long getMaxOffHeapBytes() {
+        return maxOffHeapBytes;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private static Path defaultDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    @Override
+    public String toString() {
+        return "SpillPolicy{threshold=" + thresholdBytes + ", storage=" + storage
+                + ", maxOffHeap=" + maxOffHeapBytes + ", chunk=" + chunkBytes + ", directory=" + directory + "}";
+    }
+}
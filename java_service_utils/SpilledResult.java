@@ -0,0 +1,530 @@
+package com.chestnut.api.utils;
+
+import cn.hutool.json.JSON;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONConfig;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONTokener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service调用结果（可能已溢出到堆外）
+ * 小结果以String保存在堆上；超过 SpillPolicy 阈值的结果以UTF-8字节保存在堆外内存分块或内存映射的临时文件中，
+ * 通过流、Reader或只读ByteBuffer视图按需读取，不会整体物化为String
+ *
+ * <p>溢出结果占用堆外内存或临时文件，必须在使用完后关闭（建议使用try-with-resources）：
+ * 关闭时堆外分块归还到共享池供后续结果复用，临时文件被删除。关闭后 openStream() / openReader() 返回的流
+ * 读取时抛出IOException；asByteBuffers() 返回的视图无法感知关闭，因此暴露过视图的堆外分块关闭时不再归还到池中，
+ * 只释放预算并交给GC回收，视图始终读到本结果的数据。忘记关闭的结果被GC回收后，其分块和临时文件在下次溢出时释放</p>
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+public final class SpilledResult implements AutoCloseable {
+
+    private static final String LOG_PREFIX = "[SpilledResult]";
+
+    /** 内存映射文件每段的最大长度 */
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * 结果存储位置
+     */
+    public enum Storage {
+        /** 堆上String */
+        HEAP,
+        /** 堆外内存分块 */
+        OFF_HEAP,
+        /** 内存映射的临时文件 */
+        MAPPED_FILE
+    }
+
+    private final Storage storage;
+    private final String text;
+    private final List<ByteBuffer> chunks;
+    private final Path file;
+    private final long size;
+    private volatile List<ByteBuffer> segments;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    /** 流读取持有读锁，关闭持有写锁：关闭后分块才会归还，进行中的读取不会读到其他结果的数据 */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Resources resources;
+    private final LeakTracker tracker;
+
+    private SpilledResult(Storage storage, String text, List<ByteBuffer> chunks, Path file, long size) {
+        this.storage = storage;
+        this.text = text;
+        this.chunks = chunks;
+        this.file = file;
+        this.size = size;
+        if (storage == Storage.HEAP) {
+            this.resources = null;
+            this.tracker = null;
+        } else {
+            LeakTracker.reclaim();
+            this.resources = new Resources(chunks, file, size);
+            this.tracker = new LeakTracker(this, resources);
+        }
+    }
+
+    static SpilledResult onHeap(String text) {
+        return new SpilledResult(Storage.HEAP, text, null, null, -1);
+    }
+
+    static SpilledResult offHeap(List<ByteBuffer> chunks, long size) {
+        return new SpilledResult(Storage.OFF_HEAP, null, chunks, null, size);
+    }
+
+    static SpilledResult mappedFile(Path file, long size) {
+        return new SpilledResult(Storage.MAPPED_FILE, null, null, file, size);
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * 是否已溢出到堆外或文件
+     */
+    public boolean isSpilled() {
+        return storage != Storage.HEAP;
+    }
+
+    /**
+     * 结果的UTF-8字节数
+     */
+    public long size() {
+        return storage == Storage.HEAP ? text.getBytes(StandardCharsets.UTF_8).length : size;
+    }
+
+    /**
+     * 临时文件路径（仅MAPPED_FILE）
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 以UTF-8字节流读取结果，每次调用返回独立的流
+     *
+     * @return 输入流
+     */
+    public InputStream openStream() throws IOException {
+        ensureOpen();
+        if (storage == Storage.HEAP) {
+            return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return new BuffersInputStream(views());
+    }
+
+    /**
+     * 以字符流读取结果
+     *
+     * @return Reader
+     */
+    public Reader openReader() throws IOException {
+        ensureOpen();
+        if (storage == Storage.HEAP) {
+            return new StringReader(text);
+        }
+        return new BufferedReader(new InputStreamReader(openStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 只读字节视图（不复制数据），内存映射文件在首次访问时才建立映射
+     * 视图应在结果关闭前使用完；暴露过视图的堆外分块关闭后不会被其他结果复用
+     *
+     * @return 按顺序排列的只读ByteBuffer
+     */
+    public List<ByteBuffer> asByteBuffers() throws IOException {
+        if (resources != null) {
+            resources.exposed = true;
+        }
+        return views();
+    }
+
+    private List<ByteBuffer> views() throws IOException {
+        ensureOpen();
+        List<ByteBuffer> source;
+        switch (storage) {
+            case HEAP:
+                return Collections.singletonList(
+                        ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer());
+            case OFF_HEAP:
+                source = chunks;
+                break;
+            default:
+                source = mapSegments();
+        }
+        List<ByteBuffer> views = new ArrayList<>(source.size());
+        for (ByteBuffer buffer : source) {
+            views.add(buffer.asReadOnlyBuffer());
+        }
+        return views;
+    }
+
+    /**
+     * 把结果流式解析为指定类型（不经过完整的JSON字符串）
+     *
+     * @param <T> 目标类型
+     * @param type 目标类型，支持泛型
+     * @return 转换后的对象
+     */
+    public <T> T toBean(Type type) throws IOException {
+        JSONConfig config = JSONConfig.create();
+        try (Reader reader = openReader()) {
+            Reader in = reader.markSupported() ? reader : new BufferedReader(reader);
+            int first = firstNonWhitespace(in);
+            JSON json = first == '['
+                    ? new JSONArray(new JSONTokener(in, config), config)
+                    : new JSONObject(new JSONTokener(in, config), config);
+            return json.toBean(type);
+        }
+    }
+
+    /**
+     * 物化为String（溢出结果会在堆上分配完整副本，仅用于小结果或调试）
+     *
+     * @return 结果字符串
+     */
+    public String asString() throws IOException {
+        ensureOpen();
+        if (storage == Storage.HEAP) {
+            return text;
+        }
+        log.warn(LOG_PREFIX + " 溢出结果被物化为String: {}字节", size);
+        StringBuilder builder = new StringBuilder((int) Math.min(size, Integer.MAX_VALUE - 8));
+        char[] buffer = new char[8192];
+        try (Reader reader = openReader()) {
+            int n;
+            while ((n = reader.read(buffer)) > 0) {
+                builder.append(buffer, 0, n);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 释放堆外分块和临时文件，重复调用无副作用
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            // Java 8无法主动解除映射，丢弃引用后由GC回收；Linux下删除已映射的文件是安全的
+            segments = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (tracker != null) {
+            tracker.untrack();
+            resources.release(false);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SpilledResult{storage=" + storage + ", size=" + (storage == Storage.HEAP ? text.length() + "字符" : size + "字节")
+                + (file != null ? ", file=" + file : "") + (closed.get() ? ", closed" : "") + "}";
+    }
+
+    private void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException(LOG_PREFIX + " 结果已关闭");
+        }
+    }
+
+    private List<ByteBuffer> mapSegments() throws IOException {
+        List<ByteBuffer> mapped = segments;
+        if (mapped != null) {
+            return mapped;
+        }
+        synchronized (this) {
+            if (segments == null) {
+                List<ByteBuffer> list = new ArrayList<>();
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    for (long offset = 0; offset < size; offset += MAX_SEGMENT_BYTES) {
+                        list.add(channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                                Math.min(MAX_SEGMENT_BYTES, size - offset)));
+                    }
+                }
+                segments = list;
+            }
+            return segments;
+        }
+    }
+
+    private static int firstNonWhitespace(Reader reader) throws IOException {
+        while (true) {
+            reader.mark(1);
+            int c = reader.read();
+            if (c < 0 || !Character.isWhitespace(c)) {
+                reader.reset();
+                return c;
+            }
+        }
+    }
+
+    /**
+     * 顺序读取多个ByteBuffer的输入流，每次读取都在读锁内检查结果是否已关闭
+     */
+    private final class BuffersInputStream extends InputStream {
+
+        private final List<ByteBuffer> buffers;
+        private int index;
+
+        BuffersInputStream(List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            lock.readLock().lock();
+            try {
+                checkOpen();
+                ByteBuffer current = current();
+                return current == null ? -1 : current.get() & 0xFF;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            lock.readLock().lock();
+            try {
+                checkOpen();
+                ByteBuffer current = current();
+                if (current == null) {
+                    return -1;
+                }
+                int n = Math.min(len, current.remaining());
+                current.get(b, off, n);
+                return n;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            lock.readLock().lock();
+            try {
+                checkOpen();
+                ByteBuffer current = current();
+                return current == null ? 0 : current.remaining();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed.get()) {
+                throw new IOException(LOG_PREFIX + " 结果已关闭");
+            }
+        }
+
+        private ByteBuffer current() {
+            while (index < buffers.size()) {
+                ByteBuffer buffer = buffers.get(index);
+                if (buffer.hasRemaining()) {
+                    return buffer;
+                }
+                index++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 溢出结果持有的堆外分块和临时文件（不引用结果本身，结果被GC回收后仍可释放）
+     */
+    private static final class Resources {
+
+        private final List<ByteBuffer> chunks;
+        private final Path file;
+        private final long size;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        /** 是否通过 asByteBuffers() 暴露过分块视图 */
+        private volatile boolean exposed;
+
+        Resources(List<ByteBuffer> chunks, Path file, long size) {
+            this.chunks = chunks;
+            this.file = file;
+            this.size = size;
+        }
+
+        void release(boolean leaked) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (leaked) {
+                log.warn(LOG_PREFIX + " 溢出结果未关闭即被回收: {}字节{}", size, file != null ? ", file=" + file : "");
+            }
+            if (chunks != null) {
+                for (ByteBuffer chunk : chunks) {
+                    if (exposed || leaked) {
+                        // 视图可能仍在使用，不能交给其他结果复用
+                        DirectChunkPool.discard(chunk);
+                    } else {
+                        DirectChunkPool.release(chunk);
+                    }
+                }
+            }
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn(LOG_PREFIX + " 删除临时文件失败: {}, 错误: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 未关闭结果的兜底回收：结果只剩虚引用时，在下次创建溢出结果时释放其资源（Java 8没有Cleaner）
+     */
+    private static final class LeakTracker extends PhantomReference<SpilledResult> {
+
+        private static final ReferenceQueue<SpilledResult> QUEUE = new ReferenceQueue<>();
+        /** 保持虚引用本身可达 */
+        private static final Set<LeakTracker> LIVE = ConcurrentHashMap.newKeySet();
+
+        private final Resources resources;
+
+        LeakTracker(SpilledResult result, Resources resources) {
+            super(result, QUEUE);
+            this.resources = resources;
+            LIVE.add(this);
+        }
+
+        void untrack() {
+            LIVE.remove(this);
+            clear();
+        }
+
+        static void reclaim() {
+            Reference<? extends SpilledResult> reference;
+            while ((reference = QUEUE.poll()) != null) {
+                LeakTracker tracker = (LeakTracker) reference;
+                LIVE.remove(tracker);
+                tracker.resources.release(true);
+            }
+        }
+    }
+
+    /**
+     * 堆外分块池
+     * 所有结果共享一个堆外预算；关闭的结果把分块归还到池中，后续结果直接复用，避免反复申请直接内存。
+     * 池中空闲分块最多保留 MAX_IDLE_BYTES，超出的分块直接丢弃，突发的大结果过后不会一直占用整个预算
+     */
+    static final class DirectChunkPool {
+
+        /** 池中空闲分块的最大总字节数 */
+        static final long MAX_IDLE_BYTES = 32L * 1024 * 1024;
+
+        private static final ConcurrentLinkedQueue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+        private static final AtomicLong RESERVED = new AtomicLong();
+        private static final AtomicInteger FREE_COUNT = new AtomicInteger();
+
+        private DirectChunkPool() {
+        }
+
+        /**
+         * 申请一个分块，超出预算时返回null
+         */
+        static ByteBuffer acquire(int chunkBytes, long maxBytes) {
+            LeakTracker.reclaim();
+            ByteBuffer chunk;
+            while ((chunk = FREE.poll()) != null) {
+                FREE_COUNT.decrementAndGet();
+                if (chunk.capacity() == chunkBytes) {
+                    chunk.clear();
+                    return chunk;
+                }
+                // 分块大小配置变化后，旧分块直接丢弃
+                RESERVED.addAndGet(-chunk.capacity());
+            }
+            long reserved;
+            do {
+                reserved = RESERVED.get();
+                if (reserved + chunkBytes > maxBytes) {
+                    return null;
+                }
+            } while (!RESERVED.compareAndSet(reserved, reserved + chunkBytes));
+            return ByteBuffer.allocateDirect(chunkBytes);
+        }
+
+        /**
+         * 归还分块，空闲分块已达上限时丢弃
+         */
+        static void release(ByteBuffer chunk) {
+            if ((long) FREE_COUNT.incrementAndGet() * chunk.capacity() > MAX_IDLE_BYTES) {
+                FREE_COUNT.decrementAndGet();
+                discard(chunk);
+                return;
+            }
+            chunk.clear();
+            FREE.offer(chunk);
+        }
+
+        /**
+         * 丢弃分块：释放预算但不放回池中，直接内存在分块及其视图不可达后由GC释放
+         */
+        static void discard(ByteBuffer chunk) {
+            RESERVED.addAndGet(-chunk.capacity());
+        }
+
+        /**
+         * 已申请的堆外字节数（包括池中空闲的分块）
+         */
+        static long reservedBytes() {
+            return RESERVED.get();
+        }
+
+        /**
+         * 池中空闲分块数
+         */
+        static int freeChunks() {
+            return FREE_COUNT.get();
+        }
+    }
+}
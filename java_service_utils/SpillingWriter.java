@@ -0,0 +1,277 @@
+package com.chestnut.api.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 溢出写入器
+ * 先在堆上缓冲，写入量超过阈值后把已写内容和后续内容以UTF-8编码写入堆外分块或临时文件；
+ * 堆外预算用尽时自动降级为临时文件。完成写入后调用 finish() 得到 SpilledResult
+ *
+ * @author shenmiren21
+ */
+@Slf4j
+final class SpillingWriter extends Writer {
+
+    private static final String LOG_PREFIX = "[SpillingWriter]";
+
+    /** 编码前的字符缓冲大小 */
+    private static final int CHAR_BUFFER_SIZE = 8192;
+    /** 写文件时的直接内存缓冲大小 */
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final SpillPolicy policy;
+    private StringBuilder heap = new StringBuilder();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer pending;
+    private List<ByteBuffer> chunks;
+    private ByteBuffer current;
+    private Path file;
+    private FileChannel channel;
+    private long size;
+    private boolean finished;
+
+    SpillingWriter(SpillPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException(LOG_PREFIX + " 写入器已完成");
+        }
+        if (heap != null) {
+            heap.append(cbuf, off, len);
+            // UTF-8下字节数不少于字符数，字符数超过阈值时字节数必然超过
+            if (heap.length() > policy.getThresholdBytes() && policy.getStorage() != SpilledResult.Storage.HEAP) {
+                spill();
+            }
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, pending.remaining());
+            pending.put(cbuf, off, n);
+            off += n;
+            len -= n;
+            if (!pending.hasRemaining()) {
+                encodePending(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (heap != null && !finished) {
+            heap.append(str, off, off + len);
+            if (heap.length() > policy.getThresholdBytes() && policy.getStorage() != SpilledResult.Storage.HEAP) {
+                spill();
+            }
+            return;
+        }
+        if (finished) {
+            throw new IOException(LOG_PREFIX + " 写入器已完成");
+        }
+        while (len > 0) {
+            int n = Math.min(len, pending.remaining());
+            str.getChars(off, off + n, pending.array(), pending.arrayOffset() + pending.position());
+            pending.position(pending.position() + n);
+            off += n;
+            len -= n;
+            if (!pending.hasRemaining()) {
+                encodePending(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        // 编码缓冲在finish时统一写出
+    }
+
+    /**
+     * 结束写入并返回结果；失败时释放已申请的资源
+     */
+    SpilledResult finish() throws IOException {
+        if (finished) {
+            throw new IOException(LOG_PREFIX + " 写入器已完成");
+        }
+        finished = true;
+        if (heap != null) {
+            String text = heap.toString();
+            heap = null;
+            return SpilledResult.onHeap(text);
+        }
+        try {
+            encodePending(true);
+            flushEncoder();
+            if (channel != null) {
+                channel.close();
+                log.debug(LOG_PREFIX + " 结果写入临时文件: {}, {}字节", file, size);
+                return SpilledResult.mappedFile(file, size);
+            }
+            for (ByteBuffer chunk : chunks) {
+                size += chunk.position();
+                chunk.flip();
+            }
+            log.debug(LOG_PREFIX + " 结果写入堆外内存: {}个分块, {}字节", chunks.size(), size);
+            return SpilledResult.offHeap(chunks, size);
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃写入，释放堆外分块并删除临时文件
+     */
+    void discard() {
+        finished = true;
+        heap = null;
+        if (chunks != null) {
+            for (ByteBuffer chunk : chunks) {
+                SpilledResult.DirectChunkPool.release(chunk);
+            }
+            chunks = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn(LOG_PREFIX + " 清理临时文件失败: {}, 错误: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // 由finish()或discard()决定结果去向
+    }
+
+    /**
+     * 超过阈值：切换到溢出存储，并把堆上已缓冲的内容编码写出
+     */
+    private void spill() throws IOException {
+        StringBuilder buffered = heap;
+        heap = null;
+        pending = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        if (policy.getStorage() == SpilledResult.Storage.OFF_HEAP) {
+            chunks = new ArrayList<>();
+        } else {
+            openFile();
+        }
+        // 分段复制到编码缓冲，避免再生成一份完整的String
+        char[] copy = new char[CHAR_BUFFER_SIZE];
+        for (int start = 0; start < buffered.length(); start += CHAR_BUFFER_SIZE) {
+            int end = Math.min(buffered.length(), start + CHAR_BUFFER_SIZE);
+            buffered.getChars(start, end, copy, 0);
+            write(copy, 0, end - start);
+        }
+    }
+
+    private void encodePending(boolean endOfInput) throws IOException {
+        pending.flip();
+        while (true) {
+            CoderResult result = encoder.encode(pending, output(), endOfInput);
+            if (result.isOverflow()) {
+                rotate();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        // 未编码完的代理对前半部分留到下一轮
+        pending.compact();
+    }
+
+    private void flushEncoder() throws IOException {
+        while (encoder.flush(output()).isOverflow()) {
+            rotate();
+        }
+        if (channel != null) {
+            writeFileBuffer();
+        }
+    }
+
+    /**
+     * 当前输出缓冲：堆外模式为当前分块，文件模式为写文件缓冲
+     */
+    private ByteBuffer output() throws IOException {
+        if (current == null || !current.hasRemaining()) {
+            rotate();
+        }
+        return current;
+    }
+
+    /**
+     * 当前缓冲写满时的处理：堆外模式申请新分块（上一分块末尾放不下一个完整字符的空间直接留空），文件模式写入文件
+     */
+    private void rotate() throws IOException {
+        if (channel != null) {
+            writeFileBuffer();
+            return;
+        }
+        ByteBuffer chunk = SpilledResult.DirectChunkPool.acquire(policy.getChunkBytes(), policy.getMaxOffHeapBytes());
+        if (chunk == null) {
+            log.info(LOG_PREFIX + " 堆外内存预算已用尽，改用临时文件: 已使用{}字节",
+                    SpilledResult.DirectChunkPool.reservedBytes());
+            switchToFile();
+            return;
+        }
+        chunks.add(chunk);
+        current = chunk;
+    }
+
+    private void writeFileBuffer() throws IOException {
+        if (current == null) {
+            current = ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+            return;
+        }
+        current.flip();
+        while (current.hasRemaining()) {
+            size += channel.write(current);
+        }
+        current.clear();
+    }
+
+    /**
+     * 堆外预算用尽：把已写入的分块转存到临时文件，后续内容直接写文件
+     */
+    private void switchToFile() throws IOException {
+        openFile();
+        size = 0;
+        for (ByteBuffer chunk : chunks) {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                size += channel.write(chunk);
+            }
+            SpilledResult.DirectChunkPool.release(chunk);
+        }
+        chunks = null;
+        current = ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+    }
+
+    private void openFile() throws IOException {
+        Files.createDirectories(policy.getDirectory());
+        file = Files.createTempFile(policy.getDirectory(), "service-result-", ".json");
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
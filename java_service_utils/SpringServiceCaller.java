@@ -4,11 +4,18 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.chestnut.common.utils.SpringUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -40,6 +47,13 @@ public class SpringServiceCaller {
     private static final String JSON_OBJECT_START = "{";
     private static final String JSON_OBJECT_END = "}";
 
+    // 大结果溢出策略
+    private static volatile SpillPolicy spillPolicy = SpillPolicy.defaults();
+
+    // 拦截器及按拦截器编译的方法解析缓存（更新拦截器时整体替换）
+    private static volatile InvocationRegistry invocationRegistry =
+            new InvocationRegistry(Collections.<ServiceInvocationInterceptor>emptyList());
+
     /**
      * 通用方法调用
      * @param <T> 返回值类型
@@ -67,7 +81,161 @@ public class SpringServiceCaller {
             }
 
             String jsonResult = invokeServiceForJson(service, methodName, args);
-            return convertJsonToType(jsonResult, returnType);
+            return convertJsonToType(jsonResult, returnType, serviceClass, methodName);
+
+        } catch (Exception e) {
+            log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
+                    serviceClass.getSimpleName(), methodName, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 通用方法调用（异步版本）
+     * Service方法返回 CompletableFuture / Future / Mono / Flux 时，结果转换组合在异步结果之上，不阻塞调用线程；
+     * 返回普通值时得到已完成的结果。Flux会收集为List后转换，需要逐个元素处理时使用 ReactiveServiceCaller
+     * @param <T> 返回值类型
+     * @param <R> Service类型
+     * @param returnType 返回值类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 异步结果，调用或转换失败时以null完成
+     */
+    public static <T, R> CompletableFuture<T> invokeServiceAsync(Class<T> returnType, Class<R> serviceClass,
+                                                                 String methodName, Object... args) {
+        Object result = invokeServiceRaw(serviceClass, methodName, args);
+        if (!AsyncResultSupport.isAsync(result)) {
+            return CompletableFuture.completedFuture(convertResult(result, returnType, serviceClass, methodName));
+        }
+
+        return AsyncResultSupport.toFuture(result).handle((value, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 异步结果失败: {}",
+                        serviceClass.getSimpleName(), methodName, cause.getMessage(), cause);
+                return null;
+            }
+            log.info(METHOD_INVOCATION_SUCCESS_INFO + "（异步完成）: {}.{}", serviceClass.getSimpleName(), methodName);
+            return convertResult(value, returnType, serviceClass, methodName);
+        });
+    }
+
+    /**
+     * 获取Service实例并调用方法，返回未经转换的原始结果（可能是异步返回值）
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 方法返回值，调用失败或返回null时为null
+     */
+    static <R> Object invokeServiceRaw(Class<R> serviceClass, String methodName, Object[] args) {
+        if (serviceClass == null || StrUtil.isEmpty(methodName)) {
+            log.error(PARAM_NOT_FOUND_ERROR + ": serviceClass={}, methodName={}", serviceClass, methodName);
+            return null;
+        }
+
+        try {
+            log.info(METHOD_INVOCATION_START_INFO + ": {}, 方法: {}", serviceClass.getSimpleName(), methodName);
+
+            R service = SpringUtils.getBean(serviceClass);
+            if (service == null) {
+                log.error(SERVICE_INSTANCE_NULL_ERROR + ": {}", serviceClass.getName());
+                return null;
+            }
+            return invokeServiceMethod(service, methodName, args);
+
+        } catch (Exception e) {
+            log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
+                    serviceClass.getSimpleName(), methodName, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 把方法返回值转换为指定类型（与同步调用的转换方式一致）
+     */
+    private static <T> T convertResult(Object result, Class<T> returnType, Class<?> serviceClass, String methodName) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            String jsonResult = (result instanceof String) ? (String) result : serializeResult(result, serviceClass, methodName);
+            return convertJsonToType(jsonResult, returnType, serviceClass, methodName);
+        } catch (Exception e) {
+            log.error(JSON_CONVERT_FAILED_ERROR + ": {} -> {}, 错误: {}",
+                    result.getClass().getSimpleName(), returnType, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 使用JSON参数调用方法
+     * JSON数组按位置传参，JSON对象按参数名传参（需要编译时保留参数名，如 -parameters）；
+     * 按参数名和类型选择重载方法，每个参数直接从JSON节点转换为声明的参数类型（含泛型），绑定计划按方法缓存
+     * @param <T> 返回值类型
+     * @param <R> Service类型
+     * @param returnType 返回值类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param jsonArgs JSON参数，如 [1, {"name":"张三"}] 或 {"id":1,"user":{"name":"张三"}}，为空时表示无参数
+     * @return 返回指定类型的值
+     */
+    public static <T, R> T invokeServiceWithJsonArgs(Class<T> returnType, Class<R> serviceClass,
+                                                     String methodName, String jsonArgs) {
+        Object args;
+        try {
+            args = StrUtil.isBlank(jsonArgs) ? Collections.emptyList() : JSONUtil.parse(jsonArgs);
+        } catch (Exception e) {
+            log.error(PARAM_CONVERSION_FAILED_WARNING + ": {}.{}, 参数不是合法的JSON: {}",
+                    serviceClass != null ? serviceClass.getSimpleName() : null, methodName, e.getMessage());
+            return null;
+        }
+        return invokeServiceWithBoundArgs(returnType, serviceClass, methodName, args);
+    }
+
+    /**
+     * 使用按名称传递的参数调用方法（如请求中已解析好的Map），规则同 {@link #invokeServiceWithJsonArgs(Class, Class, String, String)}
+     * @param <T> 返回值类型
+     * @param <R> Service类型
+     * @param returnType 返回值类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param namedArgs 参数名到参数值的Map，值可以是Map、List或简单类型
+     * @return 返回指定类型的值
+     */
+    public static <T, R> T invokeServiceWithJsonArgs(Class<T> returnType, Class<R> serviceClass,
+                                                     String methodName, Map<String, ?> namedArgs) {
+        return invokeServiceWithBoundArgs(returnType, serviceClass, methodName,
+                namedArgs != null ? namedArgs : Collections.emptyMap());
+    }
+
+    private static <T, R> T invokeServiceWithBoundArgs(Class<T> returnType, Class<R> serviceClass,
+                                                       String methodName, Object args) {
+        if (serviceClass == null || StrUtil.isEmpty(methodName)) {
+            log.error(PARAM_NOT_FOUND_ERROR + ": serviceClass={}, methodName={}", serviceClass, methodName);
+            return null;
+        }
+
+        try {
+            log.info(METHOD_INVOCATION_START_INFO + ": {}, 方法: {}", serviceClass.getSimpleName(), methodName);
+
+            R service = SpringUtils.getBean(serviceClass);
+            if (service == null) {
+                log.error(SERVICE_INSTANCE_NULL_ERROR + ": {}", serviceClass.getName());
+                return null;
+            }
+
+            Object result = invokeWithBoundArgs(service, methodName, args);
+            if (AsyncResultSupport.isAsync(result)) {
+                result = AsyncResultSupport.await(result);
+            }
+            if (result == null) {
+                log.warn(JSON_RESULT_NULL_WARN + ": {}.{}", serviceClass.getSimpleName(), methodName);
+                return null;
+            }
+            log.info(METHOD_INVOCATION_SUCCESS_INFO + ": {}.{}", serviceClass.getSimpleName(), methodName);
+            return convertResult(result, returnType, serviceClass, methodName);
 
         } catch (Exception e) {
             log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
@@ -76,57 +244,138 @@ public class SpringServiceCaller {
         }
     }
 
+    /**
+     * 按绑定计划调用方法并返回原始结果（异常直接抛出，供网关等需要区分失败原因的调用方使用）
+     * @param service Service实例
+     * @param methodName 方法名
+     * @param args 按位置传参的List（如JSONArray）或按名称传参的Map（如JSONObject），null表示无参数
+     * @return 方法返回值
+     * @throws NoSuchMethodException 没有与参数匹配的方法
+     * @throws Exception 参数转换失败或方法抛出的异常
+     */
+    static Object invokeWithBoundArgs(Object service, String methodName, Object args) throws Exception {
+        if (args == null) {
+            args = Collections.emptyList();
+        } else if (!(args instanceof List) && !(args instanceof Map)) {
+            throw new IllegalArgumentException("参数必须是JSON数组或JSON对象");
+        }
+        JsonArgumentPlan plan = resolveArgumentPlan(service.getClass(), methodName, args);
+        if (plan == null) {
+            throw new NoSuchMethodException(METHOD_NOT_FOUND_ERROR + ": "
+                    + service.getClass().getSimpleName() + "." + methodName);
+        }
+        return proceed(plan.getInvocation(), service, methodName, plan.bind(args));
+    }
+
+    /**
+     * 执行调用链并记录调用事件
+     */
+    private static Object proceed(ServiceInvocation invocation, Object service, String methodName,
+                                  Object[] args) throws Exception {
+        ServiceCallTrace trace = ServiceCallTrace.invoke(service.getClass(), methodName, args == null ? 0 : args.length);
+        Object result;
+        try {
+            result = invocation.proceed(service, args);
+        } catch (Exception e) {
+            trace.end(ServiceCallTrace.OUTCOME_ERROR);
+            throw e;
+        }
+        trace.end(result != null ? ServiceCallTrace.OUTCOME_SUCCESS : ServiceCallTrace.OUTCOME_NULL);
+        return result;
+    }
+
+    /**
+     * 解析JSON参数绑定计划（按 (类, 方法名, 参数形态) 缓存，未找到的方法不缓存）
+     */
+    private static JsonArgumentPlan resolveArgumentPlan(Class<?> clazz, String methodName, Object args) {
+        InvocationRegistry registry = invocationRegistry;
+        JsonArgumentPlan.Key key = JsonArgumentPlan.key(clazz, methodName, args);
+        ServiceCallTrace trace = ServiceCallTrace.resolve(clazz, methodName, key.size());
+        JsonArgumentPlan cached = registry.argumentPlans.get(key);
+        if (cached != null) {
+            trace.cacheHit(true).end(ServiceCallTrace.OUTCOME_SUCCESS);
+            return cached;
+        }
+
+        Method method = JsonArgumentPlan.select(clazz, key);
+        ServiceInvocation invocation = method == null ? null
+                : resolveInvocation(clazz, methodName, method.getParameterTypes());
+        if (invocation == null) {
+            trace.end(ServiceCallTrace.OUTCOME_NOT_FOUND);
+            return null;
+        }
+        JsonArgumentPlan compiled = JsonArgumentPlan.compile(clazz, method, key, invocation);
+        JsonArgumentPlan existing = registry.argumentPlans.putIfAbsent(key, compiled);
+        trace.end(ServiceCallTrace.OUTCOME_SUCCESS);
+        log.debug(LOG_PREFIX + " 参数绑定计划: {} -> {}", key, invocation);
+        return existing != null ? existing : compiled;
+    }
+
     /**
      * 将JSON字符串转换为指定类型的对象
      * @param <T> 目标类型
      * @param jsonString JSON字符串
      * @param targetType 目标类型Class
+     * @param serviceClass 来源Service类（用于JFR事件）
+     * @param methodName 来源方法名（用于JFR事件）
      * @return 指定类型的对象
      */
-    @SuppressWarnings("unchecked")
-    private static <T> T convertJsonToType(String jsonString, Class<T> targetType) {
+    private static <T> T convertJsonToType(String jsonString, Class<T> targetType,
+                                           Class<?> serviceClass, String methodName) {
         if (StrUtil.isEmpty(jsonString) || targetType == null) {
             log.warn(JSON_RESULT_NULL_WARN + ": jsonString={}, targetType={}",
                     jsonString != null ? "非空" : "空", targetType);
             return null;
         }
 
+        ServiceCallTrace trace = ServiceCallTrace.convert(serviceClass, methodName, targetType)
+                .payloadSize(jsonString.length());
         try {
             log.debug(LOG_PREFIX + " 开始转换JSON为类型: {} -> {}", jsonString, targetType.getSimpleName());
+            T result = parseJsonToType(jsonString, targetType);
+            trace.end(result != null ? ServiceCallTrace.OUTCOME_SUCCESS : ServiceCallTrace.OUTCOME_NULL);
+            return result;
 
-            // 特殊处理：如果目标类型是String，且输入是JSON对象
-            if (targetType == String.class) {
-                String trimmed = jsonString.trim();
-                if (trimmed.startsWith(JSON_OBJECT_START) && trimmed.endsWith(JSON_OBJECT_END)) {
-                    try {
-                        Map<String, Object> map = convertJsonToMap(jsonString);
-                        if (map != null && !map.isEmpty()) {
-                            String formattedJson = JSONUtil.toJsonStr(map);
-                            log.info(LOG_PREFIX + " String类型JSON格式化成功");
-                            return (T) formattedJson;
-                        }
-                    } catch (Exception e) {
-                        log.debug(LOG_PREFIX + " JSON对象格式化失败，使用原始字符串: {}", e.getMessage());
+        } catch (Exception e) {
+            trace.end(ServiceCallTrace.OUTCOME_ERROR);
+            log.error(JSON_CONVERT_FAILED_ERROR + ": {} -> {}, 错误: {}",
+                    jsonString, targetType.getSimpleName(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 将JSON字符串转换为指定类型的对象（转换失败时抛出异常）
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T parseJsonToType(String jsonString, Class<T> targetType) {
+        // 特殊处理：如果目标类型是String，且输入是JSON对象
+        if (targetType == String.class) {
+            String trimmed = jsonString.trim();
+            if (trimmed.startsWith(JSON_OBJECT_START) && trimmed.endsWith(JSON_OBJECT_END)) {
+                try {
+                    Map<String, Object> map = convertJsonToMap(jsonString);
+                    if (map != null && !map.isEmpty()) {
+                        String formattedJson = JSONUtil.toJsonStr(map);
+                        log.info(LOG_PREFIX + " String类型JSON格式化成功");
+                        return (T) formattedJson;
                     }
+                } catch (Exception e) {
+                    log.debug(LOG_PREFIX + " JSON对象格式化失败，使用原始字符串: {}", e.getMessage());
                 }
-                return (T) jsonString;
-            }
-
-            T result = JSONUtil.toBean(jsonString, targetType);
-
-            if (result == null) {
-                log.warn(TAG_RESULT_NULL_WARN);
-                return null;
             }
+            return (T) jsonString;
+        }
 
-            log.info(JSON_CONVERT_SUCCESS_INFO + "，目标类型: {}", targetType.getSimpleName());
-            return result;
+        T result = JSONUtil.toBean(jsonString, targetType);
 
-        } catch (Exception e) {
-            log.error(JSON_CONVERT_FAILED_ERROR + ": {} -> {}, 错误: {}",
-                    jsonString, targetType.getSimpleName(), e.getMessage(), e);
+        if (result == null) {
+            log.warn(TAG_RESULT_NULL_WARN);
             return null;
         }
+
+        log.info(JSON_CONVERT_SUCCESS_INFO + "，目标类型: {}", targetType.getSimpleName());
+        return result;
     }
 
     /**
@@ -149,6 +398,102 @@ public class SpringServiceCaller {
         }
     }
 
+    /**
+     * 通用方法调用（大结果溢出版本）
+     * 结果序列化为JSON时直接写入溢出存储：小于阈值保存在堆上，超过阈值写入堆外内存或内存映射的临时文件，
+     * 不会在堆上生成完整的JSON字符串。返回的结果使用完后必须关闭
+     * @param <R> Service类型
+     * @param serviceClass Service类
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 调用结果，方法返回null或调用失败时返回null
+     */
+    public static <R> SpilledResult invokeServiceForResult(Class<R> serviceClass, String methodName, Object... args) {
+        Object result = invokeServiceRaw(serviceClass, methodName, args);
+        if (result == null) {
+            return null;
+        }
+
+        try {
+            if (AsyncResultSupport.isAsync(result)) {
+                result = AsyncResultSupport.await(result);
+                if (result == null) {
+                    log.warn(JSON_RESULT_NULL_WARN + ": {}.{}", serviceClass.getSimpleName(), methodName);
+                    return null;
+                }
+            }
+            ServiceCallTrace trace = ServiceCallTrace.serialize(serviceClass, methodName);
+            SpilledResult spilled;
+            try {
+                spilled = writeResult(result, spillPolicy);
+            } catch (IOException | RuntimeException e) {
+                trace.end(ServiceCallTrace.OUTCOME_ERROR);
+                throw e;
+            }
+            trace.payloadSize(spilled.size()).end(ServiceCallTrace.OUTCOME_SUCCESS);
+            log.debug(LOG_PREFIX + " 结果序列化完成: {}.{}, {}", serviceClass.getSimpleName(), methodName, spilled);
+            return spilled;
+
+        } catch (Exception e) {
+            log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
+                    serviceClass.getSimpleName(), methodName, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 设置大结果溢出策略（影响 invokeServiceForResult）
+     * @param policy 溢出策略，为空时恢复默认策略
+     */
+    public static void setSpillPolicy(SpillPolicy policy) {
+        spillPolicy = policy != null ? policy : SpillPolicy.defaults();
+        log.info(LOG_PREFIX + " 溢出策略已更新: {}", spillPolicy);
+    }
+
+    public static SpillPolicy getSpillPolicy() {
+        return spillPolicy;
+    }
+
+    /**
+     * 把调用结果序列化为JSON字符串
+     * @param result 调用结果
+     * @param serviceClass Service类（用于JFR事件）
+     * @param methodName 方法名（用于JFR事件）
+     * @return JSON字符串
+     */
+    private static String serializeResult(Object result, Class<?> serviceClass, String methodName) {
+        ServiceCallTrace trace = ServiceCallTrace.serialize(serviceClass, methodName);
+        try {
+            String json = JSONUtil.toJsonStr(result);
+            trace.payloadSize(json.length()).end(ServiceCallTrace.OUTCOME_SUCCESS);
+            return json;
+        } catch (RuntimeException e) {
+            trace.end(ServiceCallTrace.OUTCOME_ERROR);
+            throw e;
+        }
+    }
+
+    /**
+     * 把调用结果序列化写入溢出存储（String结果原样写入）
+     * @param result 调用结果
+     * @param policy 溢出策略
+     * @return 序列化结果
+     */
+    private static SpilledResult writeResult(Object result, SpillPolicy policy) throws IOException {
+        SpillingWriter writer = new SpillingWriter(policy);
+        try {
+            if (result instanceof String) {
+                writer.write((String) result);
+            } else {
+                JSONUtil.parse(result).write(writer);
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.discard();
+            throw e;
+        }
+    }
+
     /**
      * 调用Service方法并返回JSON字符串
      * @param service Service实例
@@ -157,6 +502,39 @@ public class SpringServiceCaller {
      * @return JSON字符串
      */
     private static String invokeServiceForJson(Object service, String methodName, Object[] args) {
+        Object result = invokeServiceMethod(service, methodName, args);
+        if (result == null) {
+            return null;
+        }
+
+        try {
+            // 异步返回值：同步入口等待实际结果，而不是序列化包装对象
+            if (AsyncResultSupport.isAsync(result)) {
+                log.debug(LOG_PREFIX + " 同步调用等待异步结果: {}.{}", service.getClass().getSimpleName(), methodName);
+                result = AsyncResultSupport.await(result);
+                if (result == null) {
+                    log.warn(JSON_RESULT_NULL_WARN + ": {}.{}", service.getClass().getSimpleName(), methodName);
+                    return null;
+                }
+            }
+
+            //转换为JSON字符串 智能处理返回结果
+            return (result instanceof String) ? (String) result : serializeResult(result, service.getClass(), methodName);
+        } catch (Exception e) {
+            log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
+                    service.getClass().getSimpleName(), methodName, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 调用Service方法并返回原始结果
+     * @param service Service实例
+     * @param methodName 方法名
+     * @param args 方法参数
+     * @return 方法返回值，调用失败或返回null时为null
+     */
+    private static Object invokeServiceMethod(Object service, String methodName, Object[] args) {
         if (service == null || StrUtil.isEmpty(methodName)) {
             log.error(PARAM_NOT_FOUND_ERROR + ": service={}, methodName={}", service, methodName);
             return null;
@@ -168,25 +546,23 @@ public class SpringServiceCaller {
             // 获取参数类型
             Class<?>[] paramTypes = getParameterTypes(args);
             
-            // 查找方法
-            Method method = findMethod(service.getClass(), methodName, paramTypes);
-            if (method == null) {
+            // 查找方法（解析结果和拦截器链按方法缓存）
+            ServiceInvocation invocation = resolveInvocation(service.getClass(), methodName, paramTypes);
+            if (invocation == null) {
                 log.error(METHOD_NOT_FOUND_ERROR + ": {}.{}", service.getClass().getSimpleName(), methodName);
                 return null;
             }
 
-            // 调用方法
-            Object result = ReflectionUtils.invokeMethod(method, service, args);
+            // 调用方法（经过拦截器链）
+            Object result = proceed(invocation, service, methodName, args);
             
             if (result == null) {
                 log.warn(JSON_RESULT_NULL_WARN + ": {}.{}", service.getClass().getSimpleName(), methodName);
                 return null;
             }
 
-            //转换为JSON字符串 智能处理返回结果
-            String jsonResult = (result instanceof String) ? (String) result : JSONUtil.toJsonStr(result);
             log.info(METHOD_INVOCATION_SUCCESS_INFO + ": {}.{}", service.getClass().getSimpleName(), methodName);
-            return jsonResult;
+            return result;
 
         } catch (Exception e) {
             log.error(INVOCATION_FAILED_ERROR + ": {}.{}, 错误: {}",
@@ -195,6 +571,66 @@ public class SpringServiceCaller {
         }
     }
 
+    /**
+     * 设置Service调用拦截器（按传入顺序执行），已缓存的方法解析结果会失效并按新的拦截器重新编译
+     * 通常由 ServiceInvocationInterceptorRegistrar 在容器启动完成后调用，与 addInterceptor 互斥
+     * @param interceptors 拦截器列表，为空时清除所有拦截器
+     */
+    public static synchronized void setInterceptors(List<ServiceInvocationInterceptor> interceptors) {
+        List<ServiceInvocationInterceptor> copy = interceptors == null
+                ? Collections.<ServiceInvocationInterceptor>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(interceptors));
+        invocationRegistry = new InvocationRegistry(copy);
+        log.info(LOG_PREFIX + " 拦截器已更新: {}个", copy.size());
+    }
+
+    /**
+     * 追加一个拦截器，并按 Ordered / @Order 重新排序
+     * @param interceptor 拦截器
+     */
+    public static synchronized void addInterceptor(ServiceInvocationInterceptor interceptor) {
+        if (interceptor == null) {
+            return;
+        }
+        List<ServiceInvocationInterceptor> list = new ArrayList<>(invocationRegistry.interceptors);
+        list.add(interceptor);
+        AnnotationAwareOrderComparator.sort(list);
+        setInterceptors(list);
+    }
+
+    public static List<ServiceInvocationInterceptor> getInterceptors() {
+        return invocationRegistry.interceptors;
+    }
+
+    /**
+     * 解析方法并编译拦截器链（结果按 (类, 方法名, 参数类型) 缓存，未找到的方法不缓存）
+     * @param clazz Service实际类型
+     * @param methodName 方法名
+     * @param paramTypes 参数类型
+     * @return 调用链，未找到方法时返回null
+     */
+    static ServiceInvocation resolveInvocation(Class<?> clazz, String methodName, Class<?>[] paramTypes) {
+        InvocationRegistry registry = invocationRegistry;
+        MethodKey key = new MethodKey(clazz, methodName, paramTypes);
+        ServiceCallTrace trace = ServiceCallTrace.resolve(clazz, methodName, paramTypes.length);
+        ServiceInvocation cached = registry.cache.get(key);
+        if (cached != null) {
+            trace.cacheHit(true).end(ServiceCallTrace.OUTCOME_SUCCESS);
+            return cached;
+        }
+
+        Method method = findMethod(clazz, methodName, paramTypes);
+        if (method == null) {
+            trace.end(ServiceCallTrace.OUTCOME_NOT_FOUND);
+            return null;
+        }
+        ServiceInvocation compiled = ServiceInvocation.compile(clazz, method, registry.interceptors);
+        ServiceInvocation existing = registry.cache.putIfAbsent(key, compiled);
+        trace.end(ServiceCallTrace.OUTCOME_SUCCESS);
+        log.debug(LOG_PREFIX + " 方法解析完成: {}", compiled);
+        return existing != null ? existing : compiled;
+    }
+
     /**
      * 查找方法（支持参数类型匹配）
      * @param clazz 类
@@ -447,7 +883,7 @@ public class SpringServiceCaller {
      * @return 转换后的值
      */
     @SuppressWarnings("unchecked")
-    private static <T> T convertValue(Object value, Class<T> targetType) {
+    static <T> T convertValue(Object value, Class<T> targetType) {
         if (value == null || targetType == null) {
             return null;
         }
@@ -457,43 +893,105 @@ public class SpringServiceCaller {
             return (T) value;
         }
         
+        ServiceCallTrace trace = ServiceCallTrace.convert(null, null, targetType);
         try {
-            // 字符串类型转换
-            if (targetType == String.class) {
-                return (T) value.toString();
-            }
-            
-            // 数字类型转换
-            if (targetType == Integer.class || targetType == int.class) {
-                if (value instanceof Number) {
-                    return (T) Integer.valueOf(((Number) value).intValue());
-                }
-                return (T) Integer.valueOf(value.toString());
-            }
-            
-            if (targetType == Long.class || targetType == long.class) {
-                if (value instanceof Number) {
-                    return (T) Long.valueOf(((Number) value).longValue());
-                }
-                return (T) Long.valueOf(value.toString());
-            }
-            
-            if (targetType == Boolean.class || targetType == boolean.class) {
-                if (value instanceof Boolean) {
-                    return (T) value;
-                }
-                String strValue = value.toString().toLowerCase();
-                return (T) Boolean.valueOf("true".equals(strValue) || "1".equals(strValue));
-            }
-            
-            // 其他类型通过JSON转换
-            String jsonValue = JSONUtil.toJsonStr(value);
-            return JSONUtil.toBean(jsonValue, targetType);
-            
+            T converted = convertMismatchedValue(value, targetType, trace);
+            trace.end(converted != null ? ServiceCallTrace.OUTCOME_SUCCESS : ServiceCallTrace.OUTCOME_NULL);
+            return converted;
         } catch (Exception e) {
+            trace.end(ServiceCallTrace.OUTCOME_ERROR);
             log.warn(PARAM_CONVERSION_FAILED_WARNING + ": {} -> {}, 值: {}, 错误: {}", 
                     value.getClass().getSimpleName(), targetType.getSimpleName(), value, e.getMessage());
             return null;
         }
     }
+
+    /**
+     * 转换类型不匹配的值（转换失败时抛出异常）
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T convertMismatchedValue(Object value, Class<T> targetType, ServiceCallTrace trace) {
+        // 字符串类型转换
+        if (targetType == String.class) {
+            return (T) value.toString();
+        }
+        
+        // 数字类型转换
+        if (targetType == Integer.class || targetType == int.class) {
+            if (value instanceof Number) {
+                return (T) Integer.valueOf(((Number) value).intValue());
+            }
+            return (T) Integer.valueOf(value.toString());
+        }
+        
+        if (targetType == Long.class || targetType == long.class) {
+            if (value instanceof Number) {
+                return (T) Long.valueOf(((Number) value).longValue());
+            }
+            return (T) Long.valueOf(value.toString());
+        }
+        
+        if (targetType == Boolean.class || targetType == boolean.class) {
+            if (value instanceof Boolean) {
+                return (T) value;
+            }
+            String strValue = value.toString().toLowerCase();
+            return (T) Boolean.valueOf("true".equals(strValue) || "1".equals(strValue));
+        }
+        
+        // 其他类型通过JSON转换
+        String jsonValue = JSONUtil.toJsonStr(value);
+        trace.payloadSize(jsonValue.length());
+        return JSONUtil.toBean(jsonValue, targetType);
+    }
+
+    /**
+     * 拦截器列表与对应的方法解析缓存、JSON参数绑定计划缓存
+     */
+    private static final class InvocationRegistry {
+
+        private final List<ServiceInvocationInterceptor> interceptors;
+        private final ConcurrentHashMap<MethodKey, ServiceInvocation> cache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<JsonArgumentPlan.Key, JsonArgumentPlan> argumentPlans = new ConcurrentHashMap<>();
+
+        InvocationRegistry(List<ServiceInvocationInterceptor> interceptors) {
+            this.interceptors = interceptors;
+        }
+    }
+
+    /**
+     * 方法解析缓存键
+     */
+    private static final class MethodKey {
+
+        private final Class<?> clazz;
+        private final String methodName;
+        private final Class<?>[] paramTypes;
+        private final int hash;
+
+        MethodKey(Class<?> clazz, String methodName, Class<?>[] paramTypes) {
+            this.clazz = clazz;
+            this.methodName = methodName;
+            this.paramTypes = paramTypes;
+            this.hash = (clazz.hashCode() * 31 + methodName.hashCode()) * 31 + Arrays.hashCode(paramTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) o;
+            return clazz == other.clazz && methodName.equals(other.methodName)
+                    && Arrays.equals(paramTypes, other.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
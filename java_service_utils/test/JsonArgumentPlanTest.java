@@ -0,0 +1,100 @@
+package com.chestnut.api.utils;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JsonArgumentPlan 测试：重载选择与参数绑定（按名称传参依赖调试信息中的参数名，Maven默认编译参数已包含）
+ *
+ * @author shenmiren21
+ */
+public class JsonArgumentPlanTest {
+
+    public static class User {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class UserService {
+
+        public String find(long id) {
+            return "id:" + id;
+        }
+
+        public String find(String name) {
+            return "name:" + name;
+        }
+
+        public String search(String keyword, int page) {
+            return keyword + "@" + page;
+        }
+
+        public int save(List<User> users) {
+            return users.size();
+        }
+    }
+
+    @Test
+    public void positionalArgsSelectOverloadByKind() {
+        Object[] byId = bind("find", JSONUtil.parseArray("[42]"));
+        assertEquals(42L, byId[0]);
+
+        Method method = select("find", JSONUtil.parseArray("[\"bob\"]"));
+        assertEquals(String.class, method.getParameterTypes()[0]);
+        assertArrayEquals(new Object[]{"bob"}, bind("find", JSONUtil.parseArray("[\"bob\"]")));
+    }
+
+    @Test
+    public void namedArgsBindByParameterNameRegardlessOfOrder() {
+        Object[] bound = bind("search", JSONUtil.parseObj("{\"page\":2,\"keyword\":\"k\"}"));
+        assertArrayEquals(new Object[]{"k", 2}, bound);
+    }
+
+    @Test
+    public void missingNamedPrimitiveBindsToDefault() {
+        Object[] bound = bind("search", JSONUtil.parseObj("{\"keyword\":\"k\"}"));
+        assertArrayEquals(new Object[]{"k", 0}, bound);
+    }
+
+    @Test
+    public void unknownParameterNameIsRejected() {
+        assertNull(select("search", JSONUtil.parseObj("{\"keyword\":\"k\",\"size\":10}")));
+    }
+
+    @Test
+    public void listOfBeansIsBoundWithElementType() {
+        JSONArray args = JSONUtil.parseArray("[[{\"name\":\"a\"},{\"name\":\"b\"}]]");
+        Object[] bound = bind("save", args);
+        List<?> users = (List<?>) bound[0];
+        assertEquals(2, users.size());
+        assertTrue(users.get(0) instanceof User);
+        assertEquals("b", ((User) users.get(1)).getName());
+    }
+
+    private static Method select(String methodName, Object args) {
+        return JsonArgumentPlan.select(UserService.class, JsonArgumentPlan.key(UserService.class, methodName, args));
+    }
+
+    private static Object[] bind(String methodName, Object args) {
+        JsonArgumentPlan.Key key = JsonArgumentPlan.key(UserService.class, methodName, args);
+        Method method = JsonArgumentPlan.select(UserService.class, key);
+        return JsonArgumentPlan.compile(UserService.class, method, key, null).bind(args);
+    }
+}
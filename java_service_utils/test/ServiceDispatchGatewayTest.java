@@ -0,0 +1,195 @@
+package com.chestnut.api.utils;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ServiceDispatchGateway 测试：通过回环地址发送原始HTTP请求（Origin、Host是HttpURLConnection不允许设置的请求头）
+ *
+ * @author shenmiren21
+ */
+public class ServiceDispatchGatewayTest {
+
+    private ServiceDispatchGateway gateway;
+
+    @Before
+    public void setUp() throws IOException {
+        gateway = ServiceDispatchGateway.builder()
+                .address(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .allow("userService", "getUserById")
+                .maxFrameBytes(1024)
+                .build()
+                .start();
+    }
+
+    @After
+    public void tearDown() {
+        gateway.stop();
+    }
+
+    @Test
+    public void callOutsideAllowListIsDenied() throws IOException {
+        Response response = post("127.0.0.1", null, "application/json",
+                "{\"id\":7,\"service\":\"userService\",\"method\":\"deleteUser\",\"args\":[1]}");
+
+        assertEquals(200, response.status);
+        JSONObject result = JSONUtil.parseObj(response.body);
+        assertEquals(7, result.getInt("id").intValue());
+        assertFalse(result.getBool("ok"));
+        assertTrue(result.getStr("error").contains("userService.deleteUser"));
+    }
+
+    @Test
+    public void browserOriginIsRejected() throws IOException {
+        Response response = post("127.0.0.1", "http://evil.example", "application/json",
+                "{\"service\":\"userService\",\"method\":\"getUserById\",\"args\":[1]}");
+
+        assertEquals(403, response.status);
+        assertFalse(JSONUtil.parseObj(response.body).getBool("ok"));
+    }
+
+    @Test
+    public void rebindingHostIsRejected() throws IOException {
+        Response response = post("evil.example:" + gateway.getPort(), null, "application/json",
+                "{\"service\":\"userService\",\"method\":\"getUserById\",\"args\":[1]}");
+
+        assertEquals(403, response.status);
+    }
+
+    @Test
+    public void simpleContentTypeIsRejected() throws IOException {
+        Response response = post("127.0.0.1", null, "text/plain",
+                "{\"service\":\"userService\",\"method\":\"getUserById\",\"args\":[1]}");
+
+        assertEquals(415, response.status);
+    }
+
+    @Test
+    public void batchReturnsOneResultPerCallInOrder() throws IOException {
+        Response response = post("localhost", null, "application/json", "["
+                + "{\"id\":1,\"service\":\"userService\",\"method\":\"deleteUser\"},"
+                + "42,"
+                + "{\"id\":3,\"service\":\"userService\"}]");
+
+        assertEquals(200, response.status);
+        JSONArray results = JSONUtil.parseArray(response.body);
+        assertEquals(3, results.size());
+        assertEquals(1, results.getJSONObject(0).getInt("id").intValue());
+        assertTrue(results.getJSONObject(1).getStr("error").contains("JSON对象"));
+        assertEquals(3, results.getJSONObject(2).getInt("id").intValue());
+        for (int i = 0; i < results.size(); i++) {
+            assertFalse(results.getJSONObject(i).getBool("ok"));
+        }
+    }
+
+    @Test
+    public void ndjsonReturnsOneLinePerCall() throws IOException {
+        Response response = post("127.0.0.1", null, "application/x-ndjson",
+                "{\"id\":1,\"service\":\"userService\",\"method\":\"deleteUser\"}\n\nnot json\n");
+
+        assertEquals(200, response.status);
+        String[] lines = response.body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, JSONUtil.parseObj(lines[0]).getInt("id").intValue());
+        assertTrue(JSONUtil.parseObj(lines[1]).getStr("error").contains("JSON"));
+    }
+
+    @Test
+    public void oversizedBodyGets413() throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        while (body.length() < 2048) {
+            body.append("{\"service\":\"userService\",\"method\":\"getUserById\",\"args\":[1]},");
+        }
+        body.setLength(body.length() - 1);
+        Response response = post("127.0.0.1", null, "application/json", body.append(']').toString());
+
+        assertEquals(413, response.status);
+        assertFalse(JSONUtil.parseObj(response.body).getBool("ok"));
+    }
+
+    private Response post(String host, String origin, String contentType, String body) throws IOException {
+        byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder request = new StringBuilder()
+                .append("POST ").append(ServiceDispatchGateway.INVOKE_PATH).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append("\r\n")
+                .append("Content-Type: ").append(contentType).append("\r\n")
+                .append("Content-Length: ").append(payload.length).append("\r\n")
+                .append("Connection: close\r\n");
+        if (origin != null) {
+            request.append("Origin: ").append(origin).append("\r\n");
+        }
+        request.append("\r\n");
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), gateway.getPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(payload);
+            out.flush();
+            return Response.parse(readAll(socket.getInputStream()));
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            buffer.write(chunk, 0, n);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * 解析响应，流式结果使用chunked编码
+         */
+        static Response parse(byte[] raw) {
+            String text = new String(raw, StandardCharsets.ISO_8859_1);
+            int headerEnd = text.indexOf("\r\n\r\n");
+            String headers = text.substring(0, headerEnd);
+            int status = Integer.parseInt(headers.split(" ")[1]);
+            int position = headerEnd + 4;
+            if (!headers.toLowerCase(Locale.ROOT).contains("transfer-encoding: chunked")) {
+                return new Response(status, new String(raw, position, raw.length - position, StandardCharsets.UTF_8));
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                int lineEnd = text.indexOf("\r\n", position);
+                int size = Integer.parseInt(text.substring(position, lineEnd).trim(), 16);
+                if (size == 0) {
+                    break;
+                }
+                body.write(raw, lineEnd + 2, size);
+                position = lineEnd + 2 + size + 2;
+            }
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.chestnut.api.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SpilledResult 测试
+ *
+ * @author shenmiren21
+ */
+public class SpilledResultTest {
+
+    @Test
+    public void releasedChunksBeyondIdleLimitAreDiscarded() {
+        int chunkBytes = 1024 * 1024;
+        long reservedBefore = SpilledResult.DirectChunkPool.reservedBytes();
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            ByteBuffer chunk = SpilledResult.DirectChunkPool.acquire(chunkBytes, 256L * 1024 * 1024);
+            assertNotNull(chunk);
+            chunks.add(chunk);
+        }
+        for (ByteBuffer chunk : chunks) {
+            SpilledResult.DirectChunkPool.release(chunk);
+        }
+
+        int idle = SpilledResult.DirectChunkPool.freeChunks();
+        assertTrue((long) idle * chunkBytes <= SpilledResult.DirectChunkPool.MAX_IDLE_BYTES);
+        assertTrue(idle > 0);
+        assertEquals(reservedBefore + (long) idle * chunkBytes, SpilledResult.DirectChunkPool.reservedBytes());
+    }
+}